@@ -812,7 +812,12 @@ public class JBeam implements IHost, IController
 	       {
 		   status.setText("calculating...");
 		   try {
-		       model.calculate();
+		       if (model.getLoadCombinationCount() > 0) {
+			   // load cases and envelopes, incl. the model's own loads
+			   model.calculateEnvelope();
+		       } else {
+			   model.calculate();
+		       }
 		   } catch (RuntimeException e) {
 		       JOptionPane.showMessageDialog(null, 
 			   "Runtime Exception:\n"+
@@ -1,9 +1,13 @@
 package com.schwebke.jbeam;
 
+import com.schwebke.jbeam.model.AnalysisOptions;
+import com.schwebke.jbeam.model.ProfileStatistics;
 import com.schwebke.jbeam.model.SelectableModel;
+import com.schwebke.jbeam.model.SolverStrategy;
 import com.schwebke.jbeam.persistence.JsonPersistence;
 import com.schwebke.jbeam.view.TextView;
 import com.schwebke.jbeam.view.HtmlView;
+import com.schwebke.math.Parallel;
 
 import java.io.*;
 import java.text.DecimalFormat;
@@ -52,6 +56,9 @@ public class JBeamCLI {
         boolean showVersion = false;
         boolean showHelp = false;
         boolean showAllItems = false; // default to labeled items only
+        boolean showProfileStats = false;
+        int modes = 0; // 0: all eigenmodes
+        AnalysisOptions options = new AnalysisOptions();
         
         // Parse command line arguments
         for (int i = 0; i < args.length; i++) {
@@ -104,10 +111,58 @@ public class JBeamCLI {
                         throw new IllegalArgumentException("Missing analysis type after " + arg);
                     }
                     break;
+                case "-m":
+                case "--modes":
+                    if (i + 1 < args.length) {
+                        String count = args[++i];
+                        try {
+                            modes = Integer.parseInt(count);
+                        } catch (NumberFormatException e) {
+                            throw new IllegalArgumentException("Invalid number of modes: " + count);
+                        }
+                        if (modes < 1) {
+                            throw new IllegalArgumentException("Invalid number of modes: " + count);
+                        }
+                    } else {
+                        throw new IllegalArgumentException("Missing number of modes after " + arg);
+                    }
+                    break;
                 case "-s":
                 case "--show-all":
                     showAllItems = true;
                     break;
+                case "-p":
+                case "--profile-stats":
+                    showProfileStats = true;
+                    break;
+                case "-t":
+                case "--threads":
+                    if (i + 1 < args.length) {
+                        String threads = args[++i];
+                        try {
+                            Parallel.setParallelism(Integer.parseInt(threads));
+                        } catch (NumberFormatException e) {
+                            throw new IllegalArgumentException("Invalid number of threads: " + threads);
+                        }
+                    } else {
+                        throw new IllegalArgumentException("Missing number of threads after " + arg);
+                    }
+                    break;
+                case "--no-condense":
+                    options.setCondenseMassless(false);
+                    break;
+                case "--solver":
+                    if (i + 1 < args.length) {
+                        String solver = args[++i];
+                        try {
+                            options.setSolverStrategy(SolverStrategy.forName(solver));
+                        } catch (IllegalArgumentException e) {
+                            throw new IllegalArgumentException("Invalid solver: " + solver + ". Use 'auto', 'dense', 'profile', 'sparse' or 'iterative'");
+                        }
+                    } else {
+                        throw new IllegalArgumentException("Missing solver after " + arg);
+                    }
+                    break;
                 default:
                     // If no flag specified, assume it's the input file
                     if (inputFile == null && !arg.startsWith("-")) {
@@ -136,10 +191,23 @@ public class JBeamCLI {
         // Load the model
         System.out.println("Loading model from: " + inputFile);
         SelectableModel model = loadModel(inputFile);
+        model.setOptions(options);
         
         // Perform analysis
         System.out.println("Performing " + analysisType + " analysis...");
-        performAnalysis(model, analysisType);
+        performAnalysis(model, analysisType, modes);
+        
+        if (analysisType.equals("static") && (model.getSolver() != null)) {
+            System.out.println("Solver: " + model.getSolver().getName());
+        }
+        
+        if (analysisType.equals("modal")) {
+            printFrequencies(model);
+        }
+        
+        if (showProfileStats) {
+            printProfileStatistics(model);
+        }
         
         // Export results
         if (outputFile != null) {
@@ -182,13 +250,22 @@ public class JBeamCLI {
         }
     }
     
-    private void performAnalysis(SelectableModel model, String analysisType) {
+    private void performAnalysis(SelectableModel model, String analysisType, int modes) {
         switch (analysisType) {
             case "static":
-                model.calculate();
+                if (model.getLoadCombinationCount() > 0) {
+                    // load cases and envelopes, incl. the model's own loads
+                    model.calculateEnvelope();
+                } else {
+                    model.calculate();
+                }
                 break;
             case "modal":
-                model.calculateModal();
+                if (modes > 0) {
+                    model.calculateModal(modes);
+                } else {
+                    model.calculateModal();
+                }
                 break;
             default:
                 throw new IllegalArgumentException("Unknown analysis type: " + analysisType);
@@ -199,6 +276,21 @@ public class JBeamCLI {
         }
     }
     
+    private void printFrequencies(SelectableModel model) {
+        System.out.println("Eigenfrequencies (" + model.getModeCount() + " modes):");
+        for (int i = 0; i < model.getModeCount(); i++) {
+            System.out.println("  mode " + (i + 1) + ": f = " + numberFormat.format(model.getFreq(i)) + " Hz");
+        }
+    }
+    
+    private void printProfileStatistics(SelectableModel model) {
+        ProfileStatistics before = model.getProfileStatisticsBefore();
+        ProfileStatistics after = model.getProfileStatisticsAfter();
+        System.out.println("Profile statistics (" + after.getDofs() + " DOFs):");
+        System.out.println("  insertion order: " + before);
+        System.out.println("  renumbered:      " + after);
+    }
+    
     private void exportResults(SelectableModel model, String outputFile, String format, boolean showAllItems) throws Exception {
         PrintWriter writer;
         
@@ -242,7 +334,12 @@ public class JBeamCLI {
         System.out.println("  -o, --output FILE      Output results file (default: console)");
         System.out.println("  -f, --format FORMAT    Output format: text|html (default: text)");
         System.out.println("  -a, --analysis TYPE    Analysis type: static|modal (default: static)");
+        System.out.println("  -m, --modes K          Modal analysis: lowest K modes only (Lanczos; default: all)");
         System.out.println("  -s, --show-all         Show all items including unlabeled ones with JSON IDs");
+        System.out.println("  -p, --profile-stats    Show bandwidth/profile of K before and after DOF renumbering");
+        System.out.println("  -t, --threads N        Number of threads for the numerical kernels (default: all cores)");
+        System.out.println("      --solver NAME      Static solver: auto|dense|profile|sparse|iterative (default: auto)");
+        System.out.println("      --no-condense      Modal analysis: keep the massless DOFs (all DOFs give modes)");
         System.out.println("  -v, --version          Show version information");
         System.out.println("  -h, --help             Show this help message");
         System.out.println();
@@ -250,7 +347,9 @@ public class JBeamCLI {
         System.out.println("  java -jar jbeam-cli.jar model.json");
         System.out.println("  java -jar jbeam-cli.jar -i model.json -o results.txt -f text -a static");
         System.out.println("  java -jar jbeam-cli.jar -i model.json -o results.html -f html -a modal");
+        System.out.println("  java -jar jbeam-cli.jar -a modal --modes 10 model.json  # Lowest 10 modes");
         System.out.println("  java -jar jbeam-cli.jar --show-all model.json  # Include unlabeled items");
+        System.out.println("  java -jar jbeam-cli.jar --solver profile model.json  # Force the profile solver");
     }
     
     /**
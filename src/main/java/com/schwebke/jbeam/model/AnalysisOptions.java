@@ -0,0 +1,230 @@
+package com.schwebke.jbeam.model;
+
+import com.schwebke.math.*;
+
+/**
+ * Settings of the analysis of one model (Model.getOptions): choice and
+ * parameters of the static solver backend, assembly, DOF numbering and
+ * modal analysis. They are not part of the model data and are not
+ * saved with it; a changed setting takes effect at the next
+ * calculation.
+ */
+public class AnalysisOptions {
+
+    /**
+     * Backend of the static analysis (SolverStrategy.DENSE, PROFILE,
+     * SPARSE or ITERATIVE); null: automatic choice by Model.selectSolver.
+     */
+    protected SolverStrategy solverStrategy = null;
+
+    /**
+     * Number of global DOFs from which on the static analysis
+     * assembles K in profile storage instead of a dense array.
+     */
+    protected int profileThreshold = 300;
+
+    /**
+     * Number of global DOFs from which on the static analysis uses
+     * the supernodal sparse Cholesky solver.
+     */
+    protected int sparseThreshold = 2000;
+
+    /**
+     * Half bandwidth up to which the automatic choice keeps the profile
+     * solver above sparseThreshold DOFs (long, narrow structures).
+     */
+    protected int narrowBand = 64;
+
+    /** preconditioner of the iterative solver */
+    protected ConjugateGradient.Preconditioning preconditioning = ConjugateGradient.Preconditioning.IC0;
+
+    /**
+     * Re-analysis after stiffness edits of single beams: keep the
+     * factorization and treat the change of the element stiffness
+     * matrices as a low-rank update (Woodbury) instead of assembling
+     * and factorizing K again.
+     */
+    protected boolean lowRankUpdates = false;
+
+    /**
+     * Maximum rank of the accumulated low-rank update (number of DOFs
+     * of the changed beams); beyond it K is factorized again.
+     */
+    protected int maxUpdateRank = 36;
+
+    /**
+     * Sparse direct solver: factorize K in single precision and refine
+     * the solutions in double precision against K (MixedCholesky).
+     */
+    protected boolean mixedPrecision = false;
+
+    /**
+     * Sparse direct solver: partition the node graph into subdomains,
+     * factorize their interiors in parallel and solve the interface
+     * DOFs by their Schur complement (DomainDecomposition).
+     */
+    protected boolean domainDecomposition = false;
+
+    /** number of subdomains of the domain decomposition, 0: one per thread */
+    protected int subdomains = 0;
+
+    /**
+     * Modal analysis: condense the massless DOFs (rotations of the
+     * lumped mass model) statically and solve the eigenproblem of the
+     * mass-carrying DOFs only; the modal analysis then gives one mode per
+     * DOF with mass instead of one per DOF.
+     */
+    protected boolean condenseMassless = true;
+
+    /**
+     * Modal analysis: solve narrow-band eigenproblems with all DOFs
+     * carrying mass by band tridiagonalization of the profile matrix
+     * (Eigen.bandEigen) instead of the dense Jacobi method.
+     */
+    protected boolean bandEigen = true;
+
+    /**
+     * Assembly: compute the element matrices in parallel (Parallel pool).
+     * The beams are colored so that beams of one color share no node;
+     * the colors are scattered into K one after the other, each color in
+     * parallel without locks. The summation order depends on the
+     * coloring only, so the results are the same for every number of
+     * threads.
+     */
+    protected boolean parallelAssembly = true;
+
+    /**
+     * Assembly: keep the assembled K together with the element matrices
+     * it contains and update it for the beams changed since (change
+     * journal) instead of assembling it again; K is assembled completely
+     * after changes of topology, supports or DOF numbering. The profile
+     * solver keeps an unfactorized copy of K for this (KA).
+     */
+    protected boolean incrementalAssembly = true;
+
+    /**
+     * Renumber the DOFs with the reverse Cuthill-McKee ordering of the
+     * node graph to reduce bandwidth and profile of K.
+     */
+    protected boolean renumberDOFs = true;
+
+    public SolverStrategy getSolverStrategy() {
+        return solverStrategy;
+    }
+
+    public void setSolverStrategy(SolverStrategy solverStrategy) {
+        this.solverStrategy = solverStrategy;
+    }
+
+    public int getProfileThreshold() {
+        return profileThreshold;
+    }
+
+    public void setProfileThreshold(int profileThreshold) {
+        this.profileThreshold = profileThreshold;
+    }
+
+    public int getSparseThreshold() {
+        return sparseThreshold;
+    }
+
+    public void setSparseThreshold(int sparseThreshold) {
+        this.sparseThreshold = sparseThreshold;
+    }
+
+    public int getNarrowBand() {
+        return narrowBand;
+    }
+
+    public void setNarrowBand(int narrowBand) {
+        this.narrowBand = narrowBand;
+    }
+
+    public ConjugateGradient.Preconditioning getPreconditioning() {
+        return preconditioning;
+    }
+
+    public void setPreconditioning(ConjugateGradient.Preconditioning preconditioning) {
+        this.preconditioning = preconditioning;
+    }
+
+    public boolean isLowRankUpdates() {
+        return lowRankUpdates;
+    }
+
+    public void setLowRankUpdates(boolean lowRankUpdates) {
+        this.lowRankUpdates = lowRankUpdates;
+    }
+
+    public int getMaxUpdateRank() {
+        return maxUpdateRank;
+    }
+
+    public void setMaxUpdateRank(int maxUpdateRank) {
+        this.maxUpdateRank = maxUpdateRank;
+    }
+
+    public boolean isMixedPrecision() {
+        return mixedPrecision;
+    }
+
+    public void setMixedPrecision(boolean mixedPrecision) {
+        this.mixedPrecision = mixedPrecision;
+    }
+
+    public boolean isDomainDecomposition() {
+        return domainDecomposition;
+    }
+
+    public void setDomainDecomposition(boolean domainDecomposition) {
+        this.domainDecomposition = domainDecomposition;
+    }
+
+    public int getSubdomains() {
+        return subdomains;
+    }
+
+    public void setSubdomains(int subdomains) {
+        this.subdomains = subdomains;
+    }
+
+    public boolean isCondenseMassless() {
+        return condenseMassless;
+    }
+
+    public void setCondenseMassless(boolean condenseMassless) {
+        this.condenseMassless = condenseMassless;
+    }
+
+    public boolean isBandEigen() {
+        return bandEigen;
+    }
+
+    public void setBandEigen(boolean bandEigen) {
+        this.bandEigen = bandEigen;
+    }
+
+    public boolean isParallelAssembly() {
+        return parallelAssembly;
+    }
+
+    public void setParallelAssembly(boolean parallelAssembly) {
+        this.parallelAssembly = parallelAssembly;
+    }
+
+    public boolean isIncrementalAssembly() {
+        return incrementalAssembly;
+    }
+
+    public void setIncrementalAssembly(boolean incrementalAssembly) {
+        this.incrementalAssembly = incrementalAssembly;
+    }
+
+    public boolean isRenumberDOFs() {
+        return renumberDOFs;
+    }
+
+    public void setRenumberDOFs(boolean renumberDOFs) {
+        this.renumberDOFs = renumberDOFs;
+    }
+}
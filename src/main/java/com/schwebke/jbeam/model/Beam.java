@@ -10,6 +10,7 @@ import java.io.*;
   */
 public abstract class Beam implements Distance, Serializable
 {
+    static final long serialVersionUID = -4186431341424411673L;
 
     /**
       * Startknoten
@@ -34,8 +35,6 @@ public abstract class Beam implements Distance, Serializable
     /** globaler Elementlastvektor */
     protected double Lg[];
 
-    /** lokale konzentrierte Massenmatrix */
-    protected double Ml[][];
     /** globale konzentrierte Massenmatrix */
     protected double Mg[][];
     /** Massenbelegung */
@@ -54,6 +53,11 @@ public abstract class Beam implements Distance, Serializable
     /** Stabendschnittgröße Mk */
     protected double Mk;
 
+    /** Stabendschnittgrößen je Lastfall {Ni, Vi, Mi, Nk, Vk, Mk}
+      * (nach Model.calculateLoadCases)
+      */
+    protected transient double caseResults[][];
+
     /** Normalenvektor des Elements */
     protected MVector n;
     /** Richtungsvektor des Elements */
@@ -62,6 +66,22 @@ public abstract class Beam implements Distance, Serializable
     /** Länge des Elements */
     protected double l;
 
+    /** Kosinus des Elementwinkels alpha (von calSg gesetzt) */
+    protected transient double cosA;
+    /** Sinus des Elementwinkels alpha (von calSg gesetzt) */
+    protected transient double sinA;
+
+    /** Änderungen seit der letzten vollständigen Assemblierung
+      * (Kategorien von ChangeJournal)
+      */
+    protected transient int changes;
+    /** Änderungsjournal des Models, das das Element enthält */
+    protected transient ChangeJournal journal;
+
+    /** Arbeitsfelder von calSg() für die flachen Matrizen Sg, Mg (je Thread) */
+    private static final ThreadLocal<double[][]> work =
+	ThreadLocal.withInitial(() -> new double[2][36]);
+
     /** Erzeugen eines Beamelementes */
     public Beam(Node n1, Node n2, double m)
     {
@@ -126,6 +146,7 @@ public abstract class Beam implements Distance, Serializable
     public void setN1(Node n1)
     {
 	this.n1 = n1;
+	changed(ChangeJournal.TOPOLOGY);
     }
 
     public Node getN2()
@@ -136,11 +157,13 @@ public abstract class Beam implements Distance, Serializable
     public void setN2(Node n2)
     {
 	this.n2 = n2;
+	changed(ChangeJournal.TOPOLOGY);
     }
 
     public void setM(double m)
     {
        this.m = m;
+       changed(ChangeJournal.MASS);
     }
 
     public double getM()
@@ -158,31 +181,157 @@ public abstract class Beam implements Distance, Serializable
 	this.label = label;
     }
 
-    /** Berechnen der globalen Elementsteifigkeitsmatritzen.
+    /** Kategorien der Änderungen seit der letzten vollständigen
+      * Assemblierung (siehe ChangeJournal).
+      */
+    public int getChanges()
+    {
+	return changes;
+    }
+
+    /** Änderung in den Kategorien category vermerken und dem
+      * Model melden.
+      */
+    protected void changed(int category)
+    {
+	changes |= category;
+	if (journal != null)
+	{
+	    journal.record(this, category);
+	}
+    }
+
+    /** Schnittgrößen des aktuellen Zustands als Ergebnis des
+      * Lastfalls loadCase (von loadCases) speichern.
+      */
+    protected void storeCaseResult(int loadCase, int loadCases)
+    {
+	if ( (caseResults == null) || (caseResults.length != loadCases) )
+	{
+	    caseResults = new double[loadCases][];
+	}
+	caseResults[loadCase] = new double[] {Ni, Vi, Mi, Nk, Vk, Mk};
+    }
+
+    public double getNi(int loadCase)
+    {
+	return caseResults[loadCase][0];
+    }
+
+    public double getVi(int loadCase)
+    {
+	return caseResults[loadCase][1];
+    }
+
+    public double getMi(int loadCase)
+    {
+	return caseResults[loadCase][2];
+    }
+
+    public double getNk(int loadCase)
+    {
+	return caseResults[loadCase][3];
+    }
+
+    public double getVk(int loadCase)
+    {
+	return caseResults[loadCase][4];
+    }
+
+    public double getMk(int loadCase)
+    {
+	return caseResults[loadCase][5];
+    }
+
+    /** Berechnen der globalen Elementsteifigkeitsmatritzen Sg, Mg
+      * und des Elementlastvektors Lg in die Felder des Elements.
+      */
+    public void calSg()
+    {
+	double w[][] = work.get();
+	calSg(w[0], w[1], Lg);
+	Sg = matrix6(Sg);
+	Mg = matrix6(Mg);
+	for (int i=0; i<6; i++)
+	{
+	    System.arraycopy(w[0], 6*i, Sg[i], 0, 6);
+	    System.arraycopy(w[1], 6*i, Mg[i], 0, 6);
+	}
+    }
+
+    /** Elementkern: globale Elementsteifigkeitsmatrix sg, konzentrierte
+      * Massenmatrix mg (je 6x6 zeilenweise) und Elementlastvektor lg in
+      * die vom Aufrufer bereitgestellten flachen Felder schreiben, ohne
+      * Speicher anzufordern; mg und lg dürfen null sein.
+      * Sl, a und die Daten für postCalculate werden im Element
+      * aktualisiert (ihre Felder werden nur beim ersten Aufruf angelegt).
+      */
+    public void calSg(double sg[], double mg[], double lg[])
+    {
+	calRotation();
+	calSl(sg);
+	Sl = matrix6(Sl);
+	for (int i=0; i<6; i++)
+	{
+	    System.arraycopy(sg, 6*i, Sl[i], 0, 6);
+	}
+	transform(cosA, sinA, sg, sg);
+	if (mg != null)
+	{
+	    lumpedMass(m, l, mg);
+	}
+	if (lg != null)
+	{
+	    calLg(lg);
+	}
+    }
+
+    /** Aufstellen der lokalen (ggf. kondensierten) Elementsteifigkeits-
+      * matrix in sl (6x6 zeilenweise, alle Einträge sind zu schreiben).
       */
-    abstract public void calSg();
+    abstract protected void calSl(double sl[]);
 
-    /** Berechnen der lokalen konzentrierten Massenmatrix.
-      * Diese Funktion sollten von calSg aufgerufen werden,
-      * bevor transform aufgerufen wird.
-      * Dann berechnet calSg sowol Sg als auch Mg
+    /** Berechnen des globalen Elementlastvektors Lg allein, ohne die
+      * Steifigkeitsmatrizen neu aufzustellen (calSg muss vorher
+      * aufgerufen worden sein). Elemente ohne Elementlasten liefern 0.
       */
-    protected void calMl()
+    public void calLg()
     {
-       Ml = new double[6][6];
+	calLg(Lg);
+    }
 
-       for (int i = 0; i < 6; ++i)
-       {
-	  for (int j = 0; j < 6; ++j)
-	  {
-	     Ml[i][j] = 0.;
-	  }
-       }
+    /** Globalen Elementlastvektor in lg schreiben (siehe calLg()).
+      */
+    public void calLg(double lg[])
+    {
+	for (int n=0; n<6; n++)
+	{
+	    lg[n] = 0.;
+	}
+    }
 
-       Ml[0][0] = .5*m*l;
-       Ml[1][1] = .5*m*l;
-       Ml[3][3] = .5*m*l;
-       Ml[4][4] = .5*m*l;
+    /** Kennwerte, von denen die Elementsteifigkeitsmatrix abhängt.
+      * Teil des Schlüssels, mit dem Substructure Änderungen seit der
+      * letzten Kondensation erkennt (Substructure.currentKey); das
+      * Model verwendet dafür das ChangeJournal.
+      */
+    protected double[] stiffnessKey()
+    {
+	return new double[] {n1.x, n1.z, n2.x, n2.z};
+    }
+
+    /** Globale konzentrierte Massenmatrix der Massenbelegung m und der
+      * Länge l in mg schreiben (6x6 zeilenweise). Die Punktmassen der
+      * Verschiebungen sind in allen Richtungen gleich, die Drehung
+      * ändert sie nicht.
+      */
+    protected static void lumpedMass(double m, double l, double mg[])
+    {
+	for (int i=0; i<36; i++)
+	{
+	    mg[i] = 0.;
+	}
+	mg[0] = mg[7] = mg[21] = mg[28] = .5*m*l;
     }
 
     /** Berechnen von Schnittgrößen und anderen Parametern
@@ -190,6 +339,21 @@ public abstract class Beam implements Distance, Serializable
       */
     abstract public void postCalculate();
 
+    /** Ergebnisse der Rückrechnung am CompiledModel übernehmen:
+      * Stabendschnittgrößen {Ni, Vi, Mi, Nk, Vk, Mk} aus forces und
+      * lokale Stabendverschiebungen aus ends, je ab offset. Die
+      * Knotenverschiebungen müssen bereits eingetragen sein.
+      */
+    protected void setResults(double forces[], double ends[], int offset)
+    {
+	Ni = forces[offset];
+	Vi = forces[offset+1];
+	Mi = forces[offset+2];
+	Nk = forces[offset+3];
+	Vk = forces[offset+4];
+	Mk = forces[offset+5];
+    }
+
     /** Durchbiegung an der Stelle x im
       * verschobenen Starrkörperkoordinatensystem
       */
@@ -222,29 +386,109 @@ public abstract class Beam implements Distance, Serializable
 	      /MVector.abs(b);
     }
 
-    /** Berechnung der Transformationsmatrix a und der globalen
-      * Steifigkeitsmatritzen Sg und Mg aus Sl und Ml.
+    /** Berechnung von cosA, sinA und der Transformationsmatrix a
+      * zwischen lokalen und globalen Koordinaten (a wird nur beim
+      * ersten Aufruf angelegt).
       */
-    protected final void transform()
+    protected final void calRotation()
     {
-	a=new double[6][6];
+	double dx = n2.x-n1.x;
+	double dz = n2.z-n1.z;
+	double len = Math.sqrt(dx*dx+dz*dz);
+	cosA = dx/len;
+	sinA = dz/len;
+
+	a = matrix6(a);
+	a[0][0]=a[1][1]=a[3][3]=a[4][4]=cosA;
+	a[0][1]=a[3][4]=sinA;
+	a[1][0]=a[4][3]=-sinA;
+	a[2][2]=a[5][5]=1.;
+    }
 
-	for (int i=0; i<6; i++)
+    /** Globale Elementsteifigkeitsmatrix sg = a^T sl a (6x6 zeilenweise)
+      * für den Elementwinkel mit Kosinus c und Sinus s (sl und sg dürfen
+      * dasselbe Feld sein).
+      * a ist eine reine Drehung der Verschiebungen je Knoten: statt des
+      * Dreifachprodukts werden nur je zwei Spalten und zwei Zeilen jedes
+      * 3x3-Blocks gedreht.
+      */
+    protected static void transform(double c, double s, double sl[], double sg[])
+    {
+	// Spalten: sl a
+	for (int i=0; i<36; i+=6)
+	{
+	    for (int j=i; j<i+6; j+=3)
+	    {
+		double x = sl[j];
+		double z = sl[j+1];
+		sg[j] = c*x-s*z;
+		sg[j+1] = s*x+c*z;
+		sg[j+2] = sl[j+2];
+	    }
+	}
+
+	// Zeilen: a^T (sl a)
+	for (int i=0; i<6; i+=3)
 	{
 	    for (int j=0; j<6; j++)
 	    {
-		a[i][j]=0.;
+		double x = sg[6*i+j];
+		double z = sg[6*i+6+j];
+		sg[6*i+j] = c*x-s*z;
+		sg[6*i+6+j] = s*x+c*z;
 	    }
 	}
+    }
 
-	double alpha = Math.atan2(n2.z-n1.z, n2.x-n1.x);
-	a[0][0]=a[1][1]=a[3][3]=a[4][4]=Math.cos(alpha);
-	a[0][1]=a[3][4]=Math.sin(alpha);
-	a[1][0]=a[4][3]=-Math.sin(alpha);
-	a[2][2]=a[5][5]=1.;
+    /** Globaler Vektor g = a^T l aus lokalem Vektor l für den
+      * Elementwinkel mit Kosinus c und Sinus s (l und g dürfen dasselbe
+      * Feld sein).
+      */
+    protected static void toGlobal(double c, double s, double l[], double g[])
+    {
+	for (int i=0; i<6; i+=3)
+	{
+	    double x = l[i];
+	    double z = l[i+1];
+	    g[i] = c*x-s*z;
+	    g[i+1] = s*x+c*z;
+	    g[i+2] = l[i+2];
+	}
+    }
 
-	Sg=Matrix.multiply(Matrix.multiply(Matrix.transpose(a), Sl), a);
-	Mg=Matrix.multiply(Matrix.multiply(Matrix.transpose(a), Ml), a);
+    /** Lokaler Vektor l = a g aus globalem Vektor g für den
+      * Elementwinkel mit Kosinus c und Sinus s (g und l dürfen dasselbe
+      * Feld sein).
+      */
+    protected static void toLocal(double c, double s, double g[], double l[])
+    {
+	for (int i=0; i<6; i+=3)
+	{
+	    double x = g[i];
+	    double z = g[i+1];
+	    l[i] = c*x+s*z;
+	    l[i+1] = -s*x+c*z;
+	    l[i+2] = g[i+2];
+	}
+    }
+
+    /** toGlobal mit dem Elementwinkel der letzten calRotation */
+    protected final void toGlobal(double l[], double g[])
+    {
+	toGlobal(cosA, sinA, l, g);
+    }
+
+    /** toLocal mit dem Elementwinkel der letzten calRotation */
+    protected final void toLocal(double g[], double l[])
+    {
+	toLocal(cosA, sinA, g, l);
+    }
+
+    /** 6x6-Matrix A weiterverwenden oder, falls nicht vorhanden, anlegen.
+      */
+    protected static double[][] matrix6(double A[][])
+    {
+	return ( (A != null) && (A.length == 6) ) ? A : new double[6][6];
     }
 }
  
@@ -0,0 +1,196 @@
+package com.schwebke.jbeam.model;
+
+import java.util.*;
+
+/**
+ * Change journal of a model: records which nodes and beams were changed
+ * and in which category since K was last assembled completely.
+ *
+ * The setters of Node and Beam report their changes here (and keep the
+ * categories on the entity, Node.getChanges, Beam.getChanges); adding
+ * and removing nodes, beams and superelements is recorded as TOPOLOGY.
+ * Every change invalidates the results of the model. The calculation
+ * uses the journal to decide what it can keep:
+ *
+ *  - the DOF numbering, unless the topology or the supports changed
+ *    (needsNumbering),
+ *  - the factorization of K, if only loads or masses changed
+ *    (needsFactorization),
+ *  - the element contributions of all beams but the changed ones
+ *    (changedBeams: incremental assembly, low-rank updates).
+ */
+public class ChangeJournal {
+
+    /// Node coordinates
+    public static final int GEOMETRY = 1;
+    /// Section properties and hinges of a beam
+    public static final int STIFFNESS = 2;
+    /// Loads of a node or a beam
+    public static final int LOAD = 4;
+    /// Supports of a node
+    public static final int CONSTRAINT = 8;
+    /// Mass of a beam
+    public static final int MASS = 16;
+    /// Nodes, beams or superelements added or removed, beam nodes replaced
+    public static final int TOPOLOGY = 32;
+
+    /// Categories that change K
+    public static final int STIFFNESS_CHANGES = GEOMETRY | STIFFNESS | CONSTRAINT | TOPOLOGY;
+
+    protected final Model model;
+    /// Categories of all changes since the last complete assembly
+    protected int changes;
+    /// Changed nodes and beams since the last complete assembly, in order of their first change
+    protected final LinkedHashSet<Node> nodes = new LinkedHashSet<Node>();
+    protected final LinkedHashSet<Beam> beams = new LinkedHashSet<Beam>();
+    /// True if the DOFs have to be numbered again
+    protected boolean renumber = true;
+    /// True if K has to be factorized (or updated) again
+    protected boolean refactor = true;
+
+    public ChangeJournal(Model model) {
+        this.model = model;
+    }
+
+    /**
+     * Attach a node of the model: its changes are recorded here. Changes
+     * made before are kept on the node until the next clear().
+     */
+    protected void attach(Node node) {
+        node.journal = this;
+        if (node.changes != 0) {
+            nodes.add(node);
+        }
+    }
+
+    /// Attach a beam of the model (see attach(Node)).
+    protected void attach(Beam beam) {
+        beam.journal = this;
+        if (beam.changes != 0) {
+            beams.add(beam);
+        }
+    }
+
+    /// Detach a node removed from the model.
+    protected void detach(Node node) {
+        if (node.journal == this) {
+            node.journal = null;
+        }
+    }
+
+    /// Detach a beam removed from the model.
+    protected void detach(Beam beam) {
+        if (beam.journal == this) {
+            beam.journal = null;
+        }
+    }
+
+    /// Change of a node in the given categories.
+    protected void record(Node node, int category) {
+        node.changes |= category;
+        nodes.add(node);
+        record(category);
+    }
+
+    /// Change of a beam in the given categories.
+    protected void record(Beam beam, int category) {
+        beam.changes |= category;
+        beams.add(beam);
+        record(category);
+    }
+
+    /// Change of the model itself (e.g. TOPOLOGY).
+    protected void record(int category) {
+        changes |= category;
+        if ((category & (TOPOLOGY | CONSTRAINT)) != 0) {
+            renumber = true;
+        }
+        if ((category & STIFFNESS_CHANGES) != 0) {
+            refactor = true;
+        }
+        model.validCalculation = false;
+    }
+
+    /// Categories of all changes since the last complete assembly.
+    public int getChanges() {
+        return changes;
+    }
+
+    /// Changed nodes since the last complete assembly.
+    public Collection<Node> getChangedNodes() {
+        return Collections.unmodifiableSet(nodes);
+    }
+
+    /// Changed beams since the last complete assembly.
+    public Collection<Beam> getChangedBeams() {
+        return Collections.unmodifiableSet(beams);
+    }
+
+    /// True if the DOFs have to be numbered again (topology or supports changed).
+    public boolean needsNumbering() {
+        return renumber;
+    }
+
+    /// True if the stored factorization does not belong to the current K.
+    public boolean needsFactorization() {
+        return refactor;
+    }
+
+    /// True if topology or supports changed since the last complete assembly.
+    public boolean isStructureChanged() {
+        return (changes & (TOPOLOGY | CONSTRAINT)) != 0;
+    }
+
+    /**
+     * Indices of the beams of beamList whose element stiffness matrix
+     * may have changed since the last complete assembly: beams changed in
+     * STIFFNESS or TOPOLOGY and beams at nodes changed in GEOMETRY.
+     */
+    public int[] changedBeams(List<Beam> beamList) {
+        if ((changes & (GEOMETRY | STIFFNESS | TOPOLOGY)) == 0) {
+            return new int[0];
+        }
+        int changed[] = new int[beamList.size()];
+        int count = 0;
+        for (int b = 0; b < changed.length; b++) {
+            Beam beam = beamList.get(b);
+            if (((beam.changes & (STIFFNESS | TOPOLOGY)) != 0)
+                    || ((beam.n1.changes & GEOMETRY) != 0)
+                    || ((beam.n2.changes & GEOMETRY) != 0)) {
+                changed[count++] = b;
+            }
+        }
+        return Arrays.copyOf(changed, count);
+    }
+
+    /// The DOFs were numbered for the current topology and supports.
+    protected void numbered() {
+        renumber = false;
+    }
+
+    /// The stored factorization (or update) belongs to the current K.
+    protected void factorized() {
+        refactor = false;
+    }
+
+    /// The stored factorization was overwritten or dropped.
+    protected void invalidateFactorization() {
+        refactor = true;
+    }
+
+    /**
+     * K was assembled completely: forget the recorded changes and reset
+     * the categories on the changed nodes and beams.
+     */
+    protected void clear() {
+        for (Node node : nodes) {
+            node.changes = 0;
+        }
+        for (Beam beam : beams) {
+            beam.changes = 0;
+        }
+        nodes.clear();
+        beams.clear();
+        changes = 0;
+    }
+}
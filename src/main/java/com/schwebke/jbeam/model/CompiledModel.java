@@ -0,0 +1,326 @@
+package com.schwebke.jbeam.model;
+
+import java.util.*;
+
+/**
+ * Compiled analysis snapshot of a model: the data of its nodes and beams
+ * that the static and modal analysis need, as flat primitive arrays
+ * (one array per property, indexed by node or beam number).
+ *
+ * Model compiles the snapshot after numbering the DOFs. Assembly, load
+ * vector and recovery run on the snapshot with the static element
+ * kernels of Truss, EBBeam and EBSBeam; the results are mapped back into
+ * the nodes and beams afterwards (Model.postCalculate). The arrays are
+ * never modified after compilation, edits of the model take effect with
+ * the next compilation.
+ *
+ * The loads are not part of the snapshot: they change from load case to
+ * load case and are passed as arrays (Model.nodeLoads, Model.beamLoads).
+ * Superelements are not compiled.
+ */
+public class CompiledModel {
+
+    /// Element type code of Truss
+    public static final byte TRUSS = 0;
+    /// Element type code of EBBeam
+    public static final byte EBBEAM = 1;
+    /// Element type code of EBSBeam
+    public static final byte EBSBEAM = 2;
+
+    /// Constraint bit of the x displacement
+    public static final int CX = 1;
+    /// Constraint bit of the z displacement
+    public static final int CZ = 2;
+    /// Constraint bit of the rotation
+    public static final int CR = 4;
+
+    /// Number of nodes
+    protected final int nodes;
+    /// Number of beams
+    protected final int beams;
+    /// Node coordinates
+    protected final double x[];
+    protected final double z[];
+    /// Constraint bit masks of the nodes (CX, CZ, CR)
+    protected final byte constraints[];
+    /// DOF numbers of the nodes {nX, nZ, nR} (1-based, 0: constrained)
+    protected final int dofs[];
+
+    /// Element type codes of the beams
+    protected final byte types[];
+    /// Node indices of the beams {n1, n2}
+    protected final int ends[];
+    /// Section properties of the beams {EA, EI, GAs, m} (unused ones 0)
+    protected final double sections[];
+    /// Hinge patterns of the beams (see EBBeam.hingeTable)
+    protected final byte hinges[];
+    /// Location vectors of the beams (6 per beam, as Model.locationVector)
+    protected final int locationVectors[];
+
+    /// Scratch buffers of the element kernels; one per thread.
+    public static class Workspace {
+        final double sl[] = new double[36];
+        final double rows[] = new double[36];
+        final double ll[] = new double[6];
+        final double hingeLoads[] = new double[6];
+        final double vl[] = new double[6];
+    }
+
+    /**
+     * Compile nodes and beams; the DOFs have to be numbered
+     * (Model.numberDOFs).
+     */
+    public CompiledModel(List<Node> nodeList, List<Beam> beamList) {
+        nodes = nodeList.size();
+        beams = beamList.size();
+
+        HashMap<Node, Integer> index = new HashMap<Node, Integer>();
+        x = new double[nodes];
+        z = new double[nodes];
+        constraints = new byte[nodes];
+        dofs = new int[3 * nodes];
+        for (int k = 0; k < nodes; k++) {
+            Node node = nodeList.get(k);
+            index.put(node, k);
+            x[k] = node.x;
+            z[k] = node.z;
+            constraints[k] = (byte) ((node.cX ? CX : 0) | (node.cZ ? CZ : 0) | (node.cR ? CR : 0));
+            dofs[3 * k] = node.nX;
+            dofs[3 * k + 1] = node.nZ;
+            dofs[3 * k + 2] = node.nR;
+        }
+
+        types = new byte[beams];
+        ends = new int[2 * beams];
+        sections = new double[4 * beams];
+        hinges = new byte[beams];
+        locationVectors = new int[6 * beams];
+        for (int e = 0; e < beams; e++) {
+            Beam beam = beamList.get(e);
+            if (beam instanceof EBSBeam) {
+                types[e] = EBSBEAM;
+                sections[4 * e + 2] = ((EBSBeam) beam).GAs;
+            } else if (beam instanceof EBBeam) {
+                types[e] = EBBEAM;
+            } else if (beam instanceof Truss) {
+                types[e] = TRUSS;
+                sections[4 * e] = ((Truss) beam).EA;
+            } else {
+                throw new ModelException("unsupported element type " + beam.getClass().getName());
+            }
+            if (beam instanceof EBBeam) {
+                EBBeam b = (EBBeam) beam;
+                sections[4 * e] = b.EA;
+                sections[4 * e + 1] = b.EI;
+                hinges[e] = (byte) b.hingeMask();
+            }
+            sections[4 * e + 3] = beam.m;
+
+            Integer i = index.get(beam.n1);
+            Integer j = index.get(beam.n2);
+            if ((i == null) || (j == null)) {
+                throw new ModelException("beam node is not a node of the model");
+            }
+            ends[2 * e] = i;
+            ends[2 * e + 1] = j;
+            System.arraycopy(dofs, 3 * i, locationVectors, 6 * e, 3);
+            System.arraycopy(dofs, 3 * j, locationVectors, 6 * e + 3, 3);
+        }
+    }
+
+    public int getNodeCount() {
+        return nodes;
+    }
+
+    public int getBeamCount() {
+        return beams;
+    }
+
+    /// Location vector of beam e written into locationVector (6 entries).
+    public int[] locationVector(int e, int locationVector[]) {
+        System.arraycopy(locationVectors, 6 * e, locationVector, 0, 6);
+        return locationVector;
+    }
+
+    /// Length of beam e.
+    public double length(int e) {
+        double dx = x[ends[2 * e + 1]] - x[ends[2 * e]];
+        double dz = z[ends[2 * e + 1]] - z[ends[2 * e]];
+        return Math.sqrt(dx * dx + dz * dz);
+    }
+
+    /**
+     * Element kernel: global stiffness matrix sg and lumped mass matrix
+     * mg (flat 6x6, mg may be null) of beam e. Throws
+     * IllegalArgumentException for kinematic hinge patterns.
+     */
+    public void stiffness(int e, double sg[], double mg[], Workspace w) {
+        double l = length(e);
+        localStiffness(e, l, sg, w);
+        Beam.transform(cos(e, l), sin(e, l), sg, sg);
+        if (mg != null) {
+            Beam.lumpedMass(sections[4 * e + 3], l, mg);
+        }
+    }
+
+    /**
+     * Global element load vector lg of beam e from its distributed loads
+     * q[4e .. 4e+3] = {vi, vk, ni, nk}.
+     */
+    public void loads(int e, double q[], double lg[], Workspace w) {
+        if (types[e] == TRUSS) {
+            Arrays.fill(lg, 0, 6, 0.);
+            return;
+        }
+        double l = length(e);
+        if (hinges[e] != 0) {
+            localStiffness(e, l, w.sl, w);
+        }
+        localLoads(e, l, q, lg, w);
+        Beam.toGlobal(cos(e, l), sin(e, l), lg, lg);
+    }
+
+    /**
+     * Recovery of beam e from the node displacements d (3 per node):
+     * stress resultants {Ni, Vi, Mi, Nk, Vk, Mk} into forces and the
+     * local displacements of the element ends (differing from the node
+     * displacements at hinges) into endDisplacements, both at 6e; q as
+     * in loads.
+     */
+    public void recover(int e, double d[], double q[], double forces[], double endDisplacements[], Workspace w) {
+        double l = length(e);
+        double c = cos(e, l);
+        double s = sin(e, l);
+        double sl[] = w.sl;
+        double ll[] = w.ll;
+        double vl[] = w.vl;
+        localStiffness(e, l, sl, w);
+        if (types[e] == TRUSS) {
+            Arrays.fill(ll, 0.);
+        } else {
+            localLoads(e, l, q, ll, w);
+        }
+
+        // lokale Knotenverschiebungen, wahre Stabendverschiebungen bei Gelenken
+        System.arraycopy(d, 3 * ends[2 * e], vl, 0, 3);
+        System.arraycopy(d, 3 * ends[2 * e + 1], vl, 3, 3);
+        Beam.toLocal(c, s, vl, vl);
+        if (hinges[e] != 0) {
+            EBBeam.recoverEnds(hinges[e], w.rows, w.hingeLoads, vl);
+        }
+        System.arraycopy(vl, 0, endDisplacements, 6 * e, 6);
+
+        // Stabendschnittgrößen aus den Stabendverschiebungen
+        int o = 6 * e;
+        for (int i = 0; i < 6; i++) {
+            double r = ll[i];
+            for (int j = 0; j < 6; j++) {
+                r += sl[6 * i + j] * vl[j];
+            }
+            forces[o + i] = (i < 3) ? -r : r;
+        }
+        if (types[e] == TRUSS) {
+            forces[o + 2] = -forces[o + 2];
+        }
+    }
+
+    /**
+     * Node displacements (3 per node) of the DOF solution u; 0 for the
+     * constrained DOFs.
+     */
+    public void displacements(double u[], double d[]) {
+        for (int i = 0; i < 3 * nodes; i++) {
+            d[i] = (dofs[i] != 0) ? u[dofs[i] - 1] : 0.;
+        }
+    }
+
+    /**
+     * Support reactions (3 per node, 0 for free DOFs) of the beams from
+     * their stress resultants (recover).
+     */
+    public void reactions(double forces[], double reactions[]) {
+        Arrays.fill(reactions, 0, 3 * nodes, 0.);
+        double f[] = new double[6];
+        for (int e = 0; e < beams; e++) {
+            int o = 6 * e;
+            f[0] = -forces[o];
+            f[1] = -forces[o + 1];
+            f[2] = -forces[o + 2];
+            f[3] = forces[o + 3];
+            f[4] = forces[o + 4];
+            f[5] = forces[o + 5];
+            double l = length(e);
+            Beam.toGlobal(cos(e, l), sin(e, l), f, f);
+            for (int n = 0; n < 2; n++) {
+                int k = ends[2 * e + n];
+                for (int i = 0; i < 3; i++) {
+                    if ((constraints[k] & (1 << i)) != 0) {
+                        reactions[3 * k + i] += f[3 * n + i];
+                    }
+                }
+            }
+        }
+    }
+
+    /// Diagonal of the lumped mass matrix (r DOFs).
+    public void massDiagonal(double diagonal[]) {
+        for (int e = 0; e < beams; e++) {
+            double mass = .5 * sections[4 * e + 3] * length(e);
+            for (int i = 0; i < 6; i++) {
+                int dof = locationVectors[6 * e + i];
+                if ((dof != 0) && (i % 3 != 2)) {
+                    diagonal[dof - 1] += mass;
+                }
+            }
+        }
+    }
+
+    /**
+     * Local (condensed) stiffness matrix of beam e into sl; the rows of
+     * the hinge condensation go to w.rows.
+     */
+    protected void localStiffness(int e, double l, double sl[], Workspace w) {
+        double EA = sections[4 * e];
+        double EI = sections[4 * e + 1];
+        switch (types[e]) {
+            case TRUSS:
+                Truss.stiffness(EA, l, sl);
+                return;
+            case EBBEAM:
+                EBBeam.stiffness(EA, EI, l, sl);
+                break;
+            default:
+                EBSBeam.shearStiffness(EA, EI, EBSBeam.psi(EI, sections[4 * e + 2], l), l, sl);
+                break;
+        }
+        if (hinges[e] != 0) {
+            EBBeam.condense(hinges[e], sl, w.rows);
+        }
+    }
+
+    /**
+     * Local (condensed) load vector of beam e into ll; the loads of the
+     * released DOFs go to w.hingeLoads. Needs w.rows of localStiffness
+     * for hinged beams.
+     */
+    protected void localLoads(int e, double l, double q[], double ll[], Workspace w) {
+        int o = 4 * e;
+        if (types[e] == EBSBEAM) {
+            double psi = EBSBeam.psi(sections[o + 1], sections[o + 2], l);
+            EBSBeam.shearLoads(l, psi, q[o], q[o + 1], q[o + 2], q[o + 3], ll);
+        } else {
+            EBBeam.loads(l, q[o], q[o + 1], q[o + 2], q[o + 3], ll);
+        }
+        if (hinges[e] != 0) {
+            EBBeam.condenseLoads(hinges[e], w.rows, ll, w.hingeLoads);
+        }
+    }
+
+    private double cos(int e, double l) {
+        return (x[ends[2 * e + 1]] - x[ends[2 * e]]) / l;
+    }
+
+    private double sin(int e, double l) {
+        return (z[ends[2 * e + 1]] - z[ends[2 * e]]) / l;
+    }
+}
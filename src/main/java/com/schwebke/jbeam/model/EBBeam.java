@@ -34,14 +34,39 @@ public class EBBeam extends Beam
     public static final int hVk = 4;
     public static final int hMk = 5;
 
-    /** Hilfsmatrix für statische Kondensation bei Elementgelenken. */
-    protected double invKaa[][];
-    /** Hilfsmatrix für statische Kondensation bei Elementgelenken. */
-    protected double Kab[][];
-    /** Hilfsmatrix für statische Kondensation bei Elementgelenken. */
-    protected double Kba[][];
-    /** Hilfsmatrix für statische Kondensation bei Elementgelenken. */
-    protected double Pa[][];
+    /** Gelenkmuster (Bitmaske 1<<hNi .. 1<<hMk) -> gelöste
+      * Freiheitsgrade in der Reihenfolge der Kondensation.
+      */
+    protected static final int hingeTable[][] = new int[64][];
+    static
+    {
+	for (int pattern=0; pattern<64; pattern++)
+	{
+	    hingeTable[pattern] = new int[Integer.bitCount(pattern)];
+	    int k = 0;
+	    for (int n=0; n<6; n++)
+	    {
+		if ((pattern & (1 << n)) != 0)
+		{
+		    hingeTable[pattern][k++] = n;
+		}
+	    }
+	}
+    }
+
+    /** Gelenkmuster der letzten Kondensation (siehe hingeTable) */
+    protected transient int hingePattern;
+    /** Zeilen der gelösten Freiheitsgrade bei ihrer Kondensation
+      * (6x6 zeilenweise, für die Rückrechnung der Gelenkverschiebungen)
+      */
+    protected transient double hingeRows[];
+    /** Lasten der gelösten Freiheitsgrade bei ihrer Kondensation */
+    protected transient double hingeLoads[];
+
+    /** Verteilte Belastung je Lastfall {vi, vk, ni, nk}
+      * (nach Model.calculateLoadCases)
+      */
+    protected transient double caseLoads[][];
 
     /** Schnittgrößen an den Enden */
     protected double Ll[][];
@@ -76,8 +101,6 @@ public class EBBeam extends Beam
 	{
 	    hinged[i] = false;
 	}
-	invKaa = null;
-	Kab = Kba = Pa = null;
 	v = null;
 	Ll = null;
     }
@@ -270,6 +293,46 @@ public class EBBeam extends Beam
 	return f*Nk+(1.-f)*Ni;
     }
 
+    /**
+      * Momentenverlauf im Lastfall loadCase
+      */
+    public double M(int loadCase, double f)
+    {
+	double x = f*l;
+	double vi = caseLoads[loadCase][0];
+	double vk = caseLoads[loadCase][1];
+	return getMi(loadCase) + getVi(loadCase)*x - vi*x*x*0.5 - ((vk-vi)/l)*((x*x*x)/6.);
+    }
+
+    /**
+      * Querkraftverlauf im Lastfall loadCase
+      */
+    public double V(int loadCase, double f)
+    {
+	double x = f*l;
+	double vi = caseLoads[loadCase][0];
+	double vk = caseLoads[loadCase][1];
+	return getVi(loadCase) - vi*x - ((vk-vi)/l)*((x*x)/2.);
+    }
+
+    /**
+      * Normalkraftverlauf im Lastfall loadCase
+      */
+    public double N(int loadCase, double f)
+    {
+	return f*getNk(loadCase)+(1.-f)*getNi(loadCase);
+    }
+
+    protected void storeCaseResult(int loadCase, int loadCases)
+    {
+	super.storeCaseResult(loadCase, loadCases);
+	if ( (caseLoads == null) || (caseLoads.length != loadCases) )
+	{
+	    caseLoads = new double[loadCases][];
+	}
+	caseLoads[loadCase] = new double[] {vi, vk, ni, nk};
+    }
+
     public double getV(int n)
     {
 	return v[n];
@@ -283,6 +346,7 @@ public class EBBeam extends Beam
     public void setEI(double EI)
     {
 	this.EI = EI;
+	changed(ChangeJournal.STIFFNESS);
     }
 
     public double getEA()
@@ -293,6 +357,7 @@ public class EBBeam extends Beam
     public void setEA(double EA)
     {
 	this.EA = EA;
+	changed(ChangeJournal.STIFFNESS);
     }
 
     public double getVi()
@@ -303,6 +368,7 @@ public class EBBeam extends Beam
     public void setVi(double vi)
     {
 	this.vi = vi;
+	changed(ChangeJournal.LOAD);
     }
 
     public double getVk()
@@ -313,6 +379,7 @@ public class EBBeam extends Beam
     public void setVk(double vk)
     {
 	this.vk = vk;
+	changed(ChangeJournal.LOAD);
     }
 
     public double getNi()
@@ -323,6 +390,7 @@ public class EBBeam extends Beam
     public void setNi(double ni)
     {
 	this.ni = ni;
+	changed(ChangeJournal.LOAD);
     }
 
     public double getNk()
@@ -333,6 +401,7 @@ public class EBBeam extends Beam
     public void setNk(double nk)
     {
 	this.nk = nk;
+	changed(ChangeJournal.LOAD);
     }
 
     public boolean getHinge(int dof)
@@ -343,212 +412,228 @@ public class EBBeam extends Beam
     public void setHinge(int dof, boolean isHinge)
     {
 	hinged[dof] = isHinge;
+	changed(ChangeJournal.STIFFNESS);
+    }
+
+    protected double[] stiffnessKey()
+    {
+	double base[] = super.stiffnessKey();
+	double key[] = Arrays.copyOf(base, base.length+8);
+	key[base.length] = EI;
+	key[base.length+1] = EA;
+	for (int i=0; i<6; i++)
+	{
+	    key[base.length+2+i] = hinged[i] ? 1. : 0.;
+	}
+	return key;
     }
 
     /**
-      * Berechung der globalen Elementsteifigkeitsmatrix.
+      * Berechung der lokalen Elementsteifigkeitsmatrix mit ausgelösten
+      * Gelenken.
       */
-    public void calSg()
+    protected void calSl(double sl[])
     {
-	Sl=new double[6][6];
-	for (int i=0; i<6; i++)
+	localStiffness(sl);
+	hingePattern = hingeMask();
+	if (hingePattern != 0)
 	{
-	    for (int j=0; j<6; j++)
+	    if (hingeRows == null)
 	    {
-		Sl[i][j]=0.;
+		hingeRows = new double[36];
+		hingeLoads = new double[6];
 	    }
+	    condense(hingePattern, sl, hingeRows);
 	}
+    }
+
+    /**
+      * Lokale Elementsteifigkeitsmatrix ohne Gelenke in sl.
+      */
+    protected void localStiffness(double sl[])
+    {
+	stiffness(EA, EI, l, sl);
+    }
 
-	// lokale Steifigkeitsmatrix des allgemeinen Euler-Bernoulli-Balken-Elementes
-	Sl[0][0] = EA/l;
-	Sl[0][3] = Sl[3][0] = -EA/l;
-	Sl[1][1] = 12.*EI/(l*l*l);
-	Sl[1][2] = Sl[2][1] = -6.*EI/(l*l);
-	Sl[1][4] = Sl[4][1] = -12.*EI/(l*l*l);
-	Sl[1][5] = Sl[5][1] = -6.*EI/(l*l);
-	Sl[2][2] = 4.*EI/l;
-	Sl[2][4] = Sl[4][2] = 6.*EI/(l*l);
-	Sl[2][5] = Sl[5][2] = 2.*EI/l;
-	Sl[3][3] = EA/l;
-	Sl[4][4] = 12.*EI/(l*l*l);
-	Sl[4][5] = Sl[5][4] = 6.*EI/(l*l);
-	Sl[5][5] = 4.*EI/l;
-
-	// Zählen der Element-Gelenke
-	int hN = 0;
+    /**
+      * Gelenkmuster der Gelenkbedingungen (Bitmaske 1<<hNi .. 1<<hMk,
+      * siehe hingeTable).
+      */
+    protected int hingeMask()
+    {
+	int pattern = 0;
 	for (int n=0; n<6; n++)
 	{
 	    if (hinged[n])
 	    {
-		hN++;
+		pattern |= 1 << n;
 	    }
 	}
+	return pattern;
+    }
 
-	// Auslösen der Gelenke durch statische Kondensation
-	if (hN > 0)
+    /**
+      * Lokale Steifigkeitsmatrix des allgemeinen Euler-Bernoulli-Balken-
+      * Elementes (EA, EI, Länge l) in sl (6x6 zeilenweise).
+      */
+    protected static void stiffness(double EA, double EI, double l, double sl[])
+    {
+	for (int i=0; i<36; i++)
 	{
-	    double Kaa[][] = new double[hN][hN];
-	    Kab = new double[hN][6-hN];
-	    Kba = new double[6-hN][hN];
-	    double Kbb[][] = new double[6-hN][6-hN];
-
-	    int aai = 0;
-	    int aaj = 0;
-	    int bbi = 0;
-	    int bbj = 0;
-	    int abi = 0;
-	    int abj = 0;
-	    int bai = 0;
-	    int baj = 0;
-	    
-
-	    for (int i=0; i<6; i++)
-	    {
-		for (int j=0; j<6; j++)
-		{
-		    if (hinged[i])
-		    {
-			if (hinged[j])
-			{
-			    Kaa[aai][aaj++] = Sl[i][j];
-			} else {
-			    Kab[abi][abj++] = Sl[i][j];
-			}
-		    } else {
-			if (hinged[j])
-			{
-			    Kba[bai][baj++] = Sl[i][j];
-			} else {
-			    Kbb[bbi][bbj++] = Sl[i][j];
-			}
-		    }
-		}
-		aaj = 0;
-		bbj = 0;
-		baj = 0;
-		abj = 0;
-		if (hinged[i])
-		{
-		    aai++;
-		    abi++;
-		} else {
-		    bbi++;
-		    bai++;
-		}
-	    }
+	    sl[i]=0.;
+	}
 
+	sl[0] = EA/l;
+	sl[3] = sl[18] = -EA/l;
+	sl[7] = 12.*EI/(l*l*l);
+	sl[8] = sl[13] = -6.*EI/(l*l);
+	sl[10] = sl[25] = -12.*EI/(l*l*l);
+	sl[11] = sl[31] = -6.*EI/(l*l);
+	sl[14] = 4.*EI/l;
+	sl[16] = sl[26] = 6.*EI/(l*l);
+	sl[17] = sl[32] = 2.*EI/l;
+	sl[21] = EA/l;
+	sl[28] = 12.*EI/(l*l*l);
+	sl[29] = sl[34] = 6.*EI/(l*l);
+	sl[35] = 4.*EI/l;
+    }
 
-	    double Kred[][] = 
-		Matrix.sub(
-		    Kbb, 
-		    Matrix.multiply(
-			Kba,
-			Matrix.multiply(
-			    invKaa = Matrix.invert(Kaa),
-			    Kab
-			)
-		    )
-		);
+    /**
+      * Auslösen der Gelenke durch statische Kondensation von sl an Ort
+      * und Stelle: die gelösten Freiheitsgrade des Gelenkmusters werden
+      * nacheinander eliminiert, ihre Zeilen bleiben in rows (6x6
+      * zeilenweise) für condenseLoads und recoverEnds.
+      */
+    protected static void condense(int pattern, double sl[], double rows[])
+    {
+	int dofs[] = hingeTable[pattern];
 
+	// ursprüngliche Diagonale als Maßstab für singuläre Gelenkkombinationen
+	for (int k : dofs)
+	{
+	    rows[7*k] = sl[7*k];
+	}
 
-	    bbi = 0;
-	    bbj = 0;
+	for (int k : dofs)
+	{
+	    double pivot = sl[7*k];
+	    if (!(pivot > Solver.eps*rows[7*k]))
+	    {
+		throw new IllegalArgumentException("singular matrix");
+	    }
 	    for (int i=0; i<6; i++)
 	    {
+		double f = sl[6*i+k]/pivot;
+		if ( (i == k) || (f == 0.) )
+		{
+		    continue;
+		}
 		for (int j=0; j<6; j++)
 		{
-		    if (hinged[i])
+		    if (j != k)
 		    {
-			Sl[i][j] = 0.;
-		    } else {
-			if (hinged[j])
-			{
-			    Sl[i][j] = 0.;
-			} else {
-			    Sl[i][j] = Kred[bbi][bbj++];
-			}
+			sl[6*i+j] -= f*sl[6*k+j];
 		    }
 		}
-		bbj = 0;
-		if (!hinged[i])
-		{
-		    bbi++;
-		}
 	    }
+	    System.arraycopy(sl, 6*k, rows, 6*k, 6);
+	    for (int j=0; j<6; j++)
+	    {
+		sl[6*k+j] = sl[6*j+k] = 0.;
+	    }
+	}
+    }
 
+    /**
+      * Berechnung des globalen Elementlastvektors aus den verteilten
+      * Lasten. Nutzt die von calSg berechneten Matrizen und kann bei
+      * unveränderter Steifigkeit allein aufgerufen werden.
+      */
+    public void calLg(double lg[])
+    {
+	if (Ll == null)
+	{
+	    Ll = new double [6][1];
 	}
+	localLoads(lg);
+	condenseLoads(hingePattern, hingeRows, lg, hingeLoads);
+	for (int n=0; n<6; n++)
+	{
+	    Ll[n][0] = lg[n];
+	}
+	toGlobal(lg, lg);
+    }
 
-	calMl();
-	transform();
+    /**
+      * Lokaler Elementlastvektor (ohne Gelenke) aus den verteilten
+      * Lasten in ll.
+      */
+    protected void localLoads(double ll[])
+    {
+	loads(l, vi, vk, ni, nk, ll);
+    }
 
-	// load vector
-	Ll = new double [6][1];
+    /**
+      * Lokaler Elementlastvektor (ohne Gelenke) der verteilten Lasten
+      * vi, vk, ni, nk auf einem Element der Länge l in ll.
+      */
+    protected static void loads(double l, double vi, double vk, double ni, double nk, double ll[])
+    {
 	//   Ni, Nk
-	Ll[0][0] = -(2*ni+nk)*l/6.;
-	Ll[3][0] = -(ni+2.*nk)*l/6.;
+	ll[0] = -(2*ni+nk)*l/6.;
+	ll[3] = -(ni+2.*nk)*l/6.;
 
 	// Vi, Vk
-	Ll[1][0] = -(l/60.)*(21.*vi+9.*vk);
-	Ll[4][0] = -(l/60.)*(9.*vi+21.*vk);
+	ll[1] = -(l/60.)*(21.*vi+9.*vk);
+	ll[4] = -(l/60.)*(9.*vi+21.*vk);
 
 	// Mi, Mk
-	Ll[2][0] = ((l*l)/60.)*(3.*vi+2.*vk);
-	Ll[5][0] = -((l*l)/60.)*(2.*vi+3.*vk);
-
-	/*
-	System.out.println("EBBeam Ll:");
-	Matrix.dump(Ll);
-	*/
+	ll[2] = ((l*l)/60.)*(3.*vi+2.*vk);
+	ll[5] = -((l*l)/60.)*(2.*vi+3.*vk);
+    }
 
-	if (hN > 0)
+    /**
+      * Kondensation der gelösten Freiheitsgrade im lokalen Lastvektor ll
+      * wie in condense (rows von condense); die Lasten der gelösten
+      * Freiheitsgrade bleiben in hingeLoads für recoverEnds.
+      */
+    protected static void condenseLoads(int pattern, double rows[], double ll[], double hingeLoads[])
+    {
+	for (int k : hingeTable[pattern])
 	{
-	    Pa = new double[hN][1];
-	    double Pb[][] = new double[6-hN][1];
-	    int a = 0;
-	    int b = 0;
-
-	    for (int n=0; n<6; n++)
+	    double pk = ll[k];
+	    hingeLoads[k] = pk;
+	    for (int i=0; i<6; i++)
 	    {
-		if (hinged[n])
+		if (i != k)
 		{
-		    Pa[a][0] = Ll[n][0];
-		    a++;
-		} else {
-		    Pb[b][0] = Ll[n][0];
-		    b++;
+		    ll[i] -= rows[6*k+i]/rows[7*k]*pk;
 		}
 	    }
+	    ll[k] = 0.;
+	}
+    }
 
-	    double Pred[][] = 
-		Matrix.sub(
-		    Pb,
-		    Matrix.multiply(
-			Matrix.multiply(
-			    Kba,
-			    invKaa
-			),
-			Pa
-		    )
-		);
-
-	    b = 0;
-	    for (int n=0; n<6; n++)
+    /**
+      * Rückrechnen der wahren lokalen Stabendverschiebungen vl der
+      * gelösten Freiheitsgrade in umgekehrter Reihenfolge der
+      * Kondensation (rows, hingeLoads von condense und condenseLoads).
+      */
+    protected static void recoverEnds(int pattern, double rows[], double hingeLoads[], double vl[])
+    {
+	int dofs[] = hingeTable[pattern];
+	for (int q=dofs.length-1; q>=0; q--)
+	{
+	    int k = dofs[q];
+	    double s = -hingeLoads[k];
+	    for (int j=0; j<6; j++)
 	    {
-		if (!hinged[n])
+		if (j != k)
 		{
-		    Ll[n][0] = Pred[b][0];
-		    b++;
-		} else {
-		    Ll[n][0] = 0.;
+		    s -= rows[6*k+j]*vl[j];
 		}
 	    }
-	}
-
-	double L[][] = Matrix.multiply(Matrix.transpose(a), Ll);
-
-	for (int n=0; n<6; n++)
-	{
-	    Lg[n] = L[n][0];
+	    vl[k] = s/rows[7*k];
 	}
     }
 
@@ -559,16 +644,6 @@ public class EBBeam extends Beam
     public void postCalculate()
     {
 
-	// Zählen der Element-Gelenke
-	int hN = 0;
-	for (int n=0; n<6; n++)
-	{
-	    if (hinged[n])
-	    {
-		hN++;
-	    }
-	}
-
 	// Knotenverschiebungen einlesen
 	v = new double [6];
 	this.vl = new double [6];
@@ -581,95 +656,27 @@ public class EBBeam extends Beam
 	v[5] = n2.getDR();
 
 	// lokale Knotenverschiebungen
-	double vg[][] = new double [6][1];
-	for (int n=0; n<6; n++)
-	{
-	   vg[n][0] = v[n];
-	}
-	double vl[][] = Matrix.multiply(a, vg);
-	for (int n=0; n<6; n++)
-	{
-	   this.vl[n] = vl[n][0];
-	   vkl[n] = vl[n][0];
-	}
-
+	toLocal(v, vl);
+	System.arraycopy(vl, 0, vkl, 0, 6);
 
 	// tatsächliche Stabendverschiebungen bei Gelenken
-	if (hN > 0)
+	if (hingePattern != 0)
 	{
-	    double rb[][] = new double [6-hN][1];
-	    double ra[][];
-
-	    // Rückrechnen der wahren Element-End-Verschiebungen für ausgelöste Größen
-	    int b=0;
-	    for (int n=0; n<6; n++)
-	    {
-		if (!hinged[n])
-		{
-		    rb[b][0] = vl[n][0];
-		    b++;
-		}
-	    }
-
-	    ra = 
-		Matrix.multiply(
-		    invKaa,
-		    Matrix.sub(
-			Matrix.neg(Pa),
-			Matrix.multiply(
-			    Kab,
-			    rb
-			)
-		    )
-		);
-
-	    // Zuordnen der wahren Verschiebungsgrößen
-	    b = 0;
-	    for (int n=0; n<6; n++)
-	    {
-		if (hinged[n])
-		{
-		    vl[n][0] = ra[b][0];
-		    b++;
-		}
-	    }
+	    recoverEnds(hingePattern, hingeRows, hingeLoads, vl);
 
 	    // Zurückschreiben der wahren V-Größen im globalen KOS
-	    vg = Matrix.multiply(Matrix.transpose(a), vl);
-
-	    for (int n=0; n<6; n++)
-	    {
-	       v[n] = vg[n][0];
-	       this.vl[n] = vl[n][0];
-	    }
+	    toGlobal(vl, v);
 	}
 
 	// Rückrechnung der Stabendschnittgrößen aus den Stabendverschiebungen
-	double V[][] = new double [6][1];
-	for (int n=0; n<6; n++)
-	{
-	    V[n][0] = v[n];
-	}
-
-	/*
-	double Rl[][] =
-	    Matrix.multiply(
-		Matrix.multiply(
-		    Sl,
-		    a
-		),
-		V
-	    );
-	    */
-	double Rl[][] =
-	    Matrix.multiply(
-	        Sl,
-		vl
-	    );
-
-	for (int n=0; n<6; n++)
+	double Rl[][] = new double [6][1];
+	for (int i=0; i<6; i++)
 	{
-	    Rl[n][0]+=Ll[n][0];
+	    Rl[i][0] = Ll[i][0];
+	    for (int j=0; j<6; j++)
+	    {
+		Rl[i][0] += Sl[i][j]*vl[j];
+	    }
 	}
 
 	Ni = -Rl[hNi][0];
@@ -680,5 +687,29 @@ public class EBBeam extends Beam
 	Mk = Rl[hMk][0];
 
     }
-}
 
+    /**
+      * Ergebnisse der Rückrechnung am CompiledModel übernehmen (siehe
+      * Beam.setResults) und die Verschiebungen an den Enden setzen.
+      */
+    protected void setResults(double forces[], double ends[], int offset)
+    {
+	super.setResults(forces, ends, offset);
+	calRotation();
+	v = new double [6];
+	vl = new double [6];
+	vkl = new double [6];
+	v[0] = n1.dX;
+	v[1] = n1.dZ;
+	v[2] = n1.dR;
+	v[3] = n2.dX;
+	v[4] = n2.dZ;
+	v[5] = n2.dR;
+	toLocal(v, vkl);
+	System.arraycopy(ends, offset, vl, 0, 6);
+	if (hingeMask() != 0)
+	{
+	    toGlobal(vl, v);
+	}
+    }
+}
@@ -175,6 +175,7 @@ public class EBSBeam extends EBBeam
     {
 	this.GAs = GAs;
 	updatePsi();
+	changed(ChangeJournal.STIFFNESS);
     }
 
 
@@ -190,242 +191,89 @@ public class EBSBeam extends EBBeam
        updatePsi();
     }
 
+    protected double[] stiffnessKey()
+    {
+	double base[] = super.stiffnessKey();
+	double key[] = Arrays.copyOf(base, base.length+1);
+	key[base.length] = GAs;
+	return key;
+    }
+
     protected void updatePsi()
     {
-	psi = 1. / ( 1.+12.* ((EI)/(l*l*GAs)) );
+	psi = psi(EI, GAs, l);
     }
 
     /**
-      * Berechung der globalen Elementsteifigkeitsmatrix.
+      * Lokale Elementsteifigkeitsmatrix ohne Gelenke in sl.
       */
-    public void calSg()
+    protected void localStiffness(double sl[])
     {
 	updatePsi();
-	Sl=new double[6][6];
-	for (int i=0; i<6; i++)
-	{
-	    for (int j=0; j<6; j++)
-	    {
-		Sl[i][j]=0.;
-	    }
-	}
-
-	// lokale Steifigkeitsmatrix des allgemeinen Euler-Bernoulli-Shear-Balken-Elementes
-	Sl[0][0] = EA/l;
-	Sl[0][3] = Sl[3][0] = -EA/l;
-	Sl[1][1] = 12.*psi*EI/(l*l*l);
-	Sl[1][2] = Sl[2][1] = -6.*psi*EI/(l*l);
-	Sl[1][4] = Sl[4][1] = -12.*psi*EI/(l*l*l);
-	Sl[1][5] = Sl[5][1] = -6.*psi*EI/(l*l);
-	Sl[2][2] = (1.+3.*psi)*EI/l;
-	Sl[2][4] = Sl[4][2] = 6.*psi*EI/(l*l);
-	Sl[2][5] = Sl[5][2] = (-1.+3.*psi)*EI/l;
-	Sl[3][3] = EA/l;
-	Sl[4][4] = 12.*psi*EI/(l*l*l);
-	Sl[4][5] = Sl[5][4] = 6.*psi*EI/(l*l);
-	Sl[5][5] = (1.+3.*psi)*EI/l;
-
-	// Zählen der Element-Gelenke
-	int hN = 0;
-	for (int n=0; n<6; n++)
-	{
-	    if (hinged[n])
-	    {
-		hN++;
-	    }
-	}
-
-	// Auslösen der Gelenke durch statische Kondensation
-	if (hN > 0)
-	{
-	    double Kaa[][] = new double[hN][hN];
-	    Kab = new double[hN][6-hN];
-	    Kba = new double[6-hN][hN];
-	    double Kbb[][] = new double[6-hN][6-hN];
-
-	    int aai = 0;
-	    int aaj = 0;
-	    int bbi = 0;
-	    int bbj = 0;
-	    int abi = 0;
-	    int abj = 0;
-	    int bai = 0;
-	    int baj = 0;
-	    
-
-	    for (int i=0; i<6; i++)
-	    {
-		for (int j=0; j<6; j++)
-		{
-		    if (hinged[i])
-		    {
-			if (hinged[j])
-			{
-			    Kaa[aai][aaj++] = Sl[i][j];
-			} else {
-			    Kab[abi][abj++] = Sl[i][j];
-			}
-		    } else {
-			if (hinged[j])
-			{
-			    Kba[bai][baj++] = Sl[i][j];
-			} else {
-			    Kbb[bbi][bbj++] = Sl[i][j];
-			}
-		    }
-		}
-		aaj = 0;
-		bbj = 0;
-		baj = 0;
-		abj = 0;
-		if (hinged[i])
-		{
-		    aai++;
-		    abi++;
-		} else {
-		    bbi++;
-		    bai++;
-		}
-	    }
-
-
-	    double Kred[][] = 
-		Matrix.sub(
-		    Kbb, 
-		    Matrix.multiply(
-			Kba,
-			Matrix.multiply(
-			    invKaa = Matrix.invert(Kaa),
-			    Kab
-			)
-		    )
-		);
-
-
-	    bbi = 0;
-	    bbj = 0;
-	    for (int i=0; i<6; i++)
-	    {
-		for (int j=0; j<6; j++)
-		{
-		    if (hinged[i])
-		    {
-			Sl[i][j] = 0.;
-		    } else {
-			if (hinged[j])
-			{
-			    Sl[i][j] = 0.;
-			} else {
-			    Sl[i][j] = Kred[bbi][bbj++];
-			}
-		    }
-		}
-		bbj = 0;
-		if (!hinged[i])
-		{
-		    bbi++;
-		}
-	    }
-
-	}
-
-	calMl();
-	transform();
-
-	// load vector
-	Ll = new double [6][1];
-	//   Ni, Nk
-	Ll[0][0] = -(2*ni+nk)*l/6.;
-	Ll[3][0] = -(ni+2.*nk)*l/6.;
-
-	/*
-	// Vi, Vk
-	Ll[1][0] = -(l/60.)*(21.*vi+9.*vk);
-	Ll[4][0] = -(l/60.)*(9.*vi+21.*vk);
-
-	// Mi, Mk
-	Ll[2][0] = ((l*l)/60.)*(3.*vi+2.*vk);
-	Ll[5][0] = -((l*l)/60.)*(2.*vi+3.*vk);
-	*/
-
-	{
-	   double p2[][] = new double [2][1];
-	   p2[0][0] = (vi+vk)/2.;
-	   p2[1][0] = (vk-vi)/2.;
-
-	   double p1[][] = new double [4][2];
-	   p1[0][0] = 30.;   p1[0][1] = -10. - 2.*psi;
-	   p1[1][0] = 30.;   p1[1][1] = 10. + 2.*psi;
-	   p1[2][0] = -5.*l; p1[2][1] = l*psi;
-	   p1[3][0] = 5.*l;  p1[3][1] = l*psi;
-
-	   double p[][] = Matrix.multiply(
-	                         -l/60.,
-				 Matrix.multiply(p1, p2)
-			      );
-
-	   Ll[1][0] = p[0][0];
-	   Ll[4][0] = p[1][0];
-	   Ll[2][0] = p[2][0];
-	   Ll[5][0] = p[3][0];
-	}
+	shearStiffness(EA, EI, psi, l, sl);
+    }
 
-	/*
-	System.out.println("EBSBeam Ll:");
-	Matrix.dump(Ll);
-	*/
+    /**
+      * Schubparameter psi eines Elementes der Länge l.
+      */
+    protected static double psi(double EI, double GAs, double l)
+    {
+	return 1. / ( 1.+12.* ((EI)/(l*l*GAs)) );
+    }
 
-	if (hN > 0)
+    /**
+      * Lokale Steifigkeitsmatrix des allgemeinen Euler-Bernoulli-Shear-
+      * Balken-Elementes (EA, EI, Schubparameter psi, Länge l) in sl
+      * (6x6 zeilenweise).
+      */
+    protected static void shearStiffness(double EA, double EI, double psi, double l, double sl[])
+    {
+	for (int i=0; i<36; i++)
 	{
-	    Pa = new double[hN][1];
-	    double Pb[][] = new double[6-hN][1];
-	    int a = 0;
-	    int b = 0;
-
-	    for (int n=0; n<6; n++)
-	    {
-		if (hinged[n])
-		{
-		    Pa[a][0] = Ll[n][0];
-		    a++;
-		} else {
-		    Pb[b][0] = Ll[n][0];
-		    b++;
-		}
-	    }
-
-	    double Pred[][] = 
-		Matrix.sub(
-		    Pb,
-		    Matrix.multiply(
-			Matrix.multiply(
-			    Kba,
-			    invKaa
-			),
-			Pa
-		    )
-		);
-
-	    b = 0;
-	    for (int n=0; n<6; n++)
-	    {
-		if (!hinged[n])
-		{
-		    Ll[n][0] = Pred[b][0];
-		    b++;
-		} else {
-		    Ll[n][0] = 0.;
-		}
-	    }
+	    sl[i]=0.;
 	}
 
-	double L[][] = Matrix.multiply(Matrix.transpose(a), Ll);
+	sl[0] = EA/l;
+	sl[3] = sl[18] = -EA/l;
+	sl[7] = 12.*psi*EI/(l*l*l);
+	sl[8] = sl[13] = -6.*psi*EI/(l*l);
+	sl[10] = sl[25] = -12.*psi*EI/(l*l*l);
+	sl[11] = sl[31] = -6.*psi*EI/(l*l);
+	sl[14] = (1.+3.*psi)*EI/l;
+	sl[16] = sl[26] = 6.*psi*EI/(l*l);
+	sl[17] = sl[32] = (-1.+3.*psi)*EI/l;
+	sl[21] = EA/l;
+	sl[28] = 12.*psi*EI/(l*l*l);
+	sl[29] = sl[34] = 6.*psi*EI/(l*l);
+	sl[35] = (1.+3.*psi)*EI/l;
+    }
 
-	for (int n=0; n<6; n++)
-	{
-	    Lg[n] = L[n][0];
-	}
+    /**
+      * Lokaler Elementlastvektor (ohne Gelenke) aus den verteilten
+      * Lasten unter Berücksichtigung des Schubs in ll.
+      */
+    protected void localLoads(double ll[])
+    {
+	shearLoads(l, psi, vi, vk, ni, nk, ll);
     }
 
+    /**
+      * Lokaler Elementlastvektor (ohne Gelenke) der verteilten Lasten
+      * vi, vk, ni, nk auf einem Element der Länge l mit Schubparameter
+      * psi in ll.
+      */
+    protected static void shearLoads(double l, double psi, double vi, double vk, double ni, double nk, double ll[])
+    {
+	//   Ni, Nk
+	ll[0] = -(2*ni+nk)*l/6.;
+	ll[3] = -(ni+2.*nk)*l/6.;
+
+	// Vi, Vk, Mi, Mk: -l/60 p1 p2 mit p2 = {(vi+vk)/2, (vk-vi)/2}
+	double p0 = (vi+vk)/2.;
+	double p1 = (vk-vi)/2.;
+	ll[1] = -l/60.*(30.*p0+(-10.-2.*psi)*p1);
+	ll[4] = -l/60.*(30.*p0+(10.+2.*psi)*p1);
+	ll[2] = -l/60.*(-5.*l*p0+l*psi*p1);
+	ll[5] = -l/60.*(5.*l*p0+l*psi*p1);
+    }
 }
-
@@ -0,0 +1,268 @@
+package com.schwebke.jbeam.model;
+
+import com.schwebke.math.*;
+
+import java.util.*;
+
+/**
+ * Min/max envelopes of the node results and stress resultants over all
+ * load combinations of a model, with the governing combination of every
+ * extreme value.
+ *
+ * The combinations are evaluated by linear superposition of the load
+ * case results (Model.calculateLoadCases), so every combination costs
+ * only vector arithmetic and no solve. Along a beam the extremes of
+ * every combination are determined analytically from its superposed end
+ * forces and line loads: N at the ends, V at the ends and where the
+ * load is zero, M at the ends and at the zeros of V (as
+ * EBBeam.fExtrM). The beams are processed in parallel; each beam is
+ * evaluated by exactly one task, so the result does not depend on the
+ * number of threads.
+ */
+public class Envelope {
+
+    /** Node quantities: displacements and support reactions */
+    public static final int DX = 0, DZ = 1, DR = 2, RFX = 3, RFZ = 4, RM = 5;
+    /** Beam quantities: stress resultants */
+    public static final int N = 0, V = 1, M = 2;
+
+    /** Minimum and maximum of one quantity with the governing combinations. */
+    public static class Extreme {
+
+        protected double min = Double.POSITIVE_INFINITY;
+        protected double max = Double.NEGATIVE_INFINITY;
+        protected int minCombination = -1;
+        protected int maxCombination = -1;
+        protected double minPosition;
+        protected double maxPosition;
+
+        /**
+         * Takes value of combination at position f (0..1) into account;
+         * values equal up to round-off keep the first position.
+         */
+        protected void update(double value, int combination, double f) {
+            double tol = 1E-12 * Math.abs(value);
+            if ((minCombination < 0) || (value < min - tol)) {
+                min = value;
+                minCombination = combination;
+                minPosition = f;
+            }
+            if ((maxCombination < 0) || (value > max + tol)) {
+                max = value;
+                maxCombination = combination;
+                maxPosition = f;
+            }
+        }
+
+        public double getMin() {
+            return min;
+        }
+
+        public double getMax() {
+            return max;
+        }
+
+        /// Index of the combination giving the minimum.
+        public int getMinCombination() {
+            return minCombination;
+        }
+
+        /// Index of the combination giving the maximum.
+        public int getMaxCombination() {
+            return maxCombination;
+        }
+
+        /// Position of the minimum along the beam (0..1).
+        public double getMinPosition() {
+            return minPosition;
+        }
+
+        /// Position of the maximum along the beam (0..1).
+        public double getMaxPosition() {
+            return maxPosition;
+        }
+    }
+
+    /// Evaluated load combinations
+    protected LoadCombination combinations[];
+    /// Node extremes [node][DX..RM]
+    protected Extreme nodeExtremes[][];
+    /// Beam extremes [beam][N..M] (V and M null for beams without bending)
+    protected Extreme beamExtremes[][];
+
+    /**
+     * Evaluates all combinations. The load case results on the nodes
+     * and beams must be current.
+     */
+    protected Envelope(List<Node> nodes, List<Beam> beams,
+            List<LoadCase> loadCases, List<LoadCombination> combinationList) {
+        combinations = combinationList.toArray(new LoadCombination[0]);
+        int nc = loadCases.size();
+        int nk = combinations.length;
+
+        // factor matrix F[k][c] of combination k and load case c
+        double F[][] = new double[nk][nc];
+        for (int k = 0; k < nk; k++) {
+            for (int c = 0; c < nc; c++) {
+                F[k][c] = combinations[k].getFactor(loadCases.get(c));
+            }
+        }
+
+        nodeExtremes = new Extreme[nodes.size()][];
+        Parallel.forRange(0, nodes.size(), 64, (from, to) -> {
+            double caseValues[] = new double[nc];
+            for (int i = from; i < to; i++) {
+                Node node = nodes.get(i);
+                Extreme e[] = new Extreme[6];
+                for (int q = 0; q < 6; q++) {
+                    e[q] = new Extreme();
+                    for (int c = 0; c < nc; c++) {
+                        caseValues[c] = nodeValue(node, q, c);
+                    }
+                    combine(F, caseValues, e[q], 0.);
+                }
+                nodeExtremes[i] = e;
+            }
+        });
+
+        beamExtremes = new Extreme[beams.size()][];
+        Parallel.forRange(0, beams.size(), 16, (from, to) -> {
+            // end values {Ni, Nk, Vi, Mi} and line loads {vi, vk} per case
+            double caseValues[][] = new double[6][nc];
+            double combined[] = new double[6];
+            for (int i = from; i < to; i++) {
+                Beam beam = beams.get(i);
+                EBBeam ebBeam = (beam instanceof EBBeam) ? (EBBeam) beam : null;
+                Extreme e[] = new Extreme[3];
+                e[N] = new Extreme();
+                if (ebBeam != null) {
+                    e[V] = new Extreme();
+                    e[M] = new Extreme();
+                }
+                for (int c = 0; c < nc; c++) {
+                    caseValues[0][c] = beam.getNi(c);
+                    caseValues[1][c] = beam.getNk(c);
+                    if (ebBeam != null) {
+                        caseValues[2][c] = beam.getVi(c);
+                        caseValues[3][c] = beam.getMi(c);
+                        caseValues[4][c] = ebBeam.caseLoads[c][0];
+                        caseValues[5][c] = ebBeam.caseLoads[c][1];
+                    }
+                }
+                for (int k = 0; k < nk; k++) {
+                    for (int q = 0; q < 6; q++) {
+                        double value = 0.;
+                        for (int c = 0; c < nc; c++) {
+                            value += F[k][c] * caseValues[q][c];
+                        }
+                        combined[q] = value;
+                    }
+                    e[N].update(combined[0], k, 0.);
+                    e[N].update(combined[1], k, 1.);
+                    if (ebBeam != null) {
+                        bendingExtremes(combined[2], combined[3], combined[4], combined[5],
+                                beam.l, k, e[V], e[M]);
+                    }
+                }
+                beamExtremes[i] = e;
+            }
+        });
+    }
+
+    /**
+     * Extremes of V and M of one combination along a beam of length l
+     * with shear force Vi and moment Mi at the start and the linear line
+     * load vi .. vk (curves as EBBeam.V and EBBeam.M).
+     */
+    private static void bendingExtremes(double Vi, double Mi, double vi, double vk, double l,
+            int combination, Extreme eV, Extreme eM) {
+        // V(f) = Vi + B f + A f^2, dV/df = 0 where the load is zero
+        double A = -0.5 * (vk - vi) * l;
+        double B = -vi * l;
+        double candidates[] = {0., 1., -1., -1., -1.};
+        if (A != 0.) {
+            candidates[2] = -B / (2. * A);
+        }
+        // M is extreme at the zeros of V (dM/dx = V)
+        if (A == 0.) {
+            if (B != 0.) {
+                candidates[3] = -Vi / B;
+            }
+        } else {
+            double D = B * B - 4. * A * Vi;
+            if (D >= 0.) {
+                double q = -0.5 * (B + Math.copySign(Math.sqrt(D), B));
+                candidates[3] = q / A;
+                if (q != 0.) {
+                    candidates[4] = Vi / q;
+                }
+            }
+        }
+        for (int n = 0; n < candidates.length; n++) {
+            double f = candidates[n];
+            if (!((f >= 0.) && (f <= 1.))) {
+                continue;
+            }
+            double x = f * l;
+            if (n != 3 && n != 4) {
+                eV.update(Vi - vi * x - ((vk - vi) / l) * ((x * x) / 2.), combination, f);
+            }
+            if (n != 2) {
+                eM.update(Mi + Vi * x - vi * x * x * 0.5 - ((vk - vi) / l) * ((x * x * x) / 6.),
+                        combination, f);
+            }
+        }
+    }
+
+    /// Superposition of the case values for every combination.
+    private static void combine(double F[][], double caseValues[], Extreme e, double f) {
+        for (int k = 0; k < F.length; k++) {
+            double Fk[] = F[k];
+            double value = 0.;
+            for (int c = 0; c < Fk.length; c++) {
+                value += Fk[c] * caseValues[c];
+            }
+            e.update(value, k, f);
+        }
+    }
+
+    private static double nodeValue(Node node, int quantity, int loadCase) {
+        switch (quantity) {
+            case DX:
+                return node.getDX(loadCase);
+            case DZ:
+                return node.getDZ(loadCase);
+            case DR:
+                return node.getDR(loadCase);
+            case RFX:
+                return node.getRFx(loadCase);
+            case RFZ:
+                return node.getRFz(loadCase);
+            default:
+                return node.getRM(loadCase);
+        }
+    }
+
+    /// Number of evaluated combinations.
+    public int getCombinationCount() {
+        return combinations.length;
+    }
+
+    /// Combination to an index returned by Extreme.getMinCombination etc.
+    public LoadCombination getCombination(int index) {
+        return combinations[index];
+    }
+
+    /// Extremes of a node quantity (DX .. RM) of the node with the given index.
+    public Extreme getNodeExtreme(int node, int quantity) {
+        return nodeExtremes[node][quantity];
+    }
+
+    /**
+     * Extremes of a stress resultant (N, V, M) of the beam with the
+     * given index; null for V and M of beams without bending stiffness.
+     */
+    public Extreme getBeamExtreme(int beam, int quantity) {
+        return beamExtremes[beam][quantity];
+    }
+}
@@ -0,0 +1,134 @@
+package com.schwebke.jbeam.model;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Named load case: a set of nodal loads and distributed element loads.
+ * All load cases of a model are solved against one factorization of
+ * the global stiffness matrix (Model.calculateLoadCases). The loads
+ * stored directly on the nodes and beams are not part of any load case.
+ */
+public class LoadCase implements Serializable {
+
+    static final long serialVersionUID = 3284410566283713935L;
+
+    /** Nodal load of a load case. */
+    public static class NodeLoad implements Serializable {
+
+        static final long serialVersionUID = -2163829504713398514L;
+
+        protected Node node;
+        protected double Fx;
+        protected double Fz;
+        protected double M;
+
+        public NodeLoad(Node node, double Fx, double Fz, double M) {
+            this.node = node;
+            this.Fx = Fx;
+            this.Fz = Fz;
+            this.M = M;
+        }
+
+        public Node getNode() {
+            return node;
+        }
+
+        public double getFx() {
+            return Fx;
+        }
+
+        public double getFz() {
+            return Fz;
+        }
+
+        public double getM() {
+            return M;
+        }
+    }
+
+    /** Distributed element load of a load case. */
+    public static class BeamLoad implements Serializable {
+
+        static final long serialVersionUID = 7408214113967291057L;
+
+        protected EBBeam beam;
+        protected double vi;
+        protected double vk;
+        protected double ni;
+        protected double nk;
+
+        public BeamLoad(EBBeam beam, double vi, double vk, double ni, double nk) {
+            this.beam = beam;
+            this.vi = vi;
+            this.vk = vk;
+            this.ni = ni;
+            this.nk = nk;
+        }
+
+        public EBBeam getBeam() {
+            return beam;
+        }
+
+        public double getVi() {
+            return vi;
+        }
+
+        public double getVk() {
+            return vk;
+        }
+
+        public double getNi() {
+            return ni;
+        }
+
+        public double getNk() {
+            return nk;
+        }
+    }
+
+    /// Name of the load case
+    protected String name;
+    /// Nodal loads
+    protected ArrayList<NodeLoad> nodeLoads;
+    /// Distributed element loads
+    protected ArrayList<BeamLoad> beamLoads;
+
+    public LoadCase(String name) {
+        this.name = name;
+        nodeLoads = new ArrayList<NodeLoad>();
+        beamLoads = new ArrayList<BeamLoad>();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /// Adds a nodal load; several loads on one node are summed up.
+    public void addNodeLoad(Node node, double Fx, double Fz, double M) {
+        nodeLoads.add(new NodeLoad(node, Fx, Fz, M));
+    }
+
+    /// Adds a distributed load; several loads on one beam are summed up.
+    public void addBeamLoad(EBBeam beam, double vi, double vk, double ni, double nk) {
+        beamLoads.add(new BeamLoad(beam, vi, vk, ni, nk));
+    }
+
+    public List<NodeLoad> getNodeLoads() {
+        return nodeLoads;
+    }
+
+    public List<BeamLoad> getBeamLoads() {
+        return beamLoads;
+    }
+
+    /// Removes all loads on the given node or beam (after deleting it).
+    public void removeLoadsOn(Object obj) {
+        nodeLoads.removeIf(load -> load.node == obj);
+        beamLoads.removeIf(load -> load.beam == obj);
+    }
+}
@@ -0,0 +1,95 @@
+package com.schwebke.jbeam.model;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Load combination: a linear combination of load cases with partial
+ * safety factors, e.g. 1.35 G + 1.5 Q. Its results are obtained by
+ * superposition of the load case results (Model.calculateEnvelope),
+ * not by a calculation of its own.
+ */
+public class LoadCombination implements Serializable {
+
+    static final long serialVersionUID = -6019338467297054318L;
+
+    /** Load case with its factor. */
+    public static class Term implements Serializable {
+
+        static final long serialVersionUID = 4581129570372633140L;
+
+        protected LoadCase loadCase;
+        protected double factor;
+
+        public Term(LoadCase loadCase, double factor) {
+            this.loadCase = loadCase;
+            this.factor = factor;
+        }
+
+        public LoadCase getLoadCase() {
+            return loadCase;
+        }
+
+        public double getFactor() {
+            return factor;
+        }
+    }
+
+    /// Name of the load combination
+    protected String name;
+    /// Load cases with factors
+    protected ArrayList<Term> terms;
+
+    public LoadCombination(String name) {
+        this.name = name;
+        terms = new ArrayList<Term>();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /// Adds a load case; several terms of one case are summed up.
+    public void addTerm(LoadCase loadCase, double factor) {
+        terms.add(new Term(loadCase, factor));
+    }
+
+    public List<Term> getTerms() {
+        return terms;
+    }
+
+    /// Total factor of the given load case (0 if not part of the combination).
+    public double getFactor(LoadCase loadCase) {
+        double factor = 0.;
+        for (Term term : terms) {
+            if (term.loadCase == loadCase) {
+                factor += term.factor;
+            }
+        }
+        return factor;
+    }
+
+    /// Removes a load case (after deleting it from the model).
+    public void removeLoadCase(LoadCase loadCase) {
+        terms.removeIf(term -> term.loadCase == loadCase);
+    }
+
+    /// Readable form, e.g. "1.35 G + 1.5 Q".
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Term term : terms) {
+            if (sb.length() > 0) {
+                sb.append(term.factor < 0. ? " - " : " + ");
+            } else if (term.factor < 0.) {
+                sb.append("-");
+            }
+            sb.append(Math.abs(term.factor)).append(" ").append(term.loadCase.getName());
+        }
+        return sb.toString();
+    }
+}
@@ -21,9 +21,21 @@ public class Model implements Serializable, IModel {
     protected ArrayList<Beam> beamList;
     /// True if this model contains valid (current) calculation results.
     protected boolean validCalculation;
+    /// Instances of substructures (condensed to their boundary nodes).
+    protected ArrayList<Superelement> superelementList;
+    /// Load cases, solved together by calculateLoadCases.
+    protected ArrayList<LoadCase> loadCaseList;
+    /// True if the per load case results on nodes and beams are current.
+    protected transient boolean validLoadCases;
+    /// Load combinations of the load cases.
+    protected ArrayList<LoadCombination> loadCombinationList;
+    /// Envelopes over the load combinations (see calculateEnvelope).
+    protected transient Envelope envelope;
+    /// True while the loads of a load case are applied (applyLoads).
+    protected transient boolean caseLoads;
     /** global stiffness matrix */
     protected double K[][];
-    /** global mass matrix */
+    /** global mass matrix (no longer assembled, see massDiagonal) */
     protected double M[][];
     /** global load vector */
     protected double p[];
@@ -35,6 +47,87 @@ public class Model implements Serializable, IModel {
     protected int mode;
     /// Number of global DOFs
     protected int r;
+    /** global stiffness matrix in profile storage (lower triangle) */
+    protected transient PMatrix KP;
+
+
+    /** Cholesky factor of K of the dense path (flat row-major) */
+    protected transient double denseFactor[];
+    /**
+     * Changes of nodes and beams since the last complete assembly of K;
+     * decides what the next calculation can reuse.
+     */
+    protected transient ChangeJournal journal;
+    /** condensed stiffness matrices of the superelements at the stored factorization */
+    protected transient double baseCondensed[][][];
+
+    /**
+     * Low-rank update of the stored factorization for the beams whose
+     * stiffness changed since it was computed (null: none)
+     */
+    protected transient Woodbury update;
+    /** element stiffness matrices Sg (flat 6x6) at the stored factorization */
+    protected transient double baseSg[][];
+
+    /** global stiffness matrix in sparse storage (lower triangle) */
+    protected transient CSCMatrix KS;
+    /** sparse Cholesky factor of KS */
+    protected transient SparseCholesky sparseFactor;
+    /** domain decomposition factor of KS (see domainDecomposition) */
+    protected transient DomainDecomposition domainFactor;
+    /** diagonal of the (lumped) global mass matrix */
+    protected transient double Md[];
+
+
+
+
+    /** backend of the stored factorization */
+    protected transient SolverStrategy solver;
+
+
+    /** iterative solver of the last static calculation (convergence history) */
+    protected transient ConjugateGradient iteration;
+    /** global stiffness matrix in CSR storage (iterative solver, full pattern) */
+    protected transient CSRMatrix KI;
+    /** preconditioner of KI */
+    protected transient Preconditioner preconditioner;
+    /** displacement vector of the last iterative calculation (warm start) */
+    protected transient double lastSolution[];
+
+
+
+
+
+
+
+
+
+
+    /** element stiffness matrices Sg (flat 6x6) contained in the assembled K */
+    protected transient double assembledSg[][];
+    /** DOF numbers of the nodes (CompiledModel.dofs) of the assembled K */
+    protected transient int assembledDOFs[];
+    /** condensed stiffness matrices of the superelements in the assembled K */
+    protected transient double assembledCondensed[][][];
+    /** assembled K in profile storage (KP is factorized in place) */
+    protected transient PMatrix KA;
+
+    /**
+     * Compiled snapshot of nodes and beams of the last DOF numbering;
+     * assembly, load vector and recovery run on it.
+     */
+    protected transient CompiledModel compiled;
+
+    /** renumberDOFs at the last numbering of the DOFs */
+    protected transient boolean numberedWithRenumbering;
+
+    /** profile statistics of K in node insertion order */
+    protected transient ProfileStatistics profileBefore;
+    /** profile statistics of K after the DOF renumbering */
+    protected transient ProfileStatistics profileAfter;
+
+    /// Settings of the analysis (not saved with the model).
+    protected transient AnalysisOptions options;
 
     /**
      * Creates a new, empty model.
@@ -42,13 +135,41 @@ public class Model implements Serializable, IModel {
     public Model() {
         nodeList = new ArrayList<Node>();
         beamList = new ArrayList<Beam>();
+        superelementList = new ArrayList<Superelement>();
+        loadCaseList = new ArrayList<LoadCase>();
+        loadCombinationList = new ArrayList<LoadCombination>();
         validCalculation = false;
         K = null;
         M = null;
         p = null;
+        KP = null;
         EigenVec = null;
         mode = 0;
         r = 0;
+        journal = new ChangeJournal(this);
+        options = new AnalysisOptions();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        // models saved before load cases existed
+        if (loadCaseList == null) {
+            loadCaseList = new ArrayList<LoadCase>();
+        }
+        if (loadCombinationList == null) {
+            loadCombinationList = new ArrayList<LoadCombination>();
+        }
+        if (superelementList == null) {
+            superelementList = new ArrayList<Superelement>();
+        }
+        journal = new ChangeJournal(this);
+        options = new AnalysisOptions();
+        for (Node node : nodeList) {
+            journal.attach(node);
+        }
+        for (Beam beam : beamList) {
+            journal.attach(beam);
+        }
     }
 
     /**
@@ -82,11 +203,17 @@ public class Model implements Serializable, IModel {
         return validCalculation;
     }
 
+    /// Changes of nodes and beams since the last complete assembly.
+    public ChangeJournal getJournal() {
+        return journal;
+    }
+
     /// Fügt einen Knoten in das Model ein.
     @Override
     public void addNode(Node node) {
         nodeList.add(node);
-        validCalculation = false;
+        journal.attach(node);
+        journal.record(node, ChangeJournal.TOPOLOGY);
     }
 
     /// Liefert die eindeutige Nummer eines Knotens.
@@ -105,7 +232,8 @@ public class Model implements Serializable, IModel {
     @Override
     public void addBeam(Beam beam) {
         beamList.add(beam);
-        validCalculation = false;
+        journal.attach(beam);
+        journal.record(beam, ChangeJournal.TOPOLOGY);
     }
 
     /// Liefert die eindeutige Nummer eines Beamelementes.
@@ -120,22 +248,147 @@ public class Model implements Serializable, IModel {
         return beamList.get(index);
     }
 
+    /// Fügt ein Superelement (Instanz einer Substruktur) in das Model ein.
+    public void addSuperelement(Superelement element) {
+        superelementList.add(element);
+        journal.record(ChangeJournal.TOPOLOGY);
+    }
+
+    /// Entfernt ein Superelement aus dem Model.
+    public void removeSuperelement(Superelement element) {
+        superelementList.remove(element);
+        journal.record(ChangeJournal.TOPOLOGY);
+    }
+
+    /// Entfernt alle Superelemente, die an den Knoten anschließen.
+    protected int removeSuperelements(Node node) {
+        int count = 0;
+        for (Iterator<Superelement> it = superelementList.iterator(); it.hasNext();) {
+            if (it.next().hasNode(node)) {
+                it.remove();
+                count++;
+            }
+        }
+        if (count > 0) {
+            journal.record(ChangeJournal.TOPOLOGY);
+        }
+        return count;
+    }
+
+    /// Liefert einen Iterator auf die Superelementliste.
+    public Iterable<Superelement> getSuperelementIterator() {
+        return superelementList;
+    }
+
+    /// Liefert die Anzahl der Superelemente.
+    public int getSuperelementCount() {
+        return superelementList.size();
+    }
+
+    /// Liefert das Superelement zur angegebenen Nummer.
+    public Superelement getSuperelement(int index) {
+        return superelementList.get(index);
+    }
+
+    /// Fügt einen Lastfall in das Model ein.
+    public void addLoadCase(LoadCase loadCase) {
+        loadCaseList.add(loadCase);
+        validLoadCases = false;
+    }
+
+    /// Entfernt einen Lastfall aus dem Model.
+    public void removeLoadCase(LoadCase loadCase) {
+        loadCaseList.remove(loadCase);
+        for (LoadCombination combination : loadCombinationList) {
+            combination.removeLoadCase(loadCase);
+        }
+        validLoadCases = false;
+    }
+
+    /// Liefert einen Iterator auf die Lastfallliste.
+    public Iterable<LoadCase> getLoadCaseIterator() {
+        return loadCaseList;
+    }
+
+    /// Liefert die Anzahl der Lastfälle.
+    public int getLoadCaseCount() {
+        return loadCaseList.size();
+    }
+
+    /// Liefert den Lastfall zur angegebenen Nummer.
+    public LoadCase getLoadCase(int index) {
+        return loadCaseList.get(index);
+    }
+
+    /// Fügt eine Lastkombination in das Model ein.
+    public void addLoadCombination(LoadCombination combination) {
+        loadCombinationList.add(combination);
+        envelope = null;
+    }
+
+    /// Entfernt eine Lastkombination aus dem Model.
+    public void removeLoadCombination(LoadCombination combination) {
+        loadCombinationList.remove(combination);
+        envelope = null;
+    }
+
+    /// Liefert einen Iterator auf die Lastkombinationsliste.
+    public Iterable<LoadCombination> getLoadCombinationIterator() {
+        return loadCombinationList;
+    }
+
+    /// Liefert die Anzahl der Lastkombinationen.
+    public int getLoadCombinationCount() {
+        return loadCombinationList.size();
+    }
+
+    /// Liefert die Lastkombination zur angegebenen Nummer.
+    public LoadCombination getLoadCombination(int index) {
+        return loadCombinationList.get(index);
+    }
+
+    /**
+     * Liefert true, wenn die Ergebnisse je Lastfall an Knoten und
+     * Elementen gültig (aktuell) sind.
+     */
+    public boolean getValidLoadCases() {
+        return validLoadCases && validCalculation;
+    }
+
+    /// Entfernt die Lasten eines gelöschten Knotens oder Elements aus allen Lastfällen.
+    protected void removeFromLoadCases(Object obj) {
+        for (LoadCase loadCase : loadCaseList) {
+            loadCase.removeLoadsOn(obj);
+        }
+    }
+
     /// Löscht das Model.
     public void clearModel() {
+        for (Beam beam : beamList) {
+            journal.detach(beam);
+        }
+        for (Node node : nodeList) {
+            journal.detach(node);
+        }
         beamList.clear();
         nodeList.clear();
-        validCalculation = false;
+        superelementList.clear();
+        loadCaseList.clear();
+        loadCombinationList.clear();
+        journal.record(ChangeJournal.TOPOLOGY);
     }
 
     /**
-     * Static analysis of the system.
+     * Static analysis of the system. If the stiffness did not change
+     * since the last calculation (only nodal or element loads were
+     * edited), the factorization of K is reused and only the load
+     * vector is set up and substituted.
      */
     public void calculate() {
-        // Set up system matrices
-        calculateGlobalMatrices();
-
-        // Solve the linear equation system
-        Solver.cholesky(K, p);
+        iteration = null;
+        validLoadCases = false;
+        factorize();
+        substitute(p);
 
         // Back-calculation
         postCalculate(p);
@@ -144,41 +397,427 @@ public class Model implements Serializable, IModel {
     }
 
     /**
-     * Modal analysis of the system.
+     * Static analysis of all load cases. The load vectors of the cases
+     * form an r x N block that is solved at once against a single
+     * factorization of K. The results are stored per load case on the
+     * nodes and beams (e.g. Node.getDX(int), EBBeam.M(int, double));
+     * afterwards nodes and beams show the results of the loads stored
+     * on them, as after calculate().
      */
-    public void calculateModal() {
-        // Set up system matrices
-        calculateGlobalMatrices();
+    public void calculateLoadCases() {
+        int cases = loadCaseList.size();
+        double saved[][] = saveLoads();
 
-        // Reduction to standard eigenvalue problem
-        double tmp[] = new double[r];
-        double dK[][] = Matrix.duplicate(K);
-        for (int i = 0; i < r; ++i) {
-            tmp[i] = 1.;
+        factorize();
+        try {
+            // Load vectors of all cases as columns of B (row-major r x cases)
+            double B[] = new double[r * cases];
+            for (int c = 0; c < cases; c++) {
+                applyLoads(loadCaseList.get(c));
+                calculateLoadVector();
+                for (int i = 0; i < r; i++) {
+                    B[i * cases + c] = p[i];
+                }
+            }
+
+            // Blocked forward/backward substitution for all cases
+            substitute(B, cases);
+
+            // Back-calculation per case
+            double u[] = new double[r];
+            for (int c = 0; c < cases; c++) {
+                applyLoads(loadCaseList.get(c));
+                for (int i = 0; i < r; i++) {
+                    u[i] = B[i * cases + c];
+                }
+                postCalculate(u);
+                storeCaseResults(c, cases);
+            }
+        } finally {
+            restoreLoads(saved);
         }
-        Solver.cholesky(dK, tmp);
 
-        double LK[][] = new double[r][r];
-        for (int i = 0; i < r - 1; ++i) {
-            for (int j = i + 1; j < r; ++j) {
-                LK[i][j] = 0.;
+        // Results of the model's own loads
+        calculateLoadVector();
+        substitute(p);
+        postCalculate(p);
+
+        validCalculation = true;
+        validLoadCases = true;
+    }
+
+    /**
+     * Min/max envelopes over all load combinations. The load cases are
+     * solved once (calculateLoadCases, unless their results are still
+     * current); every combination is then built by superposition of the
+     * load case results.
+     */
+    public Envelope calculateEnvelope() {
+        if (!getValidLoadCases()) {
+            calculateLoadCases();
+        }
+        envelope = new Envelope(nodeList, beamList, loadCaseList, loadCombinationList);
+        return envelope;
+    }
+
+    /**
+     * Envelopes of the last calculateEnvelope, null if the load case
+     * results or the combinations changed since.
+     */
+    public Envelope getEnvelope() {
+        return getValidLoadCases() ? envelope : null;
+    }
+
+    /**
+     * Set up the global load vector p and a factorization of K with the
+     * backend of solverStrategy (selectSolver if not set). The
+     * factorization of the last calculation is reused if the change
+     * journal records no change of the stiffness.
+     */
+    protected void factorize() {
+        // the automatic choice depends on the numbering (profile of K)
+        numberDOFs();
+        SolverStrategy strategy = (options.solverStrategy != null) ? options.solverStrategy : selectSolver();
+        if (isFactorizationCurrent(strategy)) {
+            // Only loads changed: new load vector only
+            calculateLoadVector();
+            return;
+        }
+        if (options.lowRankUpdates && (strategy != SolverStrategy.ITERATIVE) && updateFactorization(strategy)) {
+            calculateLoadVector();
+            journal.factorized();
+            return;
+        }
+
+        try {
+            strategy.factorize(this);
+        } catch (IllegalArgumentException e) {
+            throw factorizationFailed(e);
+        }
+        solver = strategy;
+        factorized();
+        update = null;
+        if (options.lowRankUpdates) {
+            saveBaseStiffness();
+        } else {
+            baseSg = null;
+        }
+    }
+
+    /**
+     * K could not be factorized (singular: kinematic system or missing
+     * supports). Drops the stored factorization, which may be partly
+     * overwritten, and returns the exception the analysis fails with.
+     */
+    protected ModelException factorizationFailed(IllegalArgumentException e) {
+        solver = null;
+        update = null;
+        baseSg = null;
+        return new ModelException("stiffness matrix cannot be factorized (" + e.getMessage()
+                + "), kinematic system?");
+    }
+
+    /**
+     * Update the stored factorization of K0 for the beams whose stiffness
+     * changed since it was computed: K = K0 + U C U^T with the unit
+     * vectors U of the DOFs of these beams and the sum C of their
+     * changes of Sg; the beams are taken from the change journal.
+     * Returns false if this is not possible (no stored factorization,
+     * changed structure, rank above maxUpdateRank or singular K); K has
+     * to be factorized then.
+     */
+    protected boolean updateFactorization(SolverStrategy strategy) {
+        update = null;
+        if ((baseSg == null) || !hasFactorization(strategy)
+                || (baseSg.length != beamList.size())
+                || journal.isStructureChanged() || superelementsChanged()) {
+            return false;
+        }
+        // same structure and DOF numbers, new stiffness parameters
+        compiled = new CompiledModel(nodeList, beamList);
+
+        // DOFs of the beams changed against the factorization
+        int position[] = new int[r];
+        Arrays.fill(position, -1);
+        int changed[] = journal.changedBeams(beamList);
+        List<Integer> dofList = new ArrayList<>();
+        for (int b : changed) {
+            for (int lv : compiled.locationVector(b, new int[6])) {
+                if ((lv != 0) && (position[lv - 1] < 0)) {
+                    position[lv - 1] = dofList.size();
+                    dofList.add(lv - 1);
+                }
+            }
+        }
+        int q = dofList.size();
+        if (q > options.maxUpdateRank) {
+            return false;
+        }
+
+        // C: change of K in the rows/columns of these DOFs
+        int updateDofs[] = new int[q];
+        for (int a = 0; a < q; a++) {
+            updateDofs[a] = dofList.get(a);
+        }
+        double C[][] = new double[q][q];
+        double Sg[] = new double[36];
+        int locationVector[] = new int[6];
+        CompiledModel.Workspace work = new CompiledModel.Workspace();
+        for (int b : changed) {
+            compiled.locationVector(b, locationVector);
+            compiled.stiffness(b, Sg, null, work);
+            for (int i = 0; i < 6; i++) {
+                if (locationVector[i] == 0) {
+                    continue;
+                }
+                for (int j = 0; j < 6; j++) {
+                    if (locationVector[j] != 0) {
+                        C[position[locationVector[i] - 1]][position[locationVector[j] - 1]]
+                                += Sg[6 * i + j] - baseSg[b][6 * i + j];
+                    }
+                }
+            }
+        }
+
+        // Z = K0^-1 U: one solve per changed DOF
+        double Z[] = new double[r * q];
+        for (int a = 0; a < q; a++) {
+            Z[updateDofs[a] * q + a] = 1.;
+        }
+        substituteFactor(Z, q);
+        try {
+            update = new Woodbury(updateDofs, C, Z);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Store Sg of all beams as base of low-rank updates (taken from the
+     * assembly if it kept them, see incrementalAssembly).
+     */
+    protected void saveBaseStiffness() {
+        if ((assembledSg != null) && (assembledSg.length == beamList.size())) {
+            // the rows are replaced, never modified, on re-assembly
+            baseSg = assembledSg.clone();
+            return;
+        }
+        baseSg = new double[beamList.size()][];
+        CompiledModel.Workspace work = new CompiledModel.Workspace();
+        for (int b = 0; b < baseSg.length; b++) {
+            baseSg[b] = new double[36];
+            compiled.stiffness(b, baseSg[b], null, work);
+        }
+    }
+
+    /**
+     * Rank of the low-rank update applied to the stored factorization,
+     * 0 if K was factorized for the current stiffness.
+     */
+    public int getUpdateRank() {
+        return (update != null) ? update.getRank() : 0;
+    }
+
+    /**
+     * Solve K x = b with the factorization of factorize();
+     * b is overwritten by x.
+     */
+    protected void substitute(double b[]) {
+        substituteFactor(b);
+        if (update != null) {
+            update.correct(b);
+        }
+    }
+
+    /**
+     * Solve K X = B for nrhs right hand sides (B row-major r x nrhs)
+     * with the factorization of factorize(); B is overwritten by X.
+     */
+    protected void substitute(double B[], int nrhs) {
+        substituteFactor(B, nrhs);
+        if (update != null) {
+            update.correct(B, nrhs);
+        }
+    }
+
+    /// Solve K0 x = b with the stored factor (without low-rank update).
+    protected void substituteFactor(double b[]) {
+        solver.substitute(this, b);
+    }
+
+    /// Solve K0 X = B for nrhs right hand sides with the stored factor.
+    protected void substituteFactor(double B[], int nrhs) {
+        solver.substitute(this, B, nrhs);
+    }
+
+    /**
+     * Loads stored on the nodes ({Fx, Fz, M}) and on the EBBeam
+     * elements ({vi, vk, ni, nk}), in list order.
+     */
+    protected double[][] saveLoads() {
+        double saved[][] = new double[nodeList.size() + beamList.size()][];
+        int k = 0;
+        for (Node node : nodeList) {
+            saved[k++] = new double[] {node.Fx, node.Fz, node.M};
+        }
+        for (Beam beam : beamList) {
+            if (beam instanceof EBBeam) {
+                EBBeam b = (EBBeam) beam;
+                saved[k] = new double[] {b.vi, b.vk, b.ni, b.nk};
+            }
+            k++;
+        }
+        return saved;
+    }
+
+    /// Restore the loads saved by saveLoads.
+    protected void restoreLoads(double saved[][]) {
+        caseLoads = false;
+        int k = 0;
+        for (Node node : nodeList) {
+            node.Fx = saved[k][0];
+            node.Fz = saved[k][1];
+            node.M = saved[k][2];
+            k++;
+        }
+        for (Beam beam : beamList) {
+            if (beam instanceof EBBeam) {
+                EBBeam b = (EBBeam) beam;
+                b.vi = saved[k][0];
+                b.vk = saved[k][1];
+                b.ni = saved[k][2];
+                b.nk = saved[k][3];
+            }
+            k++;
+        }
+    }
+
+    /// Replace the loads on nodes and beams by the loads of a load case.
+    protected void applyLoads(LoadCase loadCase) {
+        caseLoads = true;
+        for (Node node : nodeList) {
+            node.Fx = node.Fz = node.M = 0.;
+        }
+        for (Beam beam : beamList) {
+            if (beam instanceof EBBeam) {
+                EBBeam b = (EBBeam) beam;
+                b.vi = b.vk = b.ni = b.nk = 0.;
             }
         }
+        for (LoadCase.NodeLoad load : loadCase.getNodeLoads()) {
+            load.node.Fx += load.Fx;
+            load.node.Fz += load.Fz;
+            load.node.M += load.M;
+        }
+        for (LoadCase.BeamLoad load : loadCase.getBeamLoads()) {
+            load.beam.vi += load.vi;
+            load.beam.vk += load.vk;
+            load.beam.ni += load.ni;
+            load.beam.nk += load.nk;
+        }
+    }
+
+    /// Store the current results of nodes and beams as results of load case c.
+    protected void storeCaseResults(int c, int cases) {
+        for (Node node : nodeList) {
+            node.storeCaseResult(c, cases);
+        }
+        for (Beam beam : beamList) {
+            beam.storeCaseResult(c, cases);
+        }
+    }
+
+    /**
+     * Modal analysis of the system. With condenseMassless (default, see
+     * AnalysisOptions) the massless DOFs are condensed out and one mode
+     * results per DOF with mass (getModeCount); without it there is one
+     * mode per DOF, the additional ones of infinite frequency.
+     */
+    public void calculateModal() {
+        checkModal();
+        validLoadCases = false;
+
+        // Lumped masses of the DOFs
+        numberDOFs();
+        double m[] = massDiagonal();
+        int massDOFs = 0;
         for (int i = 0; i < r; ++i) {
-            for (int j = 0; j <= i; ++j) {
-                LK[i][j] = dK[i][j];
+            if (m[i] > 0.) {
+                ++massDOFs;
             }
         }
+        if (options.condenseMassless && (massDOFs > 0) && (massDOFs < r)) {
+            factorize();
+            calculateModalCondensed(m, massDOFs);
+            return;
+        }
+        if (options.bandEigen && (massDOFs > 0) && (massDOFs == r) && calculateModalBanded(m)) {
+            return;
+        }
+
+        double tmp[];
+        double A[][];
+
+        journal.invalidateFactorization();
+        update = null;
+        baseSg = null;
+        validLoadCases = false;
 
-        double LKT[][] = Matrix.transpose(LK);
+        // dense reduction unless the DOFs (or solverStrategy) ask for sparse storage
+        boolean sparse = (options.solverStrategy != null)
+                ? (options.solverStrategy != SolverStrategy.DENSE)
+                : (countDOFs() >= options.profileThreshold);
+        if (sparse) {
+            // Set up K in sparse storage and the lumped mass matrix
+            calculateSparseMatrices();
+            try {
+                sparseFactor = new SparseCholesky(KS, sparseOrdering());
+            } catch (IllegalArgumentException e) {
+                throw factorizationFailed(e);
+            }
 
-        double invLKT[][] = Matrix.invert(LKT);
-        double invLK[][] = Matrix.transpose(invLKT);
+            // Reduction to standard eigenvalue problem A = L^-1 M L^-T
+            // by triangular solves with the sparse factor
+            // (columns are independent and computed in parallel)
+            double reduced[][] = new double[r][];
+            Parallel.forRange(0, r, 16, (from, to) -> {
+                for (int j = from; j < to; ++j) {
+                    double e[] = new double[r];
+                    e[j] = 1.;
+                    e = sparseFactor.solveLT(e);
+                    for (int i = 0; i < r; ++i) {
+                        e[i] *= Md[i];
+                    }
+                    reduced[j] = sparseFactor.solveL(e);
+                }
+            });
+            A = reduced;
+            tmp = new double[r];
+        } else {
+            // Set up system matrices
+            calculateGlobalMatrices();
+            sparseFactor = null;
 
-        double A[][] = Matrix.multiply(invLK, Matrix.multiply(M, invLKT));
+            // Reduction to standard eigenvalue problem A = L^-1 M L^-T
+            // by triangular solves with the factor L of K, using the
+            // diagonal (lumped) M; A takes over the storage of K
+            tmp = new double[r];
+            denseFactor = Matrix.flatten(K);
+            try {
+                Solver.factorizeCholesky(denseFactor, r);
+            } catch (IllegalArgumentException e) {
+                throw factorizationFailed(e);
+            }
+            solver = SolverStrategy.DENSE;
+            factorized();
+            A = K;
+            K = null;
+            Solver.reduceCholesky(denseFactor, r, massDiagonal(), A);
+        }
 
         // Determine eigenvalues and eigenvectors
-        double V[][] = Eigen.cyclJac(A);
+        double V[][] = Eigen.cyclJacRelative(A);
 
         // Sort eigenvalues
         double eigenVal[] = new double[r];
@@ -217,7 +856,11 @@ public class Model implements Serializable, IModel {
             for (int j = 0; j < r; ++j) {
                 tmp[j] = V[j][eigenValIdx[i]];
             }
-            tmp = Matrix.multiply(invLKT, tmp);
+            if (sparseFactor != null) {
+                tmp = sparseFactor.solveLT(tmp);
+            } else {
+                Solver.substCholeskyLT(denseFactor, r, tmp);
+            }
 
             double scale = 0.;
             for (int j = 0; j < r; ++j) {
@@ -234,53 +877,685 @@ public class Model implements Serializable, IModel {
         setMode(0);
     }
 
-    /** Eigenform i aktivieren */
-    public void setMode(int i) {
-        if (validCalculation) {
-            mode = i;
-            postCalculate(EigenVec[i]);
-        }
-    }
-
-    public int getMode() {
-        return mode;
-    }
+    /**
+     * Modal analysis of a narrow-band system with mass on every DOF.
+     * With the diagonal M the eigenproblem is transformed symmetrically
+     * to A = M^-1/2 K M^-1/2, which keeps the profile of K; A is
+     * tridiagonalized within its band (Eigen.bandEigen), which costs
+     * O(r^2 b) instead of O(r^3) per Jacobi sweep.
+     * Returns false without a result if the half bandwidth b is too
+     * large for the band reduction to pay off.
+     */
+    protected boolean calculateModalBanded(double m[]) {
+        calculateProfileMatrices();
+        journal.invalidateFactorization();
+        update = null;
+        baseSg = null;
 
-    public double getFreq() {
-        if (f != null) {
-            return f[mode];
+        int b = 0;
+        for (int i = 0; i < r; ++i) {
+            b = Math.max(b, i - KP.getMinCol(i));
         }
-        return 0.0;
-    }
-
-    public void nextMode() {
-        if ((validCalculation) && (EigenVec != null)) {
-            ++mode;
-            if (mode >= r) {
-                mode = 0;
-            }
-            postCalculate(EigenVec[mode]);
+        if (b * b > 16 * r) {
+            KP = null;
+            return false;
         }
-    }
 
-    public void prevMode() {
-        if ((validCalculation) && (EigenVec != null)) {
-            --mode;
-            if (mode < 0) {
-                mode = r - 1;
+        // A = M^-1/2 K M^-1/2 in the storage of K
+        double scale[] = new double[r];
+        for (int i = 0; i < r; ++i) {
+            scale[i] = 1. / Math.sqrt(m[i]);
+        }
+        for (int i = 0; i < r; ++i) {
+            for (int j = KP.getMinCol(i); j <= i; ++j) {
+                KP.setUnchecked(i, j, KP.getUnchecked(i, j) * scale[i] * scale[j]);
             }
-            postCalculate(EigenVec[mode]);
         }
-    }
+        double lambda[] = new double[r];
+        double V[][] = Eigen.bandEigen(KP, lambda);
+        KP = null;
 
-    /**
-     * Calculate the global stiffness and mass matrices as well as
-     * the global load vector.
+        // Back-transformation x = M^-1/2 z (eigenvalues ascending)
+        EigenVec = new double[r][r];
+        f = new double[r];
+        for (int i = 0; i < r; ++i) {
+            f[i] = Math.sqrt(lambda[i]) / (2. * Math.PI);
+
+            double x[] = EigenVec[i];
+            double max = 0.;
+            for (int j = 0; j < r; ++j) {
+                x[j] = V[j][i] * scale[j];
+                max = Math.max(max, Math.abs(x[j]));
+            }
+            for (int j = 0; j < r; ++j) {
+                x[j] = 0.01 * x[j] / max;
+            }
+        }
+
+        validCalculation = true;
+        setMode(0);
+        return true;
+    }
+
+    /**
+     * Modal analysis reduced to the DOFs with mass (Guyan condensation).
+     * The massless DOFs o are condensed out of K x = lambda M x:
+     * K_red = K_mm - K_mo K_oo^-1 K_om. This is exact for the finite
+     * eigenvalues, since no inertia forces act on the massless DOFs.
+     * K_red is not formed: its inverse is the m-block of K^-1, which
+     * the static factorization of K gives with one (blocked) solve
+     * for the unit vectors of the mass DOFs. The columns of this solve
+     * also recover the condensed part of the mode shapes.
+     * Only the massDOFs finite eigenmodes are returned, not one per DOF.
      */
-    protected void calculateGlobalMatrices() {
-        // Determine and number the global degrees of freedom
-        r = 0;
+    protected void calculateModalCondensed(double m[], int massDOFs) {
+        int nm = massDOFs;
+        int idx[] = new int[nm];
+        double sqrtM[] = new double[nm];
+        for (int i = 0, k = 0; i < r; ++i) {
+            if (m[i] > 0.) {
+                sqrtM[k] = Math.sqrt(m[i]);
+                idx[k++] = i;
+            }
+        }
+
+        // F = K^-1 E_m (r x nm, row-major): flexibility at the mass DOFs
+        double F[] = new double[r * nm];
+        for (int j = 0; j < nm; ++j) {
+            F[idx[j] * nm + j] = 1.;
+        }
+        substitute(F, nm);
+
+        // Standard form A = M_m^1/2 K_red^-1 M_m^1/2 with eigenvalues 1/lambda
+        double A[][] = new double[nm][nm];
+        for (int i = 0; i < nm; ++i) {
+            for (int j = 0; j <= i; ++j) {
+                double a = 0.5 * (F[idx[i] * nm + j] + F[idx[j] * nm + i]) * sqrtM[i] * sqrtM[j];
+                A[i][j] = a;
+                A[j][i] = a;
+            }
+        }
+        // relative threshold: the eigenvalues 1/lambda span the squared
+        // frequency range, the absolute tolerance of cyclJac would lose
+        // the small ones
+        double V[][] = Eigen.cyclJacRelative(A);
+
+        // Sort eigenvalues (descending 1/lambda: ascending frequency)
+        Integer order[] = new Integer[nm];
+        for (int i = 0; i < nm; ++i) {
+            order[i] = i;
+        }
+        double diag[] = new double[nm];
+        for (int i = 0; i < nm; ++i) {
+            diag[i] = A[i][i];
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(diag[b], diag[a]));
+
+        // Back-transformation: x = F M_m^1/2 z (times lambda, dropped by scaling)
+        EigenVec = new double[nm][];
+        f = new double[nm];
+        double z[] = new double[nm];
+        for (int i = 0; i < nm; ++i) {
+            int col = order[i];
+            f[i] = Math.sqrt(1. / diag[col]) / (2. * Math.PI);
+
+            for (int j = 0; j < nm; ++j) {
+                z[j] = V[j][col] * sqrtM[j];
+            }
+            double x[] = new double[r];
+            double scale = 0.;
+            for (int k = 0; k < r; ++k) {
+                double s = 0.;
+                for (int j = 0; j < nm; ++j) {
+                    s += F[k * nm + j] * z[j];
+                }
+                x[k] = s;
+                scale = Math.max(scale, Math.abs(s));
+            }
+            for (int k = 0; k < r; ++k) {
+                x[k] = 0.01 * x[k] / scale;
+            }
+            EigenVec[i] = x;
+        }
+
+        validCalculation = true;
+        setMode(0);
+    }
+
+    /**
+     * Modal analysis for the lowest modes only. The eigenproblem
+     * K x = lambda M x is solved with the shift-invert Lanczos method
+     * (Lanczos) against the static factorization of K, so only O(k r)
+     * memory is needed for the modes. If modes is not positive or not
+     * smaller than the number of DOFs, all modes are computed
+     * (calculateModal()).
+     * Fewer modes result if fewer DOFs carry mass.
+     */
+    public void calculateModal(int modes) {
+        checkModal();
+        if ((modes <= 0) || (modes >= countDOFs())) {
+            calculateModal();
+            return;
+        }
+        validLoadCases = false;
+
+        // K x = b with the factorization of the static analysis
+        factorize();
+        double m[] = massDiagonal();
+        LinearOperator A = new LinearOperator() {
+            @Override
+            public int getN() {
+                return r;
+            }
+
+            @Override
+            public void apply(double x[], double y[]) {
+                for (int i = 0; i < r; ++i) {
+                    y[i] = m[i] * x[i];
+                }
+                substitute(y);
+            }
+        };
+
+        Lanczos lanczos = new Lanczos(A, m);
+        int found = lanczos.solve(modes);
+        if (found == 0) {
+            throw new ModelException("no DOFs with mass");
+        }
+        double theta[] = lanczos.getEigenvalues();
+        double X[][] = lanczos.getEigenvectors();
+
+        EigenVec = new double[found][];
+        f = new double[found];
+        for (int i = 0; i < found; ++i) {
+            double omega = Math.sqrt(1. / theta[i]);
+            f[i] = omega / (2. * Math.PI);
+
+            double scale = 0.;
+            for (int j = 0; j < r; ++j) {
+                if (Math.abs(X[i][j]) > scale) {
+                    scale = Math.abs(X[i][j]);
+                }
+            }
+            for (int j = 0; j < r; ++j) {
+                X[i][j] = 0.01 * X[i][j] / scale;
+            }
+            EigenVec[i] = X[i];
+        }
+
+        validCalculation = true;
+        setMode(0);
+    }
+
+    /**
+     * Superelements carry no mass matrix (static condensation is exact
+     * for static analysis only), so models with superelements cannot
+     * be analysed modally.
+     */
+    protected void checkModal() {
+        if (!superelementList.isEmpty()) {
+            throw new ModelException("modal analysis not supported for superelements");
+        }
+    }
+
+    /// Diagonal of the lumped mass matrix (compiled model).
+    protected double[] massDiagonal() {
+        double d[] = new double[r];
+        compiled.massDiagonal(d);
+        return d;
+    }
+
+    /** Eigenform i aktivieren */
+    public void setMode(int i) {
+        if (validCalculation) {
+            mode = i;
+            postCalculate(EigenVec[i]);
+        }
+    }
+
+    public int getMode() {
+        return mode;
+    }
+
+    public double getFreq() {
+        if (f != null) {
+            return f[mode];
+        }
+        return 0.0;
+    }
+
+    /**
+     * Number of computed eigenmodes (0 before a modal analysis): with
+     * condenseMassless the number of DOFs with mass, else of all DOFs
+     * (calculateModal()), or the requested modes (calculateModal(int)).
+     */
+    public int getModeCount() {
+        return (f != null) ? f.length : 0;
+    }
+
+    /// Eigenfrequency of mode i.
+    public double getFreq(int i) {
+        return f[i];
+    }
+
+    public void nextMode() {
+        if ((validCalculation) && (EigenVec != null)) {
+            ++mode;
+            if (mode >= EigenVec.length) {
+                mode = 0;
+            }
+            postCalculate(EigenVec[mode]);
+        }
+    }
+
+    public void prevMode() {
+        if ((validCalculation) && (EigenVec != null)) {
+            --mode;
+            if (mode < 0) {
+                mode = EigenVec.length - 1;
+            }
+            postCalculate(EigenVec[mode]);
+        }
+    }
+
+    /**
+     * The stored factorization belongs to the current K: remember the
+     * condensed stiffness of the superelements it includes.
+     */
+    protected void factorized() {
+        journal.factorized();
+        baseCondensed = condensedStiffness();
+    }
+
+    /// Current condensed stiffness matrices of the superelements.
+    protected double[][][] condensedStiffness() {
+        double condensed[][][] = new double[superelementList.size()][][];
+        for (int i = 0; i < condensed.length; i++) {
+            condensed[i] = superelementList.get(i).getSg();
+        }
+        return condensed;
+    }
+
+    /**
+     * True if the condensed stiffness of a superelement changed since the
+     * factorization (the substructures are not tracked by the journal;
+     * Substructure replaces its condensed matrices on every change).
+     */
+    protected boolean superelementsChanged() {
+        return superelementsChanged(baseCondensed);
+    }
+
+    /// True if the condensed stiffness of a superelement differs from base.
+    protected boolean superelementsChanged(double base[][][]) {
+        if ((base == null) || (base.length != superelementList.size())) {
+            return true;
+        }
+        for (int i = 0; i < base.length; i++) {
+            if (superelementList.get(i).getSg() != base[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * True if the stored factorization belongs to the current stiffness
+     * and to the given backend.
+     */
+    protected boolean isFactorizationCurrent(SolverStrategy strategy) {
+        return hasFactorization(strategy) && !journal.needsFactorization() && !superelementsChanged();
+    }
+
+    /// True if a factor of the given backend is stored.
+    protected boolean hasFactorization(SolverStrategy strategy) {
+        return (solver == strategy) && strategy.hasFactorization(this);
+    }
+
+    /**
+     * Automatic choice of the backend of the static analysis from the
+     * number of DOFs, the bandwidth of K and the maximum heap: dense
+     * below profileThreshold DOFs, profile storage below sparseThreshold
+     * DOFs or up to narrowBand, the sparse Cholesky solver above. If the
+     * (estimated) factor of the chosen direct solver needs more than half
+     * the heap, the next sparser backend is taken, finally the iterative
+     * solver. The DOFs must be numbered (numberDOFs).
+     */
+    protected SolverStrategy selectSolver() {
+        int dofs = r;
+        double heap = 0.5 * Runtime.getRuntime().maxMemory();
+        if ((dofs < options.profileThreshold) && (16. * dofs * dofs < heap)) {
+            return SolverStrategy.DENSE;
+        }
+
+        // bandwidth and profile of K in the numbering of the assembly
+        ProfileStatistics profile = profileAfter;
+        // profile factor, with incrementalAssembly the assembled K as well
+        double profileBytes = (options.incrementalAssembly ? 16. : 8.) * profile.getProfile();
+        if (((dofs < options.sparseThreshold) || (profile.getBandwidth() <= options.narrowBand))
+                && (profileBytes < heap)) {
+            return SolverStrategy.PROFILE;
+        }
+
+        // fill of the nested dissection factor: ~ c r log2 r for plane
+        // frames (c = 3.5 .. 5.5), at most the profile
+        double fill = Math.min(6. * dofs * Math.log(Math.max(dofs, 2)) / Math.log(2.),
+                (double) profile.getProfile());
+        if (12. * fill < heap) {
+            return SolverStrategy.SPARSE;
+        }
+        return SolverStrategy.ITERATIVE;
+    }
+
+    /**
+     * Backend of the stored factorization (of the last static
+     * calculation), null if there is none.
+     */
+    public SolverStrategy getSolver() {
+        return solver;
+    }
+
+    /**
+     * Settings of the analysis of this model; changes take effect at the
+     * next calculation.
+     */
+    public AnalysisOptions getOptions() {
+        return options;
+    }
+
+    public void setOptions(AnalysisOptions options) {
+        this.options = options;
+    }
+
+    /**
+     * Count the global degrees of freedom without numbering them.
+     */
+    protected int countDOFs() {
+        int n = 0;
         for (Node node : nodeList) {
+            if (!node.cX) {
+                n++;
+            }
+            if (!node.cZ) {
+                n++;
+            }
+            if (!node.cR) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Profile statistics of K in node insertion order, as determined by
+     * the last calculation (null if no calculation was done yet).
+     */
+    public ProfileStatistics getProfileStatisticsBefore() {
+        return profileBefore;
+    }
+
+    /**
+     * Profile statistics of K in the numbering used by the last
+     * calculation (null if no calculation was done yet).
+     */
+    public ProfileStatistics getProfileStatisticsAfter() {
+        return profileAfter;
+    }
+
+    /**
+     * Preconditioner of the iterative solver for the assembled K. The
+     * algebraic multigrid preconditioner aggregates the DOFs node by
+     * node and uses the rigid body modes of the plane as near null space.
+     */
+    protected Preconditioner createPreconditioner(CSRMatrix A) {
+        if (options.preconditioning == ConjugateGradient.Preconditioning.AMG) {
+            return new AMGPreconditioner(A, dofNodes(), rigidBodyModes());
+        }
+        return ConjugateGradient.createPreconditioner(options.preconditioning, A);
+    }
+
+    /// Index of the node of every global DOF.
+    protected int[] dofNodes() {
+        int node[] = new int[r];
+        for (int i = 0; i < nodeList.size(); i++) {
+            Node n = nodeList.get(i);
+            if (n.nX != 0) {
+                node[n.nX - 1] = i;
+            }
+            if (n.nZ != 0) {
+                node[n.nZ - 1] = i;
+            }
+            if (n.nR != 0) {
+                node[n.nR - 1] = i;
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Rigid body modes of the plane in the global DOFs: translations in
+     * x and z and the rotation about the centroid of the nodes
+     * (u_x = z phi, u_z = -x phi).
+     */
+    protected double[][] rigidBodyModes() {
+        double xc = 0.;
+        double zc = 0.;
+        for (Node node : nodeList) {
+            xc += node.x;
+            zc += node.z;
+        }
+        xc /= Math.max(nodeList.size(), 1);
+        zc /= Math.max(nodeList.size(), 1);
+        double modes[][] = new double[3][r];
+        for (Node node : nodeList) {
+            if (node.nX != 0) {
+                modes[0][node.nX - 1] = 1.;
+                modes[2][node.nX - 1] = node.z - zc;
+            }
+            if (node.nZ != 0) {
+                modes[1][node.nZ - 1] = 1.;
+                modes[2][node.nZ - 1] = -(node.x - xc);
+            }
+            if (node.nR != 0) {
+                modes[2][node.nR - 1] = 1.;
+            }
+        }
+        return modes;
+    }
+
+    /**
+     * Iterative solver of the last static calculation (iterations,
+     * residual and convergence history), null if a direct solver was used.
+     */
+    public ConjugateGradient getIterativeSolver() {
+        return iteration;
+    }
+
+    /**
+     * Mixed precision solver of the current factorization (refinement
+     * steps and backward errors of the last solve), null if another
+     * solver is used.
+     */
+    public MixedCholesky getMixedPrecisionSolver() {
+        return (sparseFactor instanceof MixedCholesky) ? (MixedCholesky) sparseFactor : null;
+    }
+
+    /**
+     * Domain decomposition of the current factorization (subdomains and
+     * interface size), null if another solver is used.
+     */
+    public DomainDecomposition getDomainDecomposition() {
+        return domainFactor;
+    }
+
+    /**
+     * Determine and number the global degrees of freedom.
+     * With renumberDOFs set, the nodes are numbered in reverse
+     * Cuthill-McKee order of the node-beam connectivity graph, if
+     * this lowers the estimated cost of the profile factorization.
+     * The numbering is kept while the change journal records no change
+     * of topology or supports; the compiled model is always renewed.
+     */
+    protected void numberDOFs() {
+        if (!journal.needsNumbering() && (compiled != null) && (numberedWithRenumbering == options.renumberDOFs)) {
+            // topology and supports unchanged: the numbering of the nodes stays valid
+            compiled = new CompiledModel(nodeList, beamList);
+            return;
+        }
+        numberDOFs(nodeList);
+        profileBefore = new ProfileStatistics(profileEnvelope());
+        profileAfter = profileBefore;
+
+        if (options.renumberDOFs && (nodeList.size() > 2)) {
+            numberDOFs(renumberedNodes());
+            ProfileStatistics renumbered = new ProfileStatistics(profileEnvelope());
+            if (renumbered.getOperations() < profileBefore.getOperations()) {
+                profileAfter = renumbered;
+            } else {
+                // insertion order is already better (e.g. regular grids)
+                numberDOFs(nodeList);
+            }
+        }
+        numberedWithRenumbering = options.renumberDOFs;
+        journal.numbered();
+        compiled = new CompiledModel(nodeList, beamList);
+    }
+
+    /**
+     * Node graph in compressed form ({xadj, adj}, see Ordering): two
+     * nodes (indices in nodeList) are adjacent if a beam element or a
+     * superelement connects them.
+     */
+    protected int[][] nodeGraph() {
+        int n = nodeList.size();
+        HashMap<Node, Integer> index = new HashMap<Node, Integer>();
+        for (int i = 0; i < n; i++) {
+            index.put(nodeList.get(i), i);
+        }
+
+        int degree[] = new int[n];
+        for (Beam beam : beamList) {
+            if (beam.n1 != beam.n2) {
+                degree[index.get(beam.n1)]++;
+                degree[index.get(beam.n2)]++;
+            }
+        }
+        for (Superelement element : superelementList) {
+            for (int a = 0; a < element.nodes.length; a++) {
+                degree[index.get(element.nodes[a])] += element.nodes.length - 1;
+            }
+        }
+        int xadj[] = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            xadj[i + 1] = xadj[i] + degree[i];
+        }
+        int adj[] = new int[xadj[n]];
+        int fill[] = new int[n];
+        for (Beam beam : beamList) {
+            if (beam.n1 != beam.n2) {
+                int i = index.get(beam.n1);
+                int j = index.get(beam.n2);
+                adj[xadj[i] + fill[i]++] = j;
+                adj[xadj[j] + fill[j]++] = i;
+            }
+        }
+        for (Superelement element : superelementList) {
+            for (int a = 0; a < element.nodes.length; a++) {
+                int i = index.get(element.nodes[a]);
+                for (int b = 0; b < element.nodes.length; b++) {
+                    if (b != a) {
+                        adj[xadj[i] + fill[i]++] = index.get(element.nodes[b]);
+                    }
+                }
+            }
+        }
+
+        // remove duplicate edges
+        int last[] = new int[n];
+        Arrays.fill(last, -1);
+        int cxadj[] = new int[n + 1];
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            cxadj[i] = k;
+            for (int e = xadj[i]; e < xadj[i + 1]; e++) {
+                if (last[adj[e]] != i) {
+                    last[adj[e]] = i;
+                    adj[k++] = adj[e];
+                }
+            }
+        }
+        cxadj[n] = k;
+        return new int[][] {cxadj, Arrays.copyOf(adj, k)};
+    }
+
+    /**
+     * Nodes in reverse Cuthill-McKee order of the node graph.
+     */
+    protected List<Node> renumberedNodes() {
+        int graph[][] = nodeGraph();
+        int perm[] = Ordering.reverseCuthillMcKee(graph[0], graph[1]);
+        List<Node> order = new ArrayList<Node>(perm.length);
+        for (int i = 0; i < perm.length; i++) {
+            order.add(nodeList.get(perm[i]));
+        }
+        return order;
+    }
+
+    /**
+     * Fill reducing ordering of the global DOFs for the sparse Cholesky
+     * factorization: nested dissection of the node graph, the DOFs of
+     * a node stay together (and form supernodes).
+     */
+    protected int[] sparseOrdering() {
+        int graph[][] = nodeGraph();
+        int nodePerm[] = Ordering.nestedDissection(graph[0], graph[1]);
+        int perm[] = new int[r];
+        int k = 0;
+        for (int i = 0; i < nodePerm.length; i++) {
+            Node node = nodeList.get(nodePerm[i]);
+            if (node.nX != 0) {
+                perm[k++] = node.nX - 1;
+            }
+            if (node.nZ != 0) {
+                perm[k++] = node.nZ - 1;
+            }
+            if (node.nR != 0) {
+                perm[k++] = node.nR - 1;
+            }
+        }
+        return perm;
+    }
+
+    /**
+     * Subdomain of every global DOF for the domain decomposition
+     * (-1: interface): partition of the node graph by recursive
+     * bisection, the DOFs of a node stay together.
+     */
+    protected int[] domainPartition() {
+        int graph[][] = nodeGraph();
+        int parts = (options.subdomains > 0) ? options.subdomains : Parallel.getParallelism();
+        int nodeDomain[] = Ordering.partition(graph[0], graph[1], parts);
+        int domain[] = new int[r];
+        for (int i = 0; i < nodeDomain.length; i++) {
+            Node node = nodeList.get(i);
+            if (node.nX != 0) {
+                domain[node.nX - 1] = nodeDomain[i];
+            }
+            if (node.nZ != 0) {
+                domain[node.nZ - 1] = nodeDomain[i];
+            }
+            if (node.nR != 0) {
+                domain[node.nR - 1] = nodeDomain[i];
+            }
+        }
+        return domain;
+    }
+
+    /**
+     * Number the global degrees of freedom in the given node order.
+     */
+    protected void numberDOFs(List<Node> order) {
+        r = 0;
+        for (Node node : order) {
             if (!node.cX) {
                 r++;
                 node.nX = r;
@@ -306,152 +1581,576 @@ public class Model implements Serializable, IModel {
         if (r == 0) {
             throw new ModelException("no global DOFs");
         }
+    }
 
-        K = new double[r][r];
-        M = new double[r][r];
-        p = new double[r];
-        for (int n = 0; n < r; n++) {
-            p[n] = 0.;
+    /**
+     * Scatter of the element matrices of one beam into the global
+     * storage: location vector, Sg and Mg (flat 6x6).
+     */
+    protected interface ElementScatter {
+        void scatter(int locationVector[], double Sg[], double Mg[]);
+    }
+
+    /**
+     * Compute the element matrices of all beams with the element kernel
+     * of the compiled model and scatter them into the global storage; in
+     * parallel by beam colors if parallelAssembly is set.
+     */
+    protected void assembleBeams(ElementScatter scatter) {
+        assembledSg = null;
+        assembledDOFs = null;
+        double elementSg[][] = options.incrementalAssembly ? new double[compiled.beams][] : null;
+        if (!options.parallelAssembly) {
+            assembleBeams(null, 0, compiled.beams, scatter, elementSg);
+        } else {
+            int colors[][] = beamColors();
+            for (int c = 0; c < colors.length - 1; c++) {
+                int beams[] = colors[c];
+                Parallel.forRange(0, beams.length, 64, (from, to) ->
+                        assembleBeams(beams, from, to, scatter, elementSg));
+            }
+            int rest[] = colors[colors.length - 1];
+            assembleBeams(rest, 0, rest.length, scatter, elementSg);
         }
+        assembledSg = elementSg;
+    }
 
-        // Generate the location matrix and the system stiffness matrix K
-        for (Beam beam : beamList) {
-            int locationVector[] = new int[6];
-            locationVector[0] = beam.n1.nX;
-            locationVector[1] = beam.n1.nZ;
-            locationVector[2] = beam.n1.nR;
-            locationVector[3] = beam.n2.nX;
-            locationVector[4] = beam.n2.nZ;
-            locationVector[5] = beam.n2.nR;
-
-            // Berechnung der Elementmatrizen und des Elementlastvektors
-            beam.calSg();
-
-            // Aufaddieren der Elementeinträge in die Systemmatrizen
+    /**
+     * Assemble the beams beams[from .. to-1] (beam indices, null: from ..
+     * to-1 directly) with own scratch buffers; their Sg are kept in
+     * elementSg unless it is null.
+     */
+    protected void assembleBeams(int beams[], int from, int to, ElementScatter scatter, double elementSg[][]) {
+        int locationVector[] = new int[6];
+        double Sg[] = new double[36];
+        double Mg[] = new double[36];
+        CompiledModel.Workspace work = new CompiledModel.Workspace();
+        for (int k = from; k < to; k++) {
+            int e = (beams != null) ? beams[k] : k;
+            compiled.locationVector(e, locationVector);
+            compiled.stiffness(e, Sg, Mg, work);
+            if (elementSg != null) {
+                elementSg[e] = Sg.clone();
+            }
+            scatter.scatter(locationVector, Sg, Mg);
+        }
+    }
+
+    /**
+     * Beams to re-assemble into the K of the last assembly (assembled:
+     * its storage for the current backend, null if not kept): the beams
+     * whose Sg changed since (ChangeJournal.changedBeams). Returns null
+     * if K has to be assembled completely: no kept K, changed topology,
+     * supports, DOF numbering or superelements, or more than half of the
+     * beams changed.
+     */
+    protected int[] reassemblyBeams(Object assembled) {
+        if (!options.incrementalAssembly || (assembled == null) || (assembledSg == null)
+                || (assembledSg.length != compiled.beams) || journal.isStructureChanged()
+                || !Arrays.equals(assembledDOFs, compiled.dofs)
+                || superelementsChanged(assembledCondensed)) {
+            return null;
+        }
+        int changed[] = journal.changedBeams(beamList);
+        return (2 * changed.length <= compiled.beams) ? changed : null;
+    }
+
+    /**
+     * Re-assemble the given beams: scatter the difference of their
+     * current Sg and the Sg contained in K (Mg is null) and keep the new
+     * Sg.
+     */
+    protected void reassembleBeams(int beams[], ElementScatter scatter) {
+        int locationVector[] = new int[6];
+        double Sg[] = new double[36];
+        double dSg[] = new double[36];
+        CompiledModel.Workspace work = new CompiledModel.Workspace();
+        for (int e : beams) {
+            compiled.locationVector(e, locationVector);
+            compiled.stiffness(e, Sg, null, work);
+            double old[] = assembledSg[e];
+            for (int k = 0; k < 36; k++) {
+                dSg[k] = Sg[k] - old[k];
+            }
+            scatter.scatter(locationVector, dSg, null);
+            assembledSg[e] = Sg.clone();
+        }
+    }
+
+    /// K is assembled: remember DOF numbering and superelements it belongs to.
+    protected void assembled() {
+        assembledDOFs = compiled.dofs;
+        assembledCondensed = condensedStiffness();
+    }
+
+    /**
+     * Greedy coloring of the beams by shared nodes, in beam order: beams
+     * of one color have no node in common, so their entries in K are
+     * disjoint. Returns the beam indices (ascending) per color; the last
+     * group holds the beams that found no free color among the first 64
+     * (nodes with very many beams) and is assembled serially.
+     */
+    protected int[][] beamColors() {
+        // colors used at the nodes as bit masks
+        long used[] = new long[compiled.nodes];
+        int color[] = new int[compiled.beams];
+        int count[] = new int[65];
+        for (int b = 0; b < color.length; b++) {
+            int i = compiled.ends[2 * b];
+            int j = compiled.ends[2 * b + 1];
+            long free = ~(used[i] | used[j]);
+            int c = (free == 0L) ? 64 : Long.numberOfTrailingZeros(free);
+            if (c < 64) {
+                used[i] |= 1L << c;
+                used[j] |= 1L << c;
+            }
+            color[b] = c;
+            count[c]++;
+        }
+
+        int colors = 64;
+        while ((colors > 0) && (count[colors - 1] == 0)) {
+            colors--;
+        }
+        int groups[][] = new int[colors + 1][];
+        for (int c = 0; c < colors; c++) {
+            groups[c] = new int[count[c]];
+        }
+        groups[colors] = new int[count[64]];
+        int fill[] = new int[colors + 1];
+        for (int b = 0; b < color.length; b++) {
+            int c = Math.min(color[b], colors);
+            groups[c][fill[c]++] = b;
+        }
+        return groups;
+    }
+
+    /**
+     * Location vector of a beam element: global DOF numbers (1-based)
+     * of the element end DOFs, 0 for constrained DOFs.
+     */
+    protected int[] locationVector(Beam beam) {
+        return locationVector(beam, new int[6]);
+    }
+
+    /// Location vector of a beam written into locationVector (6 entries).
+    protected int[] locationVector(Beam beam, int locationVector[]) {
+        locationVector[0] = beam.n1.nX;
+        locationVector[1] = beam.n1.nZ;
+        locationVector[2] = beam.n1.nR;
+        locationVector[3] = beam.n2.nX;
+        locationVector[4] = beam.n2.nZ;
+        locationVector[5] = beam.n2.nR;
+        return locationVector;
+    }
+
+    /**
+     * Location vector of a superelement: global DOF numbers (1-based)
+     * of the DOFs of its nodes, 0 for constrained DOFs.
+     */
+    protected int[] locationVector(Superelement element) {
+        int locationVector[] = new int[3 * element.nodes.length];
+        for (int k = 0; k < element.nodes.length; k++) {
+            locationVector[3 * k] = element.nodes[k].nX;
+            locationVector[3 * k + 1] = element.nodes[k].nZ;
+            locationVector[3 * k + 2] = element.nodes[k].nR;
+        }
+        return locationVector;
+    }
+
+    /**
+     * Calculate the global stiffness matrix and the global load vector.
+     * The lumped mass matrix is diagonal and is not assembled densely
+     * (see massDiagonal). K is only updated for the changed beams if
+     * possible (see incrementalAssembly).
+     */
+    protected void calculateGlobalMatrices() {
+        // Determine and number the global degrees of freedom
+        numberDOFs();
+
+        int changed[] = reassemblyBeams(K);
+        if (changed == null) {
+            K = new double[r][r];
+        }
+        M = null;
+        KP = null;
+        KA = null;
+        KS = null;
+        denseFactor = null;
+        sparseFactor = null;
+        domainFactor = null;
+        KI = null;
+        preconditioner = null;
+
+        // Element matrices and load vectors, scattered into K
+        ElementScatter scatter = (locationVector, Sg, Mg) -> {
             for (int i = 0; i < 6; i++) {
                 if (locationVector[i] != 0) {
-                    K[locationVector[i] - 1][locationVector[i] - 1] += beam.Sg[i][i];
-                    M[locationVector[i] - 1][locationVector[i] - 1] += beam.Mg[i][i];
+                    K[locationVector[i] - 1][locationVector[i] - 1] += Sg[6 * i + i];
                 }
                 for (int j = i + 1; j < 6; j++) {
                     if ((locationVector[i] != 0) && (locationVector[j] != 0)) {
-                        K[locationVector[i] - 1][locationVector[j] - 1] += beam.Sg[i][j];
-                        K[locationVector[j] - 1][locationVector[i] - 1] += beam.Sg[j][i];
-                        M[locationVector[i] - 1][locationVector[j] - 1] += beam.Mg[i][j];
-                        M[locationVector[j] - 1][locationVector[i] - 1] += beam.Mg[j][i];
+                        K[locationVector[i] - 1][locationVector[j] - 1] += Sg[6 * i + j];
+                        K[locationVector[j] - 1][locationVector[i] - 1] += Sg[6 * j + i];
                     }
                 }
             }
-
-            // Aufaddieren des Elementlastvektors in den Systemlastvektor
-            if (!beam.n1.cX) {
-                p[beam.n1.nX - 1] -= beam.Lg[0];
+        };
+        if (changed != null) {
+            reassembleBeams(changed, scatter);
+        } else {
+            assembleBeams(scatter);
+            for (Superelement element : superelementList) {
+                int locationVector[] = locationVector(element);
+                double Sg[][] = superelementStiffness(element);
+                for (int i = 0; i < locationVector.length; i++) {
+                    for (int j = 0; j < locationVector.length; j++) {
+                        if ((locationVector[i] != 0) && (locationVector[j] != 0)) {
+                            K[locationVector[i] - 1][locationVector[j] - 1] += Sg[i][j];
+                        }
+                    }
+                }
             }
-            if (!beam.n1.cZ) {
-                p[beam.n1.nZ - 1] -= beam.Lg[1];
+            assembled();
+        }
+
+        calculateLoadVector();
+        journal.clear();
+    }
+
+    /**
+     * Symbolic pass of the profile assembly: determine the first occupied
+     * column of every row of the lower triangle of K from the location
+     * vectors, before any values are written.
+     */
+    protected int[] profileEnvelope() {
+        int minCol[] = new int[r];
+        for (int i = 0; i < r; i++) {
+            minCol[i] = i;
+        }
+
+        List<int[]> locationVectors = new ArrayList<int[]>();
+        for (Beam beam : beamList) {
+            locationVectors.add(locationVector(beam));
+        }
+        for (Superelement element : superelementList) {
+            locationVectors.add(locationVector(element));
+        }
+        for (int locationVector[] : locationVectors) {
+            int first = r;
+            for (int i = 0; i < locationVector.length; i++) {
+                if (locationVector[i] != 0) {
+                    first = Math.min(first, locationVector[i] - 1);
+                }
             }
-            if (!beam.n1.cR) {
-                p[beam.n1.nR - 1] -= beam.Lg[2];
+            for (int i = 0; i < locationVector.length; i++) {
+                if (locationVector[i] != 0) {
+                    minCol[locationVector[i] - 1] = Math.min(minCol[locationVector[i] - 1], first);
+                }
             }
-            if (!beam.n2.cX) {
-                p[beam.n2.nX - 1] -= beam.Lg[3];
+        }
+        return minCol;
+    }
+
+    /**
+     * Calculate the global stiffness matrix in profile storage as well as
+     * the global load vector. Only the lower triangle of K is stored, so
+     * memory grows with the profile instead of with r*r.
+     * The mass matrix is not assembled. With incrementalAssembly, K is
+     * assembled into KA and only updated for the changed beams if
+     * possible; KP is a copy of KA for the factorization.
+     */
+    protected void calculateProfileMatrices() {
+        // Determine and number the global degrees of freedom
+        numberDOFs();
+
+        int changed[] = reassemblyBeams(KA);
+        PMatrix A = KA;
+        if (changed == null) {
+            // Symbolic phase: allocate the complete profile once
+            int minCol[] = profileEnvelope();
+            int maxCol[] = new int[r];
+            for (int i = 0; i < r; i++) {
+                maxCol[i] = i + 1;
             }
-            if (!beam.n2.cZ) {
-                p[beam.n2.nZ - 1] -= beam.Lg[4];
+            A = new PMatrix(r, r, minCol, maxCol);
+        }
+        K = null;
+        M = null;
+        KP = null;
+        KA = null;
+        KS = null;
+        denseFactor = null;
+        sparseFactor = null;
+        domainFactor = null;
+        KI = null;
+        preconditioner = null;
+
+        // Numeric phase: add the element entries into the preallocated profile
+        PMatrix profile = A;
+        ElementScatter scatter = (locationVector, Sg, Mg) -> {
+            for (int i = 0; i < 6; i++) {
+                if (locationVector[i] == 0) {
+                    continue;
+                }
+                for (int j = 0; j < 6; j++) {
+                    if ((locationVector[j] != 0) && (locationVector[j] <= locationVector[i])) {
+                        profile.addUnchecked(locationVector[i] - 1, locationVector[j] - 1, Sg[6 * i + j]);
+                    }
+                }
             }
-            if (!beam.n2.cR) {
-                p[beam.n2.nR - 1] -= beam.Lg[5];
+        };
+        if (changed != null) {
+            reassembleBeams(changed, scatter);
+        } else {
+            assembleBeams(scatter);
+            for (Superelement element : superelementList) {
+                int locationVector[] = locationVector(element);
+                double Sg[][] = superelementStiffness(element);
+                for (int i = 0; i < locationVector.length; i++) {
+                    if (locationVector[i] == 0) {
+                        continue;
+                    }
+                    for (int j = 0; j < locationVector.length; j++) {
+                        if ((locationVector[j] != 0) && (locationVector[j] <= locationVector[i])) {
+                            profile.addUnchecked(locationVector[i] - 1, locationVector[j] - 1, Sg[i][j]);
+                        }
+                    }
+                }
             }
+            assembled();
+        }
+        if (options.incrementalAssembly) {
+            KA = profile;
+            KP = PMatrix.duplicate(profile);
+        } else {
+            KP = profile;
         }
 
-        // Aufaddieren der Knotenlasten in den Systemlastvektor
-        for (Node node : nodeList) {
-            if (!node.cX) {
-                p[node.nX - 1] += node.Fx;
+        calculateLoadVector();
+        journal.clear();
+    }
+
+    /**
+     * Calculate the global stiffness matrix in sparse storage, the
+     * diagonal of the lumped mass matrix and the global load vector.
+     * KS is only updated for the changed beams if possible (see
+     * incrementalAssembly); the backends keep it for this then.
+     */
+    protected void calculateSparseMatrices() {
+        // Determine and number the global degrees of freedom
+        numberDOFs();
+
+        int changed[] = reassemblyBeams(KS);
+        K = null;
+        M = null;
+        KP = null;
+        KA = null;
+        denseFactor = null;
+        sparseFactor = null;
+        domainFactor = null;
+        KI = null;
+        preconditioner = null;
+
+        if (changed == null) {
+            // Symbolic phase: structure from the location vectors
+            int elements[][] = new int[beamList.size() + superelementList.size()][];
+            for (int b = 0; b < elements.length; b++) {
+                int locationVector[] = (b < beamList.size())
+                        ? compiled.locationVector(b, new int[6])
+                        : locationVector(superelementList.get(b - beamList.size()));
+                for (int i = 0; i < locationVector.length; i++) {
+                    locationVector[i]--;
+                }
+                elements[b] = locationVector;
             }
-            if (!node.cZ) {
-                p[node.nZ - 1] += node.Fz;
+            KS = CSCMatrix.fromElements(r, elements);
+        }
+        Md = new double[r];
+
+        // Numeric phase
+        ElementScatter scatter = (locationVector, Sg, Mg) -> {
+            for (int i = 0; i < 6; i++) {
+                if (locationVector[i] == 0) {
+                    continue;
+                }
+                if (Mg != null) {
+                    Md[locationVector[i] - 1] += Mg[7 * i];
+                }
+                for (int j = 0; j < 6; j++) {
+                    if ((locationVector[j] != 0) && (locationVector[j] <= locationVector[i])) {
+                        KS.add(locationVector[i] - 1, locationVector[j] - 1, Sg[6 * i + j]);
+                    }
+                }
             }
-            if (!node.cR) {
-                p[node.nR - 1] += node.M;
+        };
+        if (changed != null) {
+            reassembleBeams(changed, scatter);
+            compiled.massDiagonal(Md);
+        } else {
+            assembleBeams(scatter);
+            for (Superelement element : superelementList) {
+                int locationVector[] = locationVector(element);
+                double Sg[][] = superelementStiffness(element);
+                for (int i = 0; i < locationVector.length; i++) {
+                    if (locationVector[i] == 0) {
+                        continue;
+                    }
+                    for (int j = 0; j < locationVector.length; j++) {
+                        if ((locationVector[j] != 0) && (locationVector[j] <= locationVector[i])) {
+                            KS.add(locationVector[i] - 1, locationVector[j] - 1, Sg[i][j]);
+                        }
+                    }
+                }
             }
+            assembled();
         }
+
+        calculateLoadVector();
+        journal.clear();
     }
 
     /**
-     * Verschiebungen in Elemente eintragen, Berechnung der von den Verschiebungen
-     * abhängigen Grössen.
+     * Calculate the global load vector from the element load vectors
+     * (compiled model, current loads of the beams) and the nodal loads.
      */
-    protected void postCalculate(double p[]) {
-        // Verschiebungen in die Knoten schreiben
-        for (Node node : nodeList) {
-            if (!node.cX) {
-                node.dX = p[node.nX - 1];
-            } else {
-                node.dX = 0.;
-            }
+    protected void calculateLoadVector() {
+        p = new double[r];
+        for (int n = 0; n < r; n++) {
+            p[n] = 0.;
+        }
 
-            if (!node.cZ) {
-                node.dZ = p[node.nZ - 1];
-            } else {
-                node.dZ = 0.;
+        // Aufaddieren des Elementlastvektors in den Systemlastvektor
+        int locationVector[] = new int[6];
+        double Lg[] = new double[6];
+        double q[] = beamLoads();
+        CompiledModel.Workspace work = new CompiledModel.Workspace();
+        for (int e = 0; e < compiled.beams; e++) {
+            compiled.locationVector(e, locationVector);
+            compiled.loads(e, q, Lg, work);
+            for (int i = 0; i < 6; i++) {
+                if (locationVector[i] != 0) {
+                    p[locationVector[i] - 1] -= Lg[i];
+                }
             }
+        }
 
-            if (!node.cR) {
-                node.dR = p[node.nR - 1];
-            } else {
-                node.dR = 0.;
+        // Lasten innerhalb der Superelemente (nicht bei Lastfällen)
+        if (!caseLoads) {
+            for (Superelement element : superelementList) {
+                int elementVector[] = locationVector(element);
+                double loads[] = element.getLoads();
+                for (int i = 0; i < elementVector.length; i++) {
+                    if (elementVector[i] != 0) {
+                        p[elementVector[i] - 1] += loads[i];
+                    }
+                }
             }
         }
 
-        // Berechnung von Schnittgrößen und anderen Folgeberechnungen der Elemente
-        for (Beam beam : beamList) {
-            beam.postCalculate();
+        // Aufaddieren der Knotenlasten in den Systemlastvektor
+        double f[] = nodeLoads();
+        for (int i = 0; i < f.length; i++) {
+            if (compiled.dofs[i] != 0) {
+                p[compiled.dofs[i] - 1] += f[i];
+            }
         }
+    }
 
-        // Berechnung der Auflaggerreaktionen
-        //    zurücksetzen
-        for (Node node : nodeList) {
-            node.rFx = 0.;
-            node.rFz = 0.;
-            node.rM = 0.;
+    /// Loads of the nodes {Fx, Fz, M}, 3 per node in list order.
+    protected double[] nodeLoads() {
+        double f[] = new double[3 * nodeList.size()];
+        for (int k = 0; k < nodeList.size(); k++) {
+            Node node = nodeList.get(k);
+            f[3 * k] = node.Fx;
+            f[3 * k + 1] = node.Fz;
+            f[3 * k + 2] = node.M;
         }
+        return f;
+    }
 
-        //    aufaddieren
-        for (Beam beam : beamList) {
+    /**
+     * Distributed loads of the beams {vi, vk, ni, nk}, 4 per beam in
+     * list order (0 for trusses).
+     */
+    protected double[] beamLoads() {
+        double q[] = new double[4 * beamList.size()];
+        for (int e = 0; e < beamList.size(); e++) {
+            Beam beam = beamList.get(e);
+            if (beam instanceof EBBeam) {
+                EBBeam b = (EBBeam) beam;
+                q[4 * e] = b.vi;
+                q[4 * e + 1] = b.vk;
+                q[4 * e + 2] = b.ni;
+                q[4 * e + 3] = b.nk;
+            }
+        }
+        return q;
+    }
 
-            double Sl[][] = new double[6][1];
-            Sl[0][0] = -beam.Ni;
-            Sl[1][0] = -beam.Vi;
-            Sl[2][0] = -beam.Mi;
-            Sl[3][0] = beam.Nk;
-            Sl[4][0] = beam.Vk;
-            Sl[5][0] = beam.Mk;
+    /**
+     * Verschiebungen in Elemente eintragen, Berechnung der von den Verschiebungen
+     * abhängigen Grössen.
+     */
+    protected void postCalculate(double p[]) {
+        // Rückrechnung am kompilierten Modell
+        int nodes = compiled.nodes;
+        int beams = compiled.beams;
+        double d[] = new double[3 * nodes];
+        double forces[] = new double[6 * beams];
+        double ends[] = new double[6 * beams];
+        double reactions[] = new double[3 * nodes];
+        double q[] = beamLoads();
+        CompiledModel.Workspace work = new CompiledModel.Workspace();
+        compiled.displacements(p, d);
+        for (int e = 0; e < beams; e++) {
+            compiled.recover(e, d, q, forces, ends, work);
+        }
+        compiled.reactions(forces, reactions);
 
-            double Sg[][] =
-                    Matrix.multiply(
-                    Matrix.transpose(beam.a),
-                    Sl);
+        // Verschiebungen und Auflagerreaktionen in die Knoten schreiben
+        for (int k = 0; k < nodes; k++) {
+            Node node = nodeList.get(k);
+            node.dX = d[3 * k];
+            node.dZ = d[3 * k + 1];
+            node.dR = d[3 * k + 2];
+            node.rFx = reactions[3 * k];
+            node.rFz = reactions[3 * k + 1];
+            node.rM = reactions[3 * k + 2];
+        }
 
-            if (beam.n1.cX) {
-                beam.n1.rFx += Sg[0][0];
-            }
-            if (beam.n1.cZ) {
-                beam.n1.rFz += Sg[1][0];
-            }
-            if (beam.n1.cR) {
-                beam.n1.rM += Sg[2][0];
-            }
+        // Schnittgrößen und Stabendverschiebungen in die Elemente schreiben
+        for (int e = 0; e < beams; e++) {
+            beamList.get(e).setResults(forces, ends, 6 * e);
+        }
+        for (Superelement element : superelementList) {
+            element.storeDisplacements(!caseLoads);
+        }
 
-            if (beam.n2.cX) {
-                beam.n2.rFx += Sg[3][0];
-            }
-            if (beam.n2.cZ) {
-                beam.n2.rFz += Sg[4][0];
-            }
-            if (beam.n2.cR) {
-                beam.n2.rM += Sg[5][0];
+        // Auflagerreaktionen der Superelemente
+        for (Superelement element : superelementList) {
+            double f[] = element.getNodeForces();
+            for (int k = 0; k < element.nodes.length; k++) {
+                Node node = element.nodes[k];
+                if (node.cX) {
+                    node.rFx += f[3 * k];
+                }
+                if (node.cZ) {
+                    node.rFz += f[3 * k + 1];
+                }
+                if (node.cR) {
+                    node.rM += f[3 * k + 2];
+                }
             }
         }
     }
+
+    /**
+     * Condensed stiffness of a superelement, after checking that its
+     * nodes still match the boundary of the substructure.
+     */
+    protected double[][] superelementStiffness(Superelement element) {
+        element.checkNodes();
+        return element.getSg();
+    }
 }
@@ -53,6 +53,18 @@ public class Node implements Distance, Serializable
     /** Label */
     protected String label;
 
+    /** Ergebnisse je Lastfall {dX, dZ, dR, rFx, rFz, rM}
+      * (nach Model.calculateLoadCases)
+      */
+    protected transient double caseResults[][];
+
+    /** Änderungen seit der letzten vollständigen Assemblierung
+      * (Kategorien von ChangeJournal)
+      */
+    protected transient int changes;
+    /** Änderungsjournal des Models, das den Knoten enthält */
+    protected transient ChangeJournal journal;
+
     public String getLabel()
     {
 	return label;
@@ -110,6 +122,7 @@ public class Node implements Distance, Serializable
     public void setCX(boolean cX)
     {
 	this.cX = cX;
+	changed(ChangeJournal.CONSTRAINT);
     }
 
     public boolean getCZ()
@@ -120,6 +133,7 @@ public class Node implements Distance, Serializable
     public void setCZ(boolean cZ)
     {
 	this.cZ = cZ;
+	changed(ChangeJournal.CONSTRAINT);
     }
 
     public boolean getCR()
@@ -130,6 +144,7 @@ public class Node implements Distance, Serializable
     public void setCR(boolean cR)
     {
 	this.cR = cR;
+	changed(ChangeJournal.CONSTRAINT);
     }
 
     public double getX()
@@ -140,6 +155,7 @@ public class Node implements Distance, Serializable
     public void setX(double x)
     {
 	this.x = x;
+	changed(ChangeJournal.GEOMETRY);
     }
 
     public double getZ()
@@ -150,6 +166,7 @@ public class Node implements Distance, Serializable
     public void setZ(double z)
     {
 	this.z = z;
+	changed(ChangeJournal.GEOMETRY);
     }
 
 
@@ -161,6 +178,7 @@ public class Node implements Distance, Serializable
     public void setFx(double Fx)
     {
 	this.Fx = Fx;
+	changed(ChangeJournal.LOAD);
     }
 
     public double getFz()
@@ -171,6 +189,7 @@ public class Node implements Distance, Serializable
     public void setFz(double Fz)
     {
 	this.Fz = Fz;
+	changed(ChangeJournal.LOAD);
     }
 
     public double getM()
@@ -181,6 +200,27 @@ public class Node implements Distance, Serializable
     public void setM(double M)
     {
 	this.M = M;
+	changed(ChangeJournal.LOAD);
+    }
+
+    /** Kategorien der Änderungen seit der letzten vollständigen
+      * Assemblierung (siehe ChangeJournal).
+      */
+    public int getChanges()
+    {
+	return changes;
+    }
+
+    /** Änderung in den Kategorien category vermerken und dem
+      * Model melden.
+      */
+    protected void changed(int category)
+    {
+	changes |= category;
+	if (journal != null)
+	{
+	    journal.record(this, category);
+	}
     }
 
     public double getRFx()
@@ -213,6 +253,48 @@ public class Node implements Distance, Serializable
 	return dR;
     }
 
+    /** Ergebnisse des aktuellen Zustands als Ergebnis des Lastfalls
+      * loadCase (von loadCases) speichern
+      */
+    protected void storeCaseResult(int loadCase, int loadCases)
+    {
+	if ( (caseResults == null) || (caseResults.length != loadCases) )
+	{
+	    caseResults = new double[loadCases][];
+	}
+	caseResults[loadCase] = new double[] {dX, dZ, dR, rFx, rFz, rM};
+    }
+
+    public double getDX(int loadCase)
+    {
+	return caseResults[loadCase][0];
+    }
+
+    public double getDZ(int loadCase)
+    {
+	return caseResults[loadCase][1];
+    }
+
+    public double getDR(int loadCase)
+    {
+	return caseResults[loadCase][2];
+    }
+
+    public double getRFx(int loadCase)
+    {
+	return caseResults[loadCase][3];
+    }
+
+    public double getRFz(int loadCase)
+    {
+	return caseResults[loadCase][4];
+    }
+
+    public double getRM(int loadCase)
+    {
+	return caseResults[loadCase][5];
+    }
+
     /** Abstand des Knotens von einem Punkt */
     public double getDistance(double x, double z)
     {
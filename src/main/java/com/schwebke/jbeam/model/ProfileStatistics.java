@@ -0,0 +1,56 @@
+package com.schwebke.jbeam.model;
+
+/**
+ * Profile statistics of the lower triangle of the global stiffness
+ * matrix for one DOF numbering.
+ */
+public class ProfileStatistics {
+
+    /// Number of global DOFs
+    protected int dofs;
+    /// Maximum distance of an entry from the diagonal
+    protected int bandwidth;
+    /// Number of entries in the profile (incl. diagonal)
+    protected long profile;
+    /// Estimated number of multiplications of the profile Cholesky factorization
+    protected double operations;
+
+    /**
+     * Statistics for the given envelope: row i of the lower triangle
+     * starts at column minCol[i].
+     */
+    public ProfileStatistics(int minCol[]) {
+        dofs = minCol.length;
+        bandwidth = 0;
+        profile = 0;
+        operations = 0.;
+        for (int i = 0; i < dofs; i++) {
+            int w = i - minCol[i];
+            bandwidth = Math.max(bandwidth, w);
+            profile += w + 1;
+            operations += 0.5 * w * (w + 3);
+        }
+    }
+
+    public int getDofs() {
+        return dofs;
+    }
+
+    public int getBandwidth() {
+        return bandwidth;
+    }
+
+    public long getProfile() {
+        return profile;
+    }
+
+    public double getOperations() {
+        return operations;
+    }
+
+    @Override
+    public String toString() {
+        return "bandwidth " + bandwidth + ", profile " + profile
+                + ", factorization ~" + String.format("%.3g", operations) + " mult.";
+    }
+}
@@ -127,26 +127,34 @@ public class SelectableModel extends Model
 		for (Beam beam : deleteList) {
 		     if (beamList.remove(beam))
 		     {
+			 journal.detach(beam);
+			 removeFromLoadCases(beam);
 			 delCount++;
 		     }
 		}
 
 
+		delCount += removeSuperelements(node);
+
 		// delete Node
 		if (nodeList.remove(node))
 		{
+		    journal.detach(node);
+		    removeFromLoadCases(node);
 		    delCount++;
 		}
 	    } else if (obj instanceof Beam) {
                 Beam beam = (Beam)obj;
 		if (beamList.remove(beam))
 		{
+		    journal.detach(beam);
+		    removeFromLoadCases(beam);
 		    delCount++;
 		}
 	    }
 	}
 	clearSelection();
-	validCalculation=false;
+	journal.record(ChangeJournal.TOPOLOGY);
 	return delCount;
     }
 
@@ -228,8 +236,9 @@ public class SelectableModel extends Model
 	for (Object obj : selectionList) {
 	    if (obj instanceof Node)
 	    {
-		((Node)obj).x+=x-refX;
-		((Node)obj).z+=z-refZ;
+		Node n = (Node)obj;
+		n.setX(n.x+x-refX);
+		n.setZ(n.z+z-refZ);
 		moveCount++;
 	    }
 	}
@@ -0,0 +1,236 @@
+package com.schwebke.jbeam.model;
+
+import com.schwebke.math.*;
+
+/**
+ * Backend of the static analysis: sets up K of a model in its storage,
+ * factorizes it and solves K x = b with the factorization.
+ *
+ * The backends keep their matrices and factors in the model, so the
+ * factorization is reused as long as the stiffness does not change.
+ * With AnalysisOptions.incrementalAssembly they keep the unfactorized K
+ * as well, so that the next assembly only updates the changed beams.
+ * Model selects a backend automatically (Model.selectSolver) unless
+ * AnalysisOptions.solverStrategy is set.
+ */
+public interface SolverStrategy {
+
+    /** dense Cholesky decomposition (blocked, flat storage) */
+    SolverStrategy DENSE = new Dense();
+    /** Cholesky decomposition in profile storage */
+    SolverStrategy PROFILE = new Profile();
+    /** supernodal sparse Cholesky decomposition (nested dissection) */
+    SolverStrategy SPARSE = new Sparse();
+    /** preconditioned conjugate gradient method (no factorization) */
+    SolverStrategy ITERATIVE = new Iterative();
+
+    /// Name of the backend (dense, profile, sparse, iterative).
+    String getName();
+
+    /// Set up K and the load vector p of the model and factorize K.
+    void factorize(Model model);
+
+    /// True if the model holds a factorization of this backend.
+    boolean hasFactorization(Model model);
+
+    /// Solve K x = b with the factorization; b is overwritten by x.
+    void substitute(Model model, double b[]);
+
+    /**
+     * Solve K X = B for nrhs right hand sides (B row-major r x nrhs)
+     * with the factorization; B is overwritten by X.
+     */
+    void substitute(Model model, double B[], int nrhs);
+
+    /**
+     * Backend of the given name, null for "auto" (automatic selection).
+     * Throws IllegalArgumentException for unknown names.
+     */
+    static SolverStrategy forName(String name) {
+        for (SolverStrategy strategy : new SolverStrategy[] {DENSE, PROFILE, SPARSE, ITERATIVE}) {
+            if (strategy.getName().equals(name)) {
+                return strategy;
+            }
+        }
+        if ("auto".equals(name)) {
+            return null;
+        }
+        throw new IllegalArgumentException("unknown solver: " + name);
+    }
+
+    /** Dense Cholesky decomposition of a flat copy of K. */
+    class Dense implements SolverStrategy {
+
+        @Override
+        public String getName() {
+            return "dense";
+        }
+
+        @Override
+        public void factorize(Model model) {
+            model.calculateGlobalMatrices();
+            model.denseFactor = Matrix.flatten(model.K);
+            Solver.factorizeCholesky(model.denseFactor, model.r);
+        }
+
+        @Override
+        public boolean hasFactorization(Model model) {
+            return model.denseFactor != null;
+        }
+
+        @Override
+        public void substitute(Model model, double b[]) {
+            Solver.substCholesky(model.denseFactor, model.r, b);
+        }
+
+        @Override
+        public void substitute(Model model, double B[], int nrhs) {
+            Solver.substCholesky(model.denseFactor, model.r, B, nrhs);
+        }
+    }
+
+    /** Cholesky decomposition of K in profile storage. */
+    class Profile implements SolverStrategy {
+
+        @Override
+        public String getName() {
+            return "profile";
+        }
+
+        @Override
+        public void factorize(Model model) {
+            model.calculateProfileMatrices();
+            Solver.factorizeCholesky(model.KP);
+        }
+
+        @Override
+        public boolean hasFactorization(Model model) {
+            return model.KP != null;
+        }
+
+        @Override
+        public void substitute(Model model, double b[]) {
+            Solver.substCholesky(model.KP, b);
+        }
+
+        @Override
+        public void substitute(Model model, double B[], int nrhs) {
+            Solver.substCholesky(model.KP, B, nrhs);
+        }
+    }
+
+    /**
+     * Sparse Cholesky decomposition with a nested dissection ordering of
+     * the node graph; mixed precision or domain decomposition if
+     * mixedPrecision or domainDecomposition is set (AnalysisOptions).
+     */
+    class Sparse implements SolverStrategy {
+
+        @Override
+        public String getName() {
+            return "sparse";
+        }
+
+        @Override
+        public void factorize(Model model) {
+            model.calculateSparseMatrices();
+            if (model.options.domainDecomposition) {
+                model.domainFactor = new DomainDecomposition(model.KS, model.domainPartition());
+            } else {
+                model.sparseFactor = model.options.mixedPrecision
+                        ? new MixedCholesky(model.KS, model.sparseOrdering())
+                        : new SparseCholesky(model.KS, model.sparseOrdering());
+            }
+            if (!model.options.incrementalAssembly) {
+                model.KS = null;
+            }
+        }
+
+        @Override
+        public boolean hasFactorization(Model model) {
+            return model.options.domainDecomposition
+                    ? (model.domainFactor != null) : (model.sparseFactor != null);
+        }
+
+        @Override
+        public void substitute(Model model, double b[]) {
+            if (model.domainFactor != null) {
+                model.domainFactor.solve(b);
+            } else {
+                model.sparseFactor.solve(b);
+            }
+        }
+
+        @Override
+        public void substitute(Model model, double B[], int nrhs) {
+            if (model.domainFactor != null) {
+                model.domainFactor.solve(B, nrhs);
+            } else {
+                model.sparseFactor.solve(B, nrhs);
+            }
+        }
+    }
+
+    /**
+     * Preconditioned conjugate gradient method on K in CSR storage
+     * (O(nnz) memory); "factorizing" sets up K and the preconditioner
+     * (AnalysisOptions.preconditioning). Every solve starts from the solution of
+     * the previous one. Throws ModelException if the iteration breaks
+     * down or does not converge, instead of returning its last iterate.
+     */
+    class Iterative implements SolverStrategy {
+
+        @Override
+        public String getName() {
+            return "iterative";
+        }
+
+        @Override
+        public void factorize(Model model) {
+            model.calculateSparseMatrices();
+            model.KI = CSRMatrix.fromLowerCSC(model.KS);
+            if (!model.options.incrementalAssembly) {
+                model.KS = null;
+            }
+            model.preconditioner = model.createPreconditioner(model.KI);
+        }
+
+        @Override
+        public boolean hasFactorization(Model model) {
+            return model.KI != null;
+        }
+
+        @Override
+        public void substitute(Model model, double b[]) {
+            int r = model.r;
+            double x[] = ((model.lastSolution != null) && (model.lastSolution.length == r))
+                    ? model.lastSolution.clone() : new double[r];
+            model.iteration = new ConjugateGradient();
+            if (!model.iteration.solve(model.KI, b, x, model.preconditioner)) {
+                if (model.iteration.isBreakdown()) {
+                    throw new ModelException("iterative solver: stiffness matrix not positive definite");
+                }
+                throw new ModelException("iterative solver did not converge after "
+                        + model.iteration.getIterations() + " iterations (residual "
+                        + model.iteration.getResidual() + ")");
+            }
+            model.lastSolution = x.clone();
+            System.arraycopy(x, 0, b, 0, r);
+        }
+
+        @Override
+        public void substitute(Model model, double B[], int nrhs) {
+            int r = model.r;
+            double b[] = new double[r];
+            for (int c = 0; c < nrhs; c++) {
+                for (int i = 0; i < r; i++) {
+                    b[i] = B[i * nrhs + c];
+                }
+                substitute(model, b);
+                for (int i = 0; i < r; i++) {
+                    B[i * nrhs + c] = b[i];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package com.schwebke.jbeam.model;
+
+import com.schwebke.math.*;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Substructure: a group of nodes and beams that is condensed to the
+ * DOFs of its boundary nodes and placed in a model any number of times
+ * as Superelement.
+ *
+ * The internal DOFs are eliminated by static condensation, as EBBeam
+ * does for its hinges:
+ *
+ *    S = Kbb - Kbi Kii^-1 Kib,   P = pb - Kbi Kii^-1 pi
+ *
+ * Condensed stiffness S and load vector P are computed once and cached
+ * until the substructure is changed; every instance uses the same
+ * matrices. The instances are translated copies: they have the
+ * orientation of the substructure.
+ *
+ * The nodes and beams of the substructure use their own coordinates.
+ * The supports of the boundary nodes are ignored (the model nodes of an
+ * instance carry the supports); supported internal DOFs are fixed, their
+ * support reactions are not determined. After a calculation the results
+ * of the internal nodes and beams of an instance are recovered on demand
+ * (Superelement.recover) into the nodes and beams of the substructure.
+ */
+public class Substructure implements Serializable {
+
+    static final long serialVersionUID = 4870651527323059162L;
+
+    protected String name;
+    protected List<Node> nodeList;
+    protected List<Beam> beamList;
+    /// Boundary nodes; node k has the condensed DOFs 3k .. 3k+2 (x, z, r)
+    protected List<Node> boundaryList;
+
+    /// Snapshot of the data the condensation depends on
+    protected transient double condensedKey[];
+    /// Condensed stiffness S (3nb x 3nb)
+    protected transient double S[][];
+    /// Condensed load vector P
+    protected transient double P[];
+    /// Cholesky factor of Kii (flat)
+    protected transient double factor[];
+    /// Kii^-1 Kib (ni x 3nb, row-major)
+    protected transient double X[];
+    /// Kii^-1 pi: internal displacements for fixed boundary
+    protected transient double u0[];
+    /// Internal DOF numbers (0-based, -1: fixed) of the nodes {x, z, r}
+    protected transient int internalDOFs[][];
+
+    public Substructure(String name) {
+        this.name = name;
+        nodeList = new ArrayList<Node>();
+        beamList = new ArrayList<Beam>();
+        boundaryList = new ArrayList<Node>();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /// Adds a node of the substructure.
+    public void addNode(Node node) {
+        nodeList.add(node);
+    }
+
+    /// Adds a beam between nodes of the substructure.
+    public void addBeam(Beam beam) {
+        beamList.add(beam);
+    }
+
+    /**
+     * Declares a node of the substructure as boundary node. The order
+     * of the boundary nodes is the order of the nodes of the instances.
+     */
+    public void addBoundaryNode(Node node) {
+        if (!nodeList.contains(node)) {
+            throw new ModelException("boundary node is not a node of the substructure");
+        }
+        if (!boundaryList.contains(node)) {
+            boundaryList.add(node);
+        }
+    }
+
+    public Iterable<Node> getNodeIterator() {
+        return nodeList;
+    }
+
+    public Iterable<Beam> getBeamIterator() {
+        return beamList;
+    }
+
+    public Iterable<Node> getBoundaryIterator() {
+        return boundaryList;
+    }
+
+    public int getBoundaryCount() {
+        return boundaryList.size();
+    }
+
+    public Node getBoundaryNode(int k) {
+        return boundaryList.get(k);
+    }
+
+    public boolean isBoundaryNode(Node node) {
+        return boundaryList.contains(node);
+    }
+
+    /// Condensed stiffness matrix (global directions, 3 DOFs per boundary node).
+    public double[][] getCondensedStiffness() {
+        condense();
+        return S;
+    }
+
+    /// Condensed load vector (equivalent nodal loads of the internal loads).
+    public double[] getCondensedLoads() {
+        condense();
+        return P;
+    }
+
+    /// Number of internal (eliminated) DOFs.
+    public int getInternalDOFCount() {
+        condense();
+        return u0.length;
+    }
+
+    /**
+     * Static condensation of the internal DOFs, skipped if nothing
+     * changed since the last condensation.
+     */
+    protected void condense() {
+        double key[] = currentKey();
+        if (Arrays.equals(key, condensedKey)) {
+            return;
+        }
+        int nb = 3 * boundaryList.size();
+
+        // numbering: boundary DOFs first, then the free internal DOFs
+        Map<Node, Integer> boundaryIndex = new HashMap<Node, Integer>();
+        for (int k = 0; k < boundaryList.size(); k++) {
+            boundaryIndex.put(boundaryList.get(k), k);
+        }
+        Map<Node, int[]> dofs = new HashMap<Node, int[]>();
+        internalDOFs = new int[nodeList.size()][];
+        int ni = 0;
+        for (int n = 0; n < nodeList.size(); n++) {
+            Node node = nodeList.get(n);
+            int d[] = new int[3];
+            Integer k = boundaryIndex.get(node);
+            if (k != null) {
+                for (int i = 0; i < 3; i++) {
+                    d[i] = 3 * k + i;
+                }
+                internalDOFs[n] = new int[] {-1, -1, -1};
+            } else {
+                boolean fixed[] = {node.cX, node.cZ, node.cR};
+                internalDOFs[n] = new int[3];
+                for (int i = 0; i < 3; i++) {
+                    internalDOFs[n][i] = fixed[i] ? -1 : ni;
+                    d[i] = fixed[i] ? -1 : nb + ni++;
+                }
+            }
+            dofs.put(node, d);
+        }
+
+        // assembly of the blocks and of the load vector
+        double Kbb[][] = new double[nb][nb];
+        double Kib[] = new double[ni * nb];
+        double Kii[] = new double[ni * ni];
+        double p[] = new double[nb + ni];
+        double Sg[] = new double[36];
+        int lv[] = new int[6];
+        for (Beam beam : beamList) {
+            beam.calSg(Sg, null, beam.Lg);
+            System.arraycopy(dofs.get(beam.n1), 0, lv, 0, 3);
+            System.arraycopy(dofs.get(beam.n2), 0, lv, 3, 3);
+            for (int i = 0; i < 6; i++) {
+                if (lv[i] < 0) {
+                    continue;
+                }
+                p[lv[i]] -= beam.Lg[i];
+                for (int j = 0; j < 6; j++) {
+                    if (lv[j] < 0) {
+                        continue;
+                    }
+                    if (lv[i] < nb) {
+                        if (lv[j] < nb) {
+                            Kbb[lv[i]][lv[j]] += Sg[6 * i + j];
+                        }
+                    } else if (lv[j] < nb) {
+                        Kib[(lv[i] - nb) * nb + lv[j]] += Sg[6 * i + j];
+                    } else {
+                        Kii[(lv[i] - nb) * ni + lv[j] - nb] += Sg[6 * i + j];
+                    }
+                }
+            }
+        }
+        for (Node node : nodeList) {
+            if (boundaryIndex.containsKey(node)) {
+                continue;
+            }
+            int d[] = dofs.get(node);
+            double load[] = {node.Fx, node.Fz, node.M};
+            for (int i = 0; i < 3; i++) {
+                if (d[i] >= 0) {
+                    p[d[i]] += load[i];
+                }
+            }
+        }
+
+        // X = Kii^-1 Kib, u0 = Kii^-1 pi
+        factor = Kii;
+        X = Kib.clone();
+        u0 = Arrays.copyOfRange(p, nb, nb + ni);
+        if (ni > 0) {
+            try {
+                Solver.factorizeCholesky(factor, ni);
+            } catch (IllegalArgumentException e) {
+                throw new ModelException("substructure " + name
+                        + ": internal DOFs are kinematic (singular matrix)");
+            }
+            Solver.substCholesky(factor, ni, X, nb);
+            Solver.substCholesky(factor, ni, u0);
+        }
+
+        // S = Kbb - Kbi X, P = pb - Kbi u0
+        S = Kbb;
+        P = Arrays.copyOf(p, nb);
+        for (int e = 0; e < ni; e++) {
+            for (int a = 0; a < nb; a++) {
+                double kea = Kib[e * nb + a];
+                if (kea == 0.) {
+                    continue;
+                }
+                P[a] -= kea * u0[e];
+                for (int b = 0; b < nb; b++) {
+                    S[a][b] -= kea * X[e * nb + b];
+                }
+            }
+        }
+        for (int a = 0; a < nb; a++) {
+            for (int b = 0; b < a; b++) {
+                double s = 0.5 * (S[a][b] + S[b][a]);
+                S[a][b] = s;
+                S[b][a] = s;
+            }
+        }
+        condensedKey = key;
+    }
+
+    /**
+     * Results of an instance from the displacements ub of its boundary
+     * nodes (3 per node, global directions): the internal displacements
+     * ui = Kii^-1 (pi - Kib ub) are written into the nodes of the
+     * substructure and the stress resultants of its beams are calculated.
+     * loaded: the loads inside the substructure act (else pi = 0).
+     */
+    protected void recover(double ub[], boolean loaded) {
+        condense();
+        int nb = 3 * boundaryList.size();
+        for (int n = 0; n < nodeList.size(); n++) {
+            Node node = nodeList.get(n);
+            int k = boundaryList.indexOf(node);
+            double d[] = new double[3];
+            for (int i = 0; i < 3; i++) {
+                if (k >= 0) {
+                    d[i] = ub[3 * k + i];
+                } else if (internalDOFs[n][i] >= 0) {
+                    int e = internalDOFs[n][i];
+                    double s = loaded ? u0[e] : 0.;
+                    for (int b = 0; b < nb; b++) {
+                        s -= X[e * nb + b] * ub[b];
+                    }
+                    d[i] = s;
+                }
+            }
+            node.dX = d[0];
+            node.dZ = d[1];
+            node.dR = d[2];
+        }
+        for (Beam beam : beamList) {
+            beam.postCalculate();
+        }
+    }
+
+    /**
+     * Snapshot of the data the condensation depends on: geometry,
+     * supports and loads of the nodes, boundary, stiffness parameters
+     * and loads of the beams.
+     */
+    protected double[] currentKey() {
+        List<Double> key = new ArrayList<Double>();
+        key.add((double) nodeList.size());
+        for (Node node : nodeList) {
+            key.add(node.x);
+            key.add(node.z);
+            key.add(node.cX ? 1. : 0.);
+            key.add(node.cZ ? 1. : 0.);
+            key.add(node.cR ? 1. : 0.);
+            key.add(node.Fx);
+            key.add(node.Fz);
+            key.add(node.M);
+            key.add((double) boundaryList.indexOf(node));
+        }
+        key.add((double) beamList.size());
+        for (Beam beam : beamList) {
+            key.add((double) nodeList.indexOf(beam.n1));
+            key.add((double) nodeList.indexOf(beam.n2));
+            key.add((double) beam.getClass().getName().hashCode());
+            for (double v : beam.stiffnessKey()) {
+                key.add(v);
+            }
+            if (beam instanceof EBBeam) {
+                EBBeam b = (EBBeam) beam;
+                key.add(b.vi);
+                key.add(b.vk);
+                key.add(b.ni);
+                key.add(b.nk);
+            }
+        }
+        double k[] = new double[key.size()];
+        for (int i = 0; i < k.length; i++) {
+            k[i] = key.get(i);
+        }
+        return k;
+    }
+}
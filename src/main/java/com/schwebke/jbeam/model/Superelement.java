@@ -0,0 +1,145 @@
+package com.schwebke.jbeam.model;
+
+import java.io.*;
+
+/**
+ * Instance of a Substructure in a model: the boundary nodes of the
+ * substructure are placed on model nodes, the internal nodes and beams
+ * are represented by the condensed stiffness and load vector of the
+ * substructure only.
+ *
+ * The model nodes have to be a translated copy of the boundary nodes
+ * (same order). After a calculation the instance keeps the
+ * displacements of its nodes; recover() calculates the results of the
+ * internal nodes and beams from them when they are needed.
+ */
+public class Superelement implements Serializable {
+
+    static final long serialVersionUID = -2742968231550460917L;
+
+    /// Relative tolerance of the node positions against the substructure
+    public static double tolerance = 1E-9;
+
+    protected Substructure substructure;
+    /// Model nodes at the boundary nodes of the substructure
+    protected Node nodes[];
+    protected String label;
+
+    /// Displacements of the nodes of the last calculation (3 per node)
+    protected transient double u[];
+    /// True if the loads inside the substructure acted in the last calculation
+    protected transient boolean loaded;
+
+    public Superelement(Substructure substructure, Node... nodes) {
+        if (nodes.length != substructure.getBoundaryCount()) {
+            throw new ModelException("superelement needs " + substructure.getBoundaryCount() + " nodes");
+        }
+        this.substructure = substructure;
+        this.nodes = nodes.clone();
+        label = "";
+        checkNodes();
+    }
+
+    public Substructure getSubstructure() {
+        return substructure;
+    }
+
+    public int getNodeCount() {
+        return nodes.length;
+    }
+
+    public Node getNode(int k) {
+        return nodes[k];
+    }
+
+    public boolean hasNode(Node node) {
+        for (Node n : nodes) {
+            if (n == node) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public void setLabel(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Checks that the nodes are a translated copy of the boundary nodes
+     * of the substructure.
+     */
+    public void checkNodes() {
+        Node b0 = substructure.getBoundaryNode(0);
+        double dx = nodes[0].x - b0.x;
+        double dz = nodes[0].z - b0.z;
+        for (int k = 1; k < nodes.length; k++) {
+            Node b = substructure.getBoundaryNode(k);
+            double ex = nodes[k].x - b.x - dx;
+            double ez = nodes[k].z - b.z - dz;
+            double size = Math.abs(b.x - b0.x) + Math.abs(b.z - b0.z);
+            if (Math.abs(ex) + Math.abs(ez) > tolerance * size) {
+                throw new ModelException("superelement nodes do not match the boundary of substructure "
+                        + substructure.getName());
+            }
+        }
+    }
+
+    /// Element stiffness matrix: the condensed stiffness of the substructure.
+    public double[][] getSg() {
+        return substructure.getCondensedStiffness();
+    }
+
+    /// Equivalent nodal loads of the loads inside the substructure.
+    public double[] getLoads() {
+        return substructure.getCondensedLoads();
+    }
+
+    /**
+     * Stores the displacements of the nodes after a calculation, loaded:
+     * the loads inside the substructure were applied.
+     */
+    protected void storeDisplacements(boolean loaded) {
+        this.loaded = loaded;
+        u = new double[3 * nodes.length];
+        for (int k = 0; k < nodes.length; k++) {
+            u[3 * k] = nodes[k].dX;
+            u[3 * k + 1] = nodes[k].dZ;
+            u[3 * k + 2] = nodes[k].dR;
+        }
+    }
+
+    /**
+     * Forces of the element on its nodes, S u - P (global directions,
+     * 3 per node), from the displacements of the last calculation.
+     */
+    public double[] getNodeForces() {
+        double S[][] = getSg();
+        double P[] = getLoads();
+        double f[] = new double[u.length];
+        for (int a = 0; a < u.length; a++) {
+            double s = loaded ? -P[a] : 0.;
+            for (int b = 0; b < u.length; b++) {
+                s += S[a][b] * u[b];
+            }
+            f[a] = s;
+        }
+        return f;
+    }
+
+    /**
+     * Calculates the results of the internal nodes and beams of this
+     * instance and writes them into the nodes and beams of the
+     * substructure (which show the last recovered instance).
+     */
+    public void recover() {
+        if (u == null) {
+            throw new ModelException("no valid calculation");
+        }
+        substructure.recover(u, loaded);
+    }
+}
@@ -26,52 +26,64 @@ public class Truss extends Beam
     public void setEA(double EA)
     {
 	this.EA = EA;
+	changed(ChangeJournal.STIFFNESS);
     }
 
-    public void calSg()
+    /** Lokale Steifigkeitsmatrix des Fachwerkstabs */
+    protected void calSl(double sl[])
     {
 	double l=Math.sqrt((n1.x-n2.x)*(n1.x-n2.x)+(n1.z-n2.z)*(n1.z-n2.z));
-	Sl=new double[6][6];
-	for (int i=0; i<6; i++)
+	stiffness(EA, l, sl);
+    }
+
+    /** Lokale Steifigkeitsmatrix eines Fachwerkstabs der Dehnsteifigkeit
+      * EA und der Länge l in sl (6x6 zeilenweise).
+      */
+    protected static void stiffness(double EA, double l, double sl[])
+    {
+	for (int i=0; i<36; i++)
 	{
-	    for (int j=0; j<6; j++)
-	    {
-		Sl[i][j]=0.;
-	    }
+	    sl[i]=0.;
 	}
-	Sl[0][0]=Sl[3][3]=EA/l;
-	Sl[0][3]=Sl[3][0]=-EA/l;
+	sl[0]=sl[21]=EA/l;
+	sl[3]=sl[18]=-EA/l;
+    }
 
-	calMl();
-	transform();
+    protected double[] stiffnessKey()
+    {
+	double base[] = super.stiffnessKey();
+	double key[] = java.util.Arrays.copyOf(base, base.length+1);
+	key[base.length] = EA;
+	return key;
     }
 
     public void postCalculate()
     {
 	// Rückrechnung der Stabendschnittgrößen
-	double V[][] = new double [6][1];
-	V[0][0] = n1.getDX();
-	V[1][0] = n1.getDZ();
-	V[2][0] = n1.getDR();
-	V[3][0] = n2.getDX();
-	V[4][0] = n2.getDZ();
-	V[5][0] = n2.getDR();
-
-	double Rl[][] =
-	    Matrix.multiply(
-		Matrix.multiply(
-		    Sl,
-		    a
-		),
-		V
-	    );
-
-	Ni = -Rl[0][0];
-	Vi = -Rl[1][0];
-	Mi = Rl[2][0];
-	Nk = Rl[3][0];
-	Vk = Rl[4][0];
-	Mk = Rl[5][0];
+	double V[] = new double [6];
+	V[0] = n1.getDX();
+	V[1] = n1.getDZ();
+	V[2] = n1.getDR();
+	V[3] = n2.getDX();
+	V[4] = n2.getDZ();
+	V[5] = n2.getDR();
+	toLocal(V, V);
+
+	double Rl[] = new double [6];
+	for (int i=0; i<6; i++)
+	{
+	    for (int j=0; j<6; j++)
+	    {
+		Rl[i] += Sl[i][j]*V[j];
+	    }
+	}
+
+	Ni = -Rl[0];
+	Vi = -Rl[1];
+	Mi = Rl[2];
+	Nk = Rl[3];
+	Vk = Rl[4];
+	Mk = Rl[5];
 
 	//System.out.println(" Ni = "+Ni);
 	//System.out.println(" Nk = "+Nk);
@@ -87,4 +99,9 @@ public class Truss extends Beam
 	return f*Nk+(1.-f)*Ni;
     }
 
+    public double N(int loadCase, double f)
+    {
+	return f*getNk(loadCase)+(1.-f)*getNi(loadCase);
+    }
+
 } 
@@ -116,18 +116,11 @@ public class JsonPersistence implements ModelPersistence {
         for (Node node : model.getNodeIterator()) {
             String nodeId = "node-" + nodeCounter++;
             nodeIdMap.put(node, nodeId);
-            
-            NodeDto nodeDto = new NodeDto();
-            nodeDto.setId(nodeId);
-            nodeDto.setLabel(node.getLabel() != null ? node.getLabel() : "");
-            nodeDto.setCoordinates(new NodeDto.Coordinates2D(node.getX(), node.getZ()));
-            nodeDto.setConstraints(new NodeDto.Constraints2D(node.getCX(), node.getCZ(), node.getCR()));
-            nodeDto.setLoads(new NodeDto.NodalLoads2D(node.getFx(), node.getFz(), node.getM()));
-            
-            nodeDtos.add(nodeDto);
+            nodeDtos.add(convertNodeToDto(node, nodeId));
         }
         
         // Convert beams
+        Map<Beam, String> beamIdMap = new HashMap<>();
         int beamCounter = 1;
         for (Beam beam : model.getBeamIterator()) {
             String beamId = "beam-" + beamCounter++;
@@ -138,11 +131,104 @@ public class JsonPersistence implements ModelPersistence {
             
             BeamDto beamDto = convertBeamToDto(beam, beamId, nodeIds);
             if (beamDto != null) {
+                beamIdMap.put(beam, beamId);
                 beamDtos.add(beamDto);
             }
         }
         
-        return new ModelDto(nodeDtos, beamDtos);
+        ModelDto modelDto = new ModelDto(nodeDtos, beamDtos);
+        
+        // Convert load cases
+        Map<LoadCase, String> loadCaseIdMap = new HashMap<>();
+        int loadCaseCounter = 1;
+        for (LoadCase loadCase : model.getLoadCaseIterator()) {
+            LoadCaseDto loadCaseDto = new LoadCaseDto("loadcase-" + loadCaseCounter++,
+                loadCase.getName() != null ? loadCase.getName() : "");
+            loadCaseIdMap.put(loadCase, loadCaseDto.getId());
+            for (LoadCase.NodeLoad load : loadCase.getNodeLoads()) {
+                loadCaseDto.getNodeLoads().add(new LoadCaseDto.NodeLoad(
+                    nodeIdMap.get(load.getNode()), load.getFx(), load.getFz(), load.getM()));
+            }
+            for (LoadCase.BeamLoad load : loadCase.getBeamLoads()) {
+                loadCaseDto.getBeamLoads().add(new LoadCaseDto.BeamLoad(
+                    beamIdMap.get(load.getBeam()), load.getVi(), load.getVk(), load.getNi(), load.getNk()));
+            }
+            modelDto.getLoadCases().add(loadCaseDto);
+        }
+        
+        // Convert load combinations
+        int combinationCounter = 1;
+        for (LoadCombination combination : model.getLoadCombinationIterator()) {
+            LoadCombinationDto combinationDto = new LoadCombinationDto("combination-" + combinationCounter++,
+                combination.getName() != null ? combination.getName() : "");
+            for (LoadCombination.Term term : combination.getTerms()) {
+                combinationDto.getFactors().add(new LoadCombinationDto.Factor(
+                    loadCaseIdMap.get(term.getLoadCase()), term.getFactor()));
+            }
+            modelDto.getLoadCombinations().add(combinationDto);
+        }
+        
+        // Convert substructures with their own nodes and beams
+        Map<Substructure, String> substructureIdMap = new HashMap<>();
+        int substructureCounter = 1;
+        for (Superelement element : model.getSuperelementIterator()) {
+            Substructure substructure = element.getSubstructure();
+            if (substructureIdMap.containsKey(substructure)) {
+                continue;
+            }
+            String substructureId = "substructure-" + substructureCounter++;
+            substructureIdMap.put(substructure, substructureId);
+            SubstructureDto substructureDto = new SubstructureDto(substructureId,
+                substructure.getName() != null ? substructure.getName() : "");
+            
+            Map<Node, String> localNodeIds = new HashMap<>();
+            int localNodeCounter = 1;
+            for (Node node : substructure.getNodeIterator()) {
+                String nodeId = substructureId + "-node-" + localNodeCounter++;
+                localNodeIds.put(node, nodeId);
+                substructureDto.getNodes().add(convertNodeToDto(node, nodeId));
+            }
+            int localBeamCounter = 1;
+            for (Beam beam : substructure.getBeamIterator()) {
+                BeamDto beamDto = convertBeamToDto(beam, substructureId + "-beam-" + localBeamCounter++,
+                    Arrays.asList(localNodeIds.get(beam.getN1()), localNodeIds.get(beam.getN2())));
+                if (beamDto != null) {
+                    substructureDto.getBeams().add(beamDto);
+                }
+            }
+            for (Node node : substructure.getBoundaryIterator()) {
+                substructureDto.getBoundaryNodeIds().add(localNodeIds.get(node));
+            }
+            modelDto.getSubstructures().add(substructureDto);
+        }
+        
+        // Convert superelements
+        int superelementCounter = 1;
+        for (Superelement element : model.getSuperelementIterator()) {
+            List<String> nodeIds = new ArrayList<>();
+            for (int k = 0; k < element.getNodeCount(); k++) {
+                nodeIds.add(nodeIdMap.get(element.getNode(k)));
+            }
+            SuperelementDto superelementDto = new SuperelementDto("superelement-" + superelementCounter++,
+                substructureIdMap.get(element.getSubstructure()), nodeIds);
+            superelementDto.setLabel(element.getLabel() != null ? element.getLabel() : "");
+            modelDto.getSuperelements().add(superelementDto);
+        }
+        
+        return modelDto;
+    }
+    
+    /**
+     * Convert individual node to DTO.
+     */
+    private NodeDto convertNodeToDto(Node node, String nodeId) {
+        NodeDto nodeDto = new NodeDto();
+        nodeDto.setId(nodeId);
+        nodeDto.setLabel(node.getLabel() != null ? node.getLabel() : "");
+        nodeDto.setCoordinates(new NodeDto.Coordinates2D(node.getX(), node.getZ()));
+        nodeDto.setConstraints(new NodeDto.Constraints2D(node.getCX(), node.getCZ(), node.getCR()));
+        nodeDto.setLoads(new NodeDto.NodalLoads2D(node.getFx(), node.getFz(), node.getM()));
+        return nodeDto;
     }
     
     /**
@@ -202,37 +288,19 @@ public class JsonPersistence implements ModelPersistence {
     /**
      * Convert ModelDto to SelectableModel for loading.
      */
-    private SelectableModel convertFromDto(ModelDto modelDto) {
+    private SelectableModel convertFromDto(ModelDto modelDto) throws IOException {
         SelectableModel model = new SelectableModel();
         
         // Convert nodes
         Map<String, Node> nodeMap = new HashMap<>();
         for (NodeDto nodeDto : modelDto.getNodes()) {
-            Node node = new Node(
-                nodeDto.getCoordinates().getX(),
-                nodeDto.getCoordinates().getZ()
-            );
-            
-            // Set constraints
-            node.setCX(nodeDto.getConstraints().isX());
-            node.setCZ(nodeDto.getConstraints().isZ());
-            node.setCR(nodeDto.getConstraints().isR());
-            
-            // Set loads
-            node.setFx(nodeDto.getLoads().getFx());
-            node.setFz(nodeDto.getLoads().getFz());
-            node.setM(nodeDto.getLoads().getM());
-            
-            // Set label
-            if (nodeDto.getLabel() != null && !nodeDto.getLabel().isEmpty()) {
-                node.setLabel(nodeDto.getLabel());
-            }
-            
+            Node node = convertNodeFromDto(nodeDto);
             nodeMap.put(nodeDto.getId(), node);
             model.addNode(node);
         }
         
         // Convert beams
+        Map<String, Beam> beamMap = new HashMap<>();
         for (BeamDto beamDto : modelDto.getBeams()) {
             if (beamDto.getNodeIds().size() != 2) {
                 continue; // Skip invalid beams
@@ -250,13 +318,149 @@ public class JsonPersistence implements ModelPersistence {
                 if (beamDto.getLabel() != null && !beamDto.getLabel().isEmpty()) {
                     beam.setLabel(beamDto.getLabel());
                 }
+                beamMap.put(beamDto.getId(), beam);
                 model.addBeam(beam);
             }
         }
         
+        // Convert load cases
+        Map<String, LoadCase> loadCaseMap = new HashMap<>();
+        if (modelDto.getLoadCases() != null) {
+            for (LoadCaseDto loadCaseDto : modelDto.getLoadCases()) {
+                LoadCase loadCase = new LoadCase(loadCaseDto.getName());
+                if (loadCaseDto.getNodeLoads() != null) {
+                    for (LoadCaseDto.NodeLoad load : loadCaseDto.getNodeLoads()) {
+                        Node node = nodeMap.get(load.getNodeId());
+                        if (node != null) {
+                            loadCase.addNodeLoad(node, load.getFx(), load.getFz(), load.getM());
+                        }
+                    }
+                }
+                if (loadCaseDto.getBeamLoads() != null) {
+                    for (LoadCaseDto.BeamLoad load : loadCaseDto.getBeamLoads()) {
+                        Beam beam = beamMap.get(load.getBeamId());
+                        if (beam instanceof EBBeam) {
+                            loadCase.addBeamLoad((EBBeam) beam, load.getVi(), load.getVk(), load.getNi(), load.getNk());
+                        }
+                    }
+                }
+                loadCaseMap.put(loadCaseDto.getId(), loadCase);
+                model.addLoadCase(loadCase);
+            }
+        }
+        
+        // Convert load combinations
+        if (modelDto.getLoadCombinations() != null) {
+            for (LoadCombinationDto combinationDto : modelDto.getLoadCombinations()) {
+                LoadCombination combination = new LoadCombination(combinationDto.getName());
+                if (combinationDto.getFactors() != null) {
+                    for (LoadCombinationDto.Factor factor : combinationDto.getFactors()) {
+                        LoadCase loadCase = loadCaseMap.get(factor.getLoadCaseId());
+                        if (loadCase != null) {
+                            combination.addTerm(loadCase, factor.getFactor());
+                        }
+                    }
+                }
+                model.addLoadCombination(combination);
+            }
+        }
+        
+        // Convert substructures
+        Map<String, Substructure> substructureMap = new HashMap<>();
+        if (modelDto.getSubstructures() != null) {
+            for (SubstructureDto substructureDto : modelDto.getSubstructures()) {
+                Substructure substructure = new Substructure(substructureDto.getName());
+                Map<String, Node> localNodeMap = new HashMap<>();
+                for (NodeDto nodeDto : substructureDto.getNodes()) {
+                    Node node = convertNodeFromDto(nodeDto);
+                    localNodeMap.put(nodeDto.getId(), node);
+                    substructure.addNode(node);
+                }
+                for (BeamDto beamDto : substructureDto.getBeams()) {
+                    if (beamDto.getNodeIds().size() != 2) {
+                        continue;
+                    }
+                    Node n1 = localNodeMap.get(beamDto.getNodeIds().get(0));
+                    Node n2 = localNodeMap.get(beamDto.getNodeIds().get(1));
+                    if (n1 == null || n2 == null) {
+                        continue;
+                    }
+                    Beam beam = convertBeamFromDto(beamDto, n1, n2);
+                    if (beam != null) {
+                        if (beamDto.getLabel() != null && !beamDto.getLabel().isEmpty()) {
+                            beam.setLabel(beamDto.getLabel());
+                        }
+                        substructure.addBeam(beam);
+                    }
+                }
+                for (String nodeId : substructureDto.getBoundaryNodeIds()) {
+                    Node node = localNodeMap.get(nodeId);
+                    if (node != null) {
+                        substructure.addBoundaryNode(node);
+                    }
+                }
+                substructureMap.put(substructureDto.getId(), substructure);
+            }
+        }
+        
+        // Convert superelements
+        if (modelDto.getSuperelements() != null) {
+            for (SuperelementDto superelementDto : modelDto.getSuperelements()) {
+                Substructure substructure = substructureMap.get(superelementDto.getSubstructureId());
+                if (substructure == null) {
+                    continue; // Skip superelements with invalid substructure references
+                }
+                List<Node> nodes = new ArrayList<>();
+                for (String nodeId : superelementDto.getNodeIds()) {
+                    Node node = nodeMap.get(nodeId);
+                    if (node != null) {
+                        nodes.add(node);
+                    }
+                }
+                if (nodes.size() != substructure.getBoundaryCount()) {
+                    continue; // Skip superelements with invalid node references
+                }
+                try {
+                    Superelement element = new Superelement(substructure, nodes.toArray(new Node[0]));
+                    if (superelementDto.getLabel() != null && !superelementDto.getLabel().isEmpty()) {
+                        element.setLabel(superelementDto.getLabel());
+                    }
+                    model.addSuperelement(element);
+                } catch (ModelException e) {
+                    throw new IOException("Superelement " + superelementDto.getId() + ": " + e.getMessage(), e);
+                }
+            }
+        }
+        
         return model;
     }
     
+    /**
+     * Convert NodeDto to Node.
+     */
+    private Node convertNodeFromDto(NodeDto nodeDto) {
+        Node node = new Node(
+            nodeDto.getCoordinates().getX(),
+            nodeDto.getCoordinates().getZ()
+        );
+        
+        // Set constraints
+        node.setCX(nodeDto.getConstraints().isX());
+        node.setCZ(nodeDto.getConstraints().isZ());
+        node.setCR(nodeDto.getConstraints().isR());
+        
+        // Set loads
+        node.setFx(nodeDto.getLoads().getFx());
+        node.setFz(nodeDto.getLoads().getFz());
+        node.setM(nodeDto.getLoads().getM());
+        
+        // Set label
+        if (nodeDto.getLabel() != null && !nodeDto.getLabel().isEmpty()) {
+            node.setLabel(nodeDto.getLabel());
+        }
+        return node;
+    }
+    
     /**
      * Convert BeamDto to appropriate Beam instance.
      */
@@ -31,7 +31,10 @@ public class ModelValidator {
         validateBasicStructure(modelDto);
         validateNodeIntegrity(modelDto.getNodes());
         validateBeamIntegrity(modelDto.getBeams());
-        validateReferences(modelDto.getBeams(), modelDto.getNodes());
+        validateReferences(modelDto.getBeams(), modelDto.getNodes(), modelDto.getSuperelements());
+        validateLoadCases(modelDto.getLoadCases(), modelDto.getNodes(), modelDto.getBeams());
+        validateLoadCombinations(modelDto.getLoadCombinations(), modelDto.getLoadCases());
+        validateSuperelements(modelDto.getSuperelements(), modelDto.getSubstructures(), modelDto.getNodes());
         checkGeometricCoincidence(modelDto.getNodes());
         
         return new ValidationResult(errors.isEmpty(), errors, warnings);
@@ -53,7 +56,8 @@ public class ModelValidator {
         if (modelDto.getNodes() != null && modelDto.getNodes().isEmpty()) {
             warnings.add("Model contains no nodes");
         }
-        if (modelDto.getBeams() != null && modelDto.getBeams().isEmpty()) {
+        if (modelDto.getBeams() != null && modelDto.getBeams().isEmpty()
+                && (modelDto.getSuperelements() == null || modelDto.getSuperelements().isEmpty())) {
             warnings.add("Model contains no beams");
         }
     }
@@ -211,7 +215,7 @@ public class ModelValidator {
     /**
      * Validate node references in beams - critical for preventing crashes.
      */
-    private void validateReferences(List<BeamDto> beams, List<NodeDto> nodes) {
+    private void validateReferences(List<BeamDto> beams, List<NodeDto> nodes, List<SuperelementDto> superelements) {
         if (beams == null || nodes == null) return;
         
         Set<String> validNodeIds = new HashSet<>();
@@ -237,6 +241,15 @@ public class ModelValidator {
             }
         }
         
+        // Nodes of superelements are connected as well
+        if (superelements != null) {
+            for (SuperelementDto element : superelements) {
+                if (element.getNodeIds() != null) {
+                    referencedNodeIds.addAll(element.getNodeIds());
+                }
+            }
+        }
+        
         // Isolated nodes are an engineering concern, not a loading issue - WARNING
         for (NodeDto node : nodes) {
             if (node.getId() != null && !referencedNodeIds.contains(node.getId())) {
@@ -245,6 +258,156 @@ public class ModelValidator {
         }
     }
     
+    /**
+     * Validate load cases - references must resolve, values must be finite.
+     */
+    private void validateLoadCases(List<LoadCaseDto> loadCases, List<NodeDto> nodes, List<BeamDto> beams) {
+        if (loadCases == null || nodes == null || beams == null) return;
+        
+        Set<String> validNodeIds = new HashSet<>();
+        for (NodeDto node : nodes) {
+            if (node.getId() != null) {
+                validNodeIds.add(node.getId());
+            }
+        }
+        Map<String, BeamDto> beamMap = new HashMap<>();
+        for (BeamDto beam : beams) {
+            if (beam.getId() != null) {
+                beamMap.put(beam.getId(), beam);
+            }
+        }
+        
+        for (LoadCaseDto loadCase : loadCases) {
+            String context = "Load case " + loadCase.getId();
+            if (loadCase.getNodeLoads() != null) {
+                for (LoadCaseDto.NodeLoad load : loadCase.getNodeLoads()) {
+                    if (load.getNodeId() == null || !validNodeIds.contains(load.getNodeId())) {
+                        errors.add(context + " references non-existent node: " + load.getNodeId());
+                    }
+                    validateFiniteValues(context + " load on node " + load.getNodeId(),
+                        load.getFx(), load.getFz(), load.getM());
+                }
+            }
+            if (loadCase.getBeamLoads() != null) {
+                for (LoadCaseDto.BeamLoad load : loadCase.getBeamLoads()) {
+                    BeamDto beam = beamMap.get(load.getBeamId());
+                    if (beam == null) {
+                        errors.add(context + " references non-existent beam: " + load.getBeamId());
+                    } else if (beam instanceof TrussBeamDto) {
+                        // Trusses carry no distributed loads - the load is ignored
+                        warnings.add(context + " has a distributed load on truss " + load.getBeamId() + " (ignored)");
+                    }
+                    validateFiniteValues(context + " load on beam " + load.getBeamId(),
+                        load.getVi(), load.getVk(), load.getNi(), load.getNk());
+                }
+            }
+        }
+    }
+    
+    /**
+     * Validate load combinations - load case references must resolve.
+     */
+    private void validateLoadCombinations(List<LoadCombinationDto> combinations, List<LoadCaseDto> loadCases) {
+        if (combinations == null) return;
+        
+        Set<String> validLoadCaseIds = new HashSet<>();
+        if (loadCases != null) {
+            for (LoadCaseDto loadCase : loadCases) {
+                if (loadCase.getId() != null) {
+                    validLoadCaseIds.add(loadCase.getId());
+                }
+            }
+        }
+        
+        for (LoadCombinationDto combination : combinations) {
+            String context = "Load combination " + combination.getId();
+            if (combination.getFactors() == null || combination.getFactors().isEmpty()) {
+                warnings.add(context + " contains no load cases");
+                continue;
+            }
+            for (LoadCombinationDto.Factor factor : combination.getFactors()) {
+                if (factor.getLoadCaseId() == null || !validLoadCaseIds.contains(factor.getLoadCaseId())) {
+                    errors.add(context + " references non-existent load case: " + factor.getLoadCaseId());
+                }
+                validateFiniteValues(context + " factor of " + factor.getLoadCaseId(), factor.getFactor());
+            }
+        }
+    }
+    
+    /**
+     * Validate substructures and superelements - references must resolve,
+     * every superelement needs one node per boundary node of its substructure.
+     */
+    private void validateSuperelements(List<SuperelementDto> superelements,
+            List<SubstructureDto> substructures, List<NodeDto> nodes) {
+        Map<String, SubstructureDto> substructureMap = new HashMap<>();
+        if (substructures != null) {
+            for (SubstructureDto substructure : substructures) {
+                String context = "Substructure " + substructure.getId();
+                if (substructure.getId() != null) {
+                    substructureMap.put(substructure.getId(), substructure);
+                }
+                Set<String> localNodeIds = new HashSet<>();
+                if (substructure.getNodes() != null) {
+                    validateNodeIntegrity(substructure.getNodes());
+                    for (NodeDto node : substructure.getNodes()) {
+                        localNodeIds.add(node.getId());
+                    }
+                }
+                if (substructure.getBeams() != null) {
+                    validateBeamIntegrity(substructure.getBeams());
+                    for (BeamDto beam : substructure.getBeams()) {
+                        if (beam.getNodeIds() == null) continue;
+                        for (String nodeId : beam.getNodeIds()) {
+                            if (!localNodeIds.contains(nodeId)) {
+                                errors.add(context + " beam " + beam.getId() + " references non-existent node: " + nodeId);
+                            }
+                        }
+                    }
+                }
+                if (substructure.getBoundaryNodeIds() == null || substructure.getBoundaryNodeIds().isEmpty()) {
+                    errors.add(context + " has no boundary nodes");
+                } else {
+                    for (String nodeId : substructure.getBoundaryNodeIds()) {
+                        if (!localNodeIds.contains(nodeId)) {
+                            errors.add(context + " references non-existent boundary node: " + nodeId);
+                        }
+                    }
+                }
+            }
+        }
+        if (superelements == null) return;
+        
+        Set<String> validNodeIds = new HashSet<>();
+        if (nodes != null) {
+            for (NodeDto node : nodes) {
+                if (node.getId() != null) {
+                    validNodeIds.add(node.getId());
+                }
+            }
+        }
+        
+        for (SuperelementDto element : superelements) {
+            String context = "Superelement " + element.getId();
+            SubstructureDto substructure = substructureMap.get(element.getSubstructureId());
+            if (substructure == null) {
+                errors.add(context + " references non-existent substructure: " + element.getSubstructureId());
+                continue;
+            }
+            List<String> nodeIds = element.getNodeIds() != null ? element.getNodeIds() : Collections.emptyList();
+            for (String nodeId : nodeIds) {
+                if (nodeId == null || !validNodeIds.contains(nodeId)) {
+                    errors.add(context + " references non-existent node: " + nodeId);
+                }
+            }
+            if (substructure.getBoundaryNodeIds() != null
+                    && nodeIds.size() != substructure.getBoundaryNodeIds().size()) {
+                errors.add(context + " has " + nodeIds.size() + " nodes, substructure "
+                    + substructure.getId() + " has " + substructure.getBoundaryNodeIds().size() + " boundary nodes");
+            }
+        }
+    }
+    
     /**
      * Check for geometric coincidence - useful warning but not an error.
      */
@@ -0,0 +1,196 @@
+package com.schwebke.jbeam.persistence.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Transfer Object for load cases in JSON format.
+ * A named set of nodal loads and distributed beam loads that refer
+ * to nodes and beams by their IDs.
+ */
+public class LoadCaseDto {
+    
+    @JsonProperty("id")
+    private String id;
+    
+    @JsonProperty("name")
+    private String name = "";
+    
+    @JsonProperty("nodeLoads")
+    private List<NodeLoad> nodeLoads = new ArrayList<>();
+    
+    @JsonProperty("beamLoads")
+    private List<BeamLoad> beamLoads = new ArrayList<>();
+    
+    public LoadCaseDto() {
+    }
+    
+    public LoadCaseDto(String id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+    
+    // Getters and setters
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public List<NodeLoad> getNodeLoads() {
+        return nodeLoads;
+    }
+    
+    public void setNodeLoads(List<NodeLoad> nodeLoads) {
+        this.nodeLoads = nodeLoads;
+    }
+    
+    public List<BeamLoad> getBeamLoads() {
+        return beamLoads;
+    }
+    
+    public void setBeamLoads(List<BeamLoad> beamLoads) {
+        this.beamLoads = beamLoads;
+    }
+    
+    /**
+     * Nodal load of a load case.
+     */
+    public static class NodeLoad {
+        @JsonProperty("nodeId")
+        private String nodeId;
+        
+        @JsonProperty("fx")
+        private double fx = 0.0;
+        
+        @JsonProperty("fz")
+        private double fz = 0.0;
+        
+        @JsonProperty("m")
+        private double m = 0.0;
+        
+        public NodeLoad() {
+        }
+        
+        public NodeLoad(String nodeId, double fx, double fz, double m) {
+            this.nodeId = nodeId;
+            this.fx = fx;
+            this.fz = fz;
+            this.m = m;
+        }
+        
+        public String getNodeId() {
+            return nodeId;
+        }
+        
+        public void setNodeId(String nodeId) {
+            this.nodeId = nodeId;
+        }
+        
+        public double getFx() {
+            return fx;
+        }
+        
+        public void setFx(double fx) {
+            this.fx = fx;
+        }
+        
+        public double getFz() {
+            return fz;
+        }
+        
+        public void setFz(double fz) {
+            this.fz = fz;
+        }
+        
+        public double getM() {
+            return m;
+        }
+        
+        public void setM(double m) {
+            this.m = m;
+        }
+    }
+    
+    /**
+     * Distributed beam load of a load case.
+     */
+    public static class BeamLoad {
+        @JsonProperty("beamId")
+        private String beamId;
+        
+        @JsonProperty("vi")
+        private double vi = 0.0;
+        
+        @JsonProperty("vk")
+        private double vk = 0.0;
+        
+        @JsonProperty("ni")
+        private double ni = 0.0;
+        
+        @JsonProperty("nk")
+        private double nk = 0.0;
+        
+        public BeamLoad() {
+        }
+        
+        public BeamLoad(String beamId, double vi, double vk, double ni, double nk) {
+            this.beamId = beamId;
+            this.vi = vi;
+            this.vk = vk;
+            this.ni = ni;
+            this.nk = nk;
+        }
+        
+        public String getBeamId() {
+            return beamId;
+        }
+        
+        public void setBeamId(String beamId) {
+            this.beamId = beamId;
+        }
+        
+        public double getVi() {
+            return vi;
+        }
+        
+        public void setVi(double vi) {
+            this.vi = vi;
+        }
+        
+        public double getVk() {
+            return vk;
+        }
+        
+        public void setVk(double vk) {
+            this.vk = vk;
+        }
+        
+        public double getNi() {
+            return ni;
+        }
+        
+        public void setNi(double ni) {
+            this.ni = ni;
+        }
+        
+        public double getNk() {
+            return nk;
+        }
+        
+        public void setNk(double nk) {
+            this.nk = nk;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,89 @@
+package com.schwebke.jbeam.persistence.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Transfer Object for load combinations in JSON format.
+ * A named linear combination of load cases, referred to by their IDs.
+ */
+public class LoadCombinationDto {
+    
+    @JsonProperty("id")
+    private String id;
+    
+    @JsonProperty("name")
+    private String name = "";
+    
+    @JsonProperty("factors")
+    private List<Factor> factors = new ArrayList<>();
+    
+    public LoadCombinationDto() {
+    }
+    
+    public LoadCombinationDto(String id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+    
+    // Getters and setters
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public List<Factor> getFactors() {
+        return factors;
+    }
+    
+    public void setFactors(List<Factor> factors) {
+        this.factors = factors;
+    }
+    
+    /**
+     * Load case with its factor.
+     */
+    public static class Factor {
+        @JsonProperty("loadCaseId")
+        private String loadCaseId;
+        
+        @JsonProperty("factor")
+        private double factor = 1.0;
+        
+        public Factor() {
+        }
+        
+        public Factor(String loadCaseId, double factor) {
+            this.loadCaseId = loadCaseId;
+            this.factor = factor;
+        }
+        
+        public String getLoadCaseId() {
+            return loadCaseId;
+        }
+        
+        public void setLoadCaseId(String loadCaseId) {
+            this.loadCaseId = loadCaseId;
+        }
+        
+        public double getFactor() {
+            return factor;
+        }
+        
+        public void setFactor(double factor) {
+            this.factor = factor;
+        }
+    }
+}
\ No newline at end of file
@@ -1,6 +1,8 @@
 package com.schwebke.jbeam.persistence.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -21,6 +23,22 @@ public class ModelDto {
     @JsonProperty("beams")
     private List<BeamDto> beams;
     
+    @JsonProperty("loadCases")
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<LoadCaseDto> loadCases = new ArrayList<>();
+    
+    @JsonProperty("loadCombinations")
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<LoadCombinationDto> loadCombinations = new ArrayList<>();
+    
+    @JsonProperty("substructures")
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<SubstructureDto> substructures = new ArrayList<>();
+    
+    @JsonProperty("superelements")
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<SuperelementDto> superelements = new ArrayList<>();
+    
     public ModelDto() {
     }
     
@@ -61,4 +79,36 @@ public class ModelDto {
     public void setBeams(List<BeamDto> beams) {
         this.beams = beams;
     }
+    
+    public List<LoadCaseDto> getLoadCases() {
+        return loadCases;
+    }
+    
+    public void setLoadCases(List<LoadCaseDto> loadCases) {
+        this.loadCases = loadCases;
+    }
+    
+    public List<LoadCombinationDto> getLoadCombinations() {
+        return loadCombinations;
+    }
+    
+    public void setLoadCombinations(List<LoadCombinationDto> loadCombinations) {
+        this.loadCombinations = loadCombinations;
+    }
+    
+    public List<SubstructureDto> getSubstructures() {
+        return substructures;
+    }
+    
+    public void setSubstructures(List<SubstructureDto> substructures) {
+        this.substructures = substructures;
+    }
+    
+    public List<SuperelementDto> getSuperelements() {
+        return superelements;
+    }
+    
+    public void setSuperelements(List<SuperelementDto> superelements) {
+        this.superelements = superelements;
+    }
 }
\ No newline at end of file
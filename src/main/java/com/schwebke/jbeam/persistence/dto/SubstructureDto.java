@@ -0,0 +1,78 @@
+package com.schwebke.jbeam.persistence.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Transfer Object for substructures in JSON format.
+ * Nodes and beams of the substructure in its own coordinates; the
+ * boundary nodes are referred to by their IDs, in the order of the
+ * nodes of the superelements.
+ */
+public class SubstructureDto {
+    
+    @JsonProperty("id")
+    private String id;
+    
+    @JsonProperty("name")
+    private String name = "";
+    
+    @JsonProperty("nodes")
+    private List<NodeDto> nodes = new ArrayList<>();
+    
+    @JsonProperty("beams")
+    private List<BeamDto> beams = new ArrayList<>();
+    
+    @JsonProperty("boundaryNodeIds")
+    private List<String> boundaryNodeIds = new ArrayList<>();
+    
+    public SubstructureDto() {
+    }
+    
+    public SubstructureDto(String id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+    
+    // Getters and setters
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public List<NodeDto> getNodes() {
+        return nodes;
+    }
+    
+    public void setNodes(List<NodeDto> nodes) {
+        this.nodes = nodes;
+    }
+    
+    public List<BeamDto> getBeams() {
+        return beams;
+    }
+    
+    public void setBeams(List<BeamDto> beams) {
+        this.beams = beams;
+    }
+    
+    public List<String> getBoundaryNodeIds() {
+        return boundaryNodeIds;
+    }
+    
+    public void setBoundaryNodeIds(List<String> boundaryNodeIds) {
+        this.boundaryNodeIds = boundaryNodeIds;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,66 @@
+package com.schwebke.jbeam.persistence.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Transfer Object for superelements in JSON format.
+ * Instance of a substructure placed on model nodes, one per boundary node.
+ */
+public class SuperelementDto {
+    
+    @JsonProperty("id")
+    private String id;
+    
+    @JsonProperty("label")
+    private String label = "";
+    
+    @JsonProperty("substructureId")
+    private String substructureId;
+    
+    @JsonProperty("nodeIds")
+    private List<String> nodeIds = new ArrayList<>();
+    
+    public SuperelementDto() {
+    }
+    
+    public SuperelementDto(String id, String substructureId, List<String> nodeIds) {
+        this.id = id;
+        this.substructureId = substructureId;
+        this.nodeIds = nodeIds;
+    }
+    
+    // Getters and setters
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public String getLabel() {
+        return label;
+    }
+    
+    public void setLabel(String label) {
+        this.label = label;
+    }
+    
+    public String getSubstructureId() {
+        return substructureId;
+    }
+    
+    public void setSubstructureId(String substructureId) {
+        this.substructureId = substructureId;
+    }
+    
+    public List<String> getNodeIds() {
+        return nodeIds;
+    }
+    
+    public void setNodeIds(List<String> nodeIds) {
+        this.nodeIds = nodeIds;
+    }
+}
\ No newline at end of file
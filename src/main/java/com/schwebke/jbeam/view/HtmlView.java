@@ -231,6 +231,10 @@ public class HtmlView {
             }
             writer.println("</table>");
 
+            if (model.getLoadCombinationCount() > 0) {
+                writeEnvelope(writer, locale);
+            }
+
             writer.println("</body>");
             writer.println("</html>");
 
@@ -240,4 +244,94 @@ public class HtmlView {
 
 
     }
+
+    /**
+     * Min/max over all load combinations with the governing combination,
+     * from the envelope of the last analysis (written only if current).
+     */
+    private void writeEnvelope(PrintWriter writer, PropertyResourceBundle locale) {
+        Envelope envelope = model.getEnvelope();
+        if (envelope == null) {
+            // not calculated (Model.calculateEnvelope) or outdated
+            return;
+        }
+
+        writer.println("<br><br><h2>"
+                + locale.getString("ResLoadCombinations") + "</h2>");
+        writer.println("<table cellpadding=5>");
+        for (LoadCombination combination : model.getLoadCombinationIterator()) {
+            writer.println("<tr><td bgcolor=#00FFFF>" + combination.getName() + "</td>");
+            writer.println("<td bgcolor=#CCFFCC>" + combination + "</td></tr>");
+        }
+        writer.println("</table>");
+
+        writer.println("<br><br><h2>"
+                + locale.getString("ResEnvelopes") + "</h2>");
+        writer.println("<table cellpadding=5>");
+        writer.println("<tr><th bgcolor=#FFCCCC>" + locale.getString("ResNode")
+                + "</th><th bgcolor=#CCCCFF></th><th bgcolor=#CCCCFF>min</th><th bgcolor=#CCCCFF></th>"
+                + "<th bgcolor=#CCCCFF>max</th><th bgcolor=#CCCCFF></th></tr>");
+        int index = 0;
+        for (Node node : model.getNodeIterator()) {
+            if (shouldIncludeNode(node)) {
+                if (node.getCX()) {
+                    writeExtremeRow(writer, envelope, getNodeDisplayName(node), "Fx",
+                            envelope.getNodeExtreme(index, Envelope.RFX), false);
+                }
+                if (node.getCZ()) {
+                    writeExtremeRow(writer, envelope, getNodeDisplayName(node), "Fz",
+                            envelope.getNodeExtreme(index, Envelope.RFZ), false);
+                }
+                if (node.getCR()) {
+                    writeExtremeRow(writer, envelope, getNodeDisplayName(node), "M",
+                            envelope.getNodeExtreme(index, Envelope.RM), false);
+                }
+            }
+            index++;
+        }
+        writer.println("</table>");
+
+        writer.println("<table cellpadding=5>");
+        writer.println("<tr><th bgcolor=#FFCCCC>Beam</th><th bgcolor=#CCCCFF></th>"
+                + "<th bgcolor=#CCCCFF>min</th><th bgcolor=#CCCCFF></th><th bgcolor=#CCCCFF>x/l</th>"
+                + "<th bgcolor=#CCCCFF>max</th><th bgcolor=#CCCCFF></th><th bgcolor=#CCCCFF>x/l</th></tr>");
+        index = 0;
+        for (Beam element : model.getBeamIterator()) {
+            if (shouldIncludeBeam(element)) {
+                if (element instanceof EBBeam) {
+                    writeExtremeRow(writer, envelope, getBeamDisplayName(element), "N",
+                            envelope.getBeamExtreme(index, Envelope.N), true);
+                    writeExtremeRow(writer, envelope, getBeamDisplayName(element), "V",
+                            envelope.getBeamExtreme(index, Envelope.V), true);
+                    writeExtremeRow(writer, envelope, getBeamDisplayName(element), "M",
+                            envelope.getBeamExtreme(index, Envelope.M), true);
+                }
+                if (element instanceof Truss) {
+                    writeExtremeRow(writer, envelope, getBeamDisplayName(element), "N",
+                            envelope.getBeamExtreme(index, Envelope.N), true);
+                }
+            }
+            index++;
+        }
+        writer.println("</table>");
+    }
+
+    private void writeExtremeRow(PrintWriter writer, Envelope envelope, String name,
+            String quantity, Envelope.Extreme extreme, boolean position) {
+        writer.println("<tr><td bgcolor=#00FFFF>" + name + "</td>");
+        writer.println("<td bgcolor=#CCCCFF>" + quantity + "</td>");
+        writer.println("<td align=right bgcolor=#CCFFCC>" + format(extreme.getMin()) + "</td>");
+        writer.println("<td bgcolor=#CCFFCC>"
+                + envelope.getCombination(extreme.getMinCombination()).getName() + "</td>");
+        if (position) {
+            writer.println("<td align=right bgcolor=#CCFFCC>" + format(extreme.getMinPosition()) + "</td>");
+        }
+        writer.println("<td align=right bgcolor=#CCFFCC>" + format(extreme.getMax()) + "</td>");
+        writer.println("<td bgcolor=#CCFFCC>"
+                + envelope.getCombination(extreme.getMaxCombination()).getName() + "</td>");
+        if (position) {
+            writer.println("<td align=right bgcolor=#CCFFCC>" + format(extreme.getMaxPosition()) + "</td>");
+        }
+        writer.println("</tr>");
+    }
 }
@@ -168,10 +168,77 @@ public class TextView {
                     }
                 }
             }
+
+            if (model.getLoadCombinationCount() > 0) {
+                writeEnvelope(writer, locale);
+            }
         } catch (Exception e) {
             System.out.println("TextView error: " + e.getMessage());
         }
 
 
     }
+
+    /**
+     * Min/max over all load combinations with the governing combination,
+     * from the envelope of the last analysis (written only if current).
+     */
+    private void writeEnvelope(PrintWriter writer, PropertyResourceBundle locale) {
+        Envelope envelope = model.getEnvelope();
+        if (envelope == null) {
+            // not calculated (Model.calculateEnvelope) or outdated
+            return;
+        }
+
+        writer.println();
+        writer.println("   " + locale.getString("ResLoadCombinations"));
+        for (LoadCombination combination : model.getLoadCombinationIterator()) {
+            writer.println("      " + combination.getName() + " = " + combination);
+        }
+
+        writer.println();
+        writer.println("   " + locale.getString("ResEnvelopes"));
+        int index = 0;
+        for (Node node : model.getNodeIterator()) {
+            if (shouldIncludeNode(node) && (node.getCX() || node.getCZ() || node.getCR())) {
+                writer.println("      " + locale.getString("ResNode")
+                        + " " + getNodeDisplayName(node));
+                if (node.getCX()) {
+                    writer.println("         Fx " + formatExtreme(envelope, envelope.getNodeExtreme(index, Envelope.RFX), false));
+                }
+                if (node.getCZ()) {
+                    writer.println("         Fz " + formatExtreme(envelope, envelope.getNodeExtreme(index, Envelope.RFZ), false));
+                }
+                if (node.getCR()) {
+                    writer.println("         M  " + formatExtreme(envelope, envelope.getNodeExtreme(index, Envelope.RM), false));
+                }
+            }
+            index++;
+        }
+        index = 0;
+        for (Beam element : model.getBeamIterator()) {
+            if (shouldIncludeBeam(element)) {
+                if (element instanceof EBBeam) {
+                    writer.println("      EB-beam " + getBeamDisplayName(element));
+                    writer.println("         N  " + formatExtreme(envelope, envelope.getBeamExtreme(index, Envelope.N), true));
+                    writer.println("         V  " + formatExtreme(envelope, envelope.getBeamExtreme(index, Envelope.V), true));
+                    writer.println("         M  " + formatExtreme(envelope, envelope.getBeamExtreme(index, Envelope.M), true));
+                }
+                if (element instanceof Truss) {
+                    writer.println("      Truss " + getBeamDisplayName(element));
+                    writer.println("         N  " + formatExtreme(envelope, envelope.getBeamExtreme(index, Envelope.N), false));
+                }
+            }
+            index++;
+        }
+    }
+
+    private String formatExtreme(Envelope envelope, Envelope.Extreme extreme, boolean position) {
+        return "min = " + format(extreme.getMin())
+                + " (" + envelope.getCombination(extreme.getMinCombination()).getName()
+                + (position ? ", x/l = " + format(extreme.getMinPosition()) : "") + ")"
+                + "   max = " + format(extreme.getMax())
+                + " (" + envelope.getCombination(extreme.getMaxCombination()).getName()
+                + (position ? ", x/l = " + format(extreme.getMaxPosition()) : "") + ")";
+    }
 }
@@ -0,0 +1,745 @@
+package com.schwebke.math;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+  * Smoothed aggregation algebraic multigrid preconditioner for
+  * symmetric positive definite systems of structural models.
+  *
+  * Setup, level by level:
+  *  - strong connections between the nodes (the unknowns of a node are
+  *    aggregated together): |A_ab| > theta sqrt(|A_aa| |A_bb|) with the
+  *    Frobenius norms of the node blocks
+  *  - aggregation of every node with its strongly connected neighbours
+  *  - tentative prolongator T: the near null space (rigid body modes)
+  *    restricted to an aggregate and orthonormalized; the coefficients
+  *    form the near null space of the next level
+  *  - smoothed prolongator P = (I - omega D^-1 A) T with
+  *    omega = 4/3 / rho(D^-1 A)
+  *  - coarse matrix P^T A P
+  * until at most coarseSize unknowns are left; the coarsest system is
+  * solved by dense Cholesky decomposition (up to denseLimit unknowns).
+  *
+  * apply is one V-cycle with forward Gauss-Seidel sweeps before and
+  * backward sweeps after the coarse grid correction, so the
+  * preconditioner is symmetric as required by the CG method.
+  *
+  * See P. Vanek, J. Mandel, M. Brezina, "Algebraic multigrid by smoothed
+  * aggregation for second and fourth order elliptic problems",
+  * Computing 56 (1996).
+  */
+public class AMGPreconditioner implements Preconditioner
+{
+   /// strength threshold of the aggregation
+   public static double theta = 0.08;
+   /// maximum number of unknowns of the coarsest level
+   public static int coarseSize = 400;
+   /// maximum number of levels
+   public static int maxLevels = 12;
+   /// Gauss-Seidel sweeps before and after the coarse grid correction
+   public static int sweeps = 1;
+   /**
+     * maximum size of the coarsest level for the dense Cholesky solver;
+     * if coarsening stalls above it, the coarsest level is smoothed only
+     */
+   public static int denseLimit = 3000;
+
+   /**
+     * scalar problem: every unknown is a node of its own, the near null
+     * space is the constant vector
+     */
+   public AMGPreconditioner(CSRMatrix A)
+   {
+      this(A, identity(A.getN()), new double[][] {constant(A.getN())});
+   }
+
+   /**
+     * node[i]: node (0 ... number of nodes - 1) of unknown i;
+     * nullspace: k vectors of length n spanning the near null space
+     * of A (rigid body modes)
+     */
+   public AMGPreconditioner(CSRMatrix A, int[] node, double[][] nullspace)
+   {
+      List<CSRMatrix> a = new ArrayList<CSRMatrix>();
+      List<CSRMatrix> p = new ArrayList<CSRMatrix>();
+      List<CSRMatrix> r = new ArrayList<CSRMatrix>();
+
+      int k = nullspace.length;
+      int n = A.getN();
+      double[] B = new double [n*k];
+      for (int i = 0; i < n; ++i)
+      {
+	 for (int c = 0; c < k; ++c)
+	 {
+	    B[i*k+c] = nullspace[c][i];
+	 }
+      }
+
+      CSRMatrix Ak = A;
+      int[] nodes = node;
+      while ( (Ak.getN() > coarseSize) && (a.size() < maxLevels-1) )
+      {
+	 int nn = 0;
+	 for (int v : nodes)
+	 {
+	    nn = Math.max(nn, v+1);
+	 }
+	 int[] aggregate = new int [nn];
+	 int na = aggregate(Ak, nodes, nn, aggregate);
+	 if (na == nn)
+	 {
+	    break;
+	 }
+
+	 // tentative prolongator and coarse near null space
+	 double[][] coarse = new double [1][];
+	 int[][] coarseNode = new int [1][];
+	 CSRMatrix T = tentative(Ak.getN(), nodes, aggregate, na, B, k, coarse, coarseNode);
+	 int nc = coarseNode[0].length;
+	 if (nc >= Ak.getN())
+	 {
+	    break;
+	 }
+
+	 CSRMatrix P = smooth(Ak, T, nc);
+	 CSRMatrix R = transpose(P, nc);
+	 a.add(Ak);
+	 p.add(P);
+	 r.add(R);
+	 Ak = multiply(R, multiply(Ak, P, nc), nc);
+	 nodes = coarseNode[0];
+	 B = coarse[0];
+      }
+      a.add(Ak);
+
+      levels = a.size();
+      this.A = a.toArray(new CSRMatrix [levels]);
+      this.P = p.toArray(new CSRMatrix [levels-1]);
+      this.R = r.toArray(new CSRMatrix [levels-1]);
+      invDiag = new double [levels][];
+      x = new double [levels][];
+      b = new double [levels][];
+      res = new double [levels][];
+      for (int l = 0; l < levels; ++l)
+      {
+	 int nl = this.A[l].getN();
+	 double[] d = this.A[l].getDiagonal();
+	 invDiag[l] = new double [nl];
+	 for (int i = 0; i < nl; ++i)
+	 {
+	    invDiag[l][i] = (d[i] != 0.) ? 1./d[i] : 1.;
+	 }
+	 x[l] = new double [nl];
+	 b[l] = new double [nl];
+	 res[l] = new double [nl];
+      }
+
+      // coarsest level: dense Cholesky decomposition
+      nCoarse = Ak.getN();
+      if (nCoarse > denseLimit)
+      {
+	 return;
+      }
+      coarseFactor = new double [nCoarse*nCoarse];
+      int[] ptr = Ak.getRowPtr();
+      int[] idx = Ak.getColIdx();
+      double[] val = Ak.getVal();
+      for (int i = 0; i < nCoarse; ++i)
+      {
+	 for (int e = ptr[i]; e < ptr[i+1]; ++e)
+	 {
+	    coarseFactor[i*nCoarse+idx[e]] = val[e];
+	 }
+      }
+      Solver.factorizeCholesky(coarseFactor, nCoarse);
+   }
+
+   /// z = M^-1 r: one V-cycle for A z = r with start vector 0
+   public void apply(double[] r, double[] z)
+   {
+      System.arraycopy(r, 0, b[0], 0, r.length);
+      cycle(0);
+      System.arraycopy(x[0], 0, z, 0, z.length);
+   }
+
+   /// Anzahl der Stufen
+   public int getLevels()
+   {
+      return levels;
+   }
+
+   /// Anzahl der Unbekannten der Stufe l (0: feinste)
+   public int getLevelSize(int l)
+   {
+      return A[l].getN();
+   }
+
+   /**
+     * operator complexity: nonzeros of all levels relative to the
+     * nonzeros of A
+     */
+   public double getComplexity()
+   {
+      double nnz = 0.;
+      for (int l = 0; l < levels; ++l)
+      {
+	 nnz += A[l].getNnz();
+      }
+      return nnz/A[0].getNnz();
+   }
+
+   /// V-cycle on level l: x[l] = approximation of A[l]^-1 b[l]
+   protected void cycle(int l)
+   {
+      double[] xl = x[l];
+      if ( (l == levels-1) && (coarseFactor == null) )
+      {
+	 Arrays.fill(xl, 0.);
+	 gaussSeidel(l, true);
+	 gaussSeidel(l, false);
+	 return;
+      }
+      if (l == levels-1)
+      {
+	 System.arraycopy(b[l], 0, xl, 0, xl.length);
+	 Solver.substCholesky(coarseFactor, nCoarse, xl);
+	 return;
+      }
+
+      Arrays.fill(xl, 0.);
+      for (int s = 0; s < sweeps; ++s)
+      {
+	 gaussSeidel(l, true);
+      }
+
+      // coarse grid correction
+      A[l].apply(xl, res[l]);
+      for (int i = 0; i < xl.length; ++i)
+      {
+	 res[l][i] = b[l][i]-res[l][i];
+      }
+      R[l].apply(res[l], b[l+1]);
+      cycle(l+1);
+      CSRMatrix Pl = P[l];
+      int[] ptr = Pl.getRowPtr();
+      int[] idx = Pl.getColIdx();
+      double[] val = Pl.getVal();
+      double[] xc = x[l+1];
+      for (int i = 0; i < xl.length; ++i)
+      {
+	 double s = 0.;
+	 for (int e = ptr[i]; e < ptr[i+1]; ++e)
+	 {
+	    s += val[e]*xc[idx[e]];
+	 }
+	 xl[i] += s;
+      }
+
+      for (int s = 0; s < sweeps; ++s)
+      {
+	 gaussSeidel(l, false);
+      }
+   }
+
+   /// Gauss-Seidel sweep on level l (forward or backward)
+   protected void gaussSeidel(int l, boolean forward)
+   {
+      int[] ptr = A[l].getRowPtr();
+      int[] idx = A[l].getColIdx();
+      double[] val = A[l].getVal();
+      double[] xl = x[l];
+      double[] bl = b[l];
+      double[] d = invDiag[l];
+      int n = xl.length;
+      for (int k = 0; k < n; ++k)
+      {
+	 int i = forward ? k : n-1-k;
+	 double s = bl[i];
+	 for (int e = ptr[i]; e < ptr[i+1]; ++e)
+	 {
+	    s -= val[e]*xl[idx[e]];
+	 }
+	 xl[i] += d[i]*s;
+      }
+   }
+
+   /**
+     * Aggregation of the nn nodes by their strong connections:
+     * aggregate[v] is the aggregate of node v; returns the number of
+     * aggregates.
+     */
+   protected static int aggregate(CSRMatrix A, int[] node, int nn, int[] aggregate)
+   {
+      int[] ptr = A.getRowPtr();
+      int[] idx = A.getColIdx();
+      double[] val = A.getVal();
+      int n = A.getN();
+
+      // unknowns of every node
+      int[] first = new int [nn+1];
+      for (int i = 0; i < n; ++i)
+      {
+	 first[node[i]+1]++;
+      }
+      for (int v = 0; v < nn; ++v)
+      {
+	 first[v+1] += first[v];
+      }
+      int[] unknowns = new int [n];
+      int[] fill = Arrays.copyOf(first, nn);
+      for (int i = 0; i < n; ++i)
+      {
+	 unknowns[fill[node[i]]++] = i;
+      }
+
+      // squared Frobenius norms of the node blocks
+      double[] diag = new double [nn];
+      for (int i = 0; i < n; ++i)
+      {
+	 for (int e = ptr[i]; e < ptr[i+1]; ++e)
+	 {
+	    if (node[idx[e]] == node[i])
+	    {
+	       diag[node[i]] += val[e]*val[e];
+	    }
+	 }
+      }
+
+      // strong connections (graph without self loops)
+      int[] xadj = new int [nn+1];
+      List<Integer> adj = new ArrayList<Integer>();
+      double[] block = new double [nn];
+      int[] neighbours = new int [nn];
+      boolean[] marked = new boolean [nn];
+      double theta2 = theta*theta;
+      for (int v = 0; v < nn; ++v)
+      {
+	 int count = 0;
+	 for (int u = first[v]; u < first[v+1]; ++u)
+	 {
+	    int i = unknowns[u];
+	    for (int e = ptr[i]; e < ptr[i+1]; ++e)
+	    {
+	       int w = node[idx[e]];
+	       if (w == v)
+	       {
+		  continue;
+	       }
+	       if (!marked[w])
+	       {
+		  marked[w] = true;
+		  neighbours[count++] = w;
+	       }
+	       block[w] += val[e]*val[e];
+	    }
+	 }
+	 Arrays.sort(neighbours, 0, count);
+	 for (int c = 0; c < count; ++c)
+	 {
+	    int w = neighbours[c];
+	    if (block[w] > theta2*Math.sqrt(diag[v]*diag[w]))
+	    {
+	       adj.add(w);
+	    }
+	    block[w] = 0.;
+	    marked[w] = false;
+	 }
+	 xadj[v+1] = adj.size();
+      }
+
+      // 1. nodes whose strong neighbours are all free, with these neighbours
+      Arrays.fill(aggregate, -1);
+      int na = 0;
+      for (int v = 0; v < nn; ++v)
+      {
+	 if (aggregate[v] >= 0)
+	 {
+	    continue;
+	 }
+	 boolean free = true;
+	 for (int e = xadj[v]; e < xadj[v+1]; ++e)
+	 {
+	    if (aggregate[adj.get(e)] >= 0)
+	    {
+	       free = false;
+	       break;
+	    }
+	 }
+	 if (free)
+	 {
+	    aggregate[v] = na;
+	    for (int e = xadj[v]; e < xadj[v+1]; ++e)
+	    {
+	       aggregate[adj.get(e)] = na;
+	    }
+	    na++;
+	 }
+      }
+
+      // 2. remaining nodes join an aggregate of a strong neighbour
+      int[] phase1 = aggregate.clone();
+      for (int v = 0; v < nn; ++v)
+      {
+	 if (aggregate[v] >= 0)
+	 {
+	    continue;
+	 }
+	 for (int e = xadj[v]; e < xadj[v+1]; ++e)
+	 {
+	    if (phase1[adj.get(e)] >= 0)
+	    {
+	       aggregate[v] = phase1[adj.get(e)];
+	       break;
+	    }
+	 }
+      }
+
+      // 3. new aggregates of the rest
+      for (int v = 0; v < nn; ++v)
+      {
+	 if (aggregate[v] >= 0)
+	 {
+	    continue;
+	 }
+	 aggregate[v] = na;
+	 for (int e = xadj[v]; e < xadj[v+1]; ++e)
+	 {
+	    if (aggregate[adj.get(e)] < 0)
+	    {
+	       aggregate[adj.get(e)] = na;
+	    }
+	 }
+	 na++;
+      }
+      return na;
+   }
+
+   /**
+     * Tentative prolongator (n x nc): the near null space B (n x k,
+     * row-major) restricted to every aggregate, orthonormalized by
+     * modified Gram-Schmidt (dependent vectors are dropped). Returns the
+     * coarse near null space (nc x k) in coarse[0] and the aggregate of
+     * every coarse unknown in coarseNode[0].
+     */
+   protected static CSRMatrix tentative(int n, int[] node, int[] aggregate, int na,
+					double[] B, int k, double[][] coarse, int[][] coarseNode)
+   {
+      // unknowns of every aggregate
+      int[] first = new int [na+1];
+      for (int i = 0; i < n; ++i)
+      {
+	 first[aggregate[node[i]]+1]++;
+      }
+      for (int g = 0; g < na; ++g)
+      {
+	 first[g+1] += first[g];
+      }
+      int[] unknowns = new int [n];
+      int[] fill = Arrays.copyOf(first, na);
+      for (int i = 0; i < n; ++i)
+      {
+	 unknowns[fill[aggregate[node[i]]]++] = i;
+      }
+
+      // orthonormal basis Q of every aggregate, column by column
+      double[][] Q = new double [na][];
+      int[] columns = new int [na+1];
+      for (int g = 0; g < na; ++g)
+      {
+	 int m = first[g+1]-first[g];
+	 double[] q = new double [m*k];
+	 int kept = 0;
+	 for (int c = 0; c < k; ++c)
+	 {
+	    double[] v = new double [m];
+	    double norm0 = 0.;
+	    for (int u = 0; u < m; ++u)
+	    {
+	       v[u] = B[unknowns[first[g]+u]*k+c];
+	       norm0 += v[u]*v[u];
+	    }
+	    for (int j = 0; j < kept; ++j)
+	    {
+	       double s = 0.;
+	       for (int u = 0; u < m; ++u)
+	       {
+		  s += q[u*k+j]*v[u];
+	       }
+	       for (int u = 0; u < m; ++u)
+	       {
+		  v[u] -= s*q[u*k+j];
+	       }
+	    }
+	    double norm = 0.;
+	    for (int u = 0; u < m; ++u)
+	    {
+	       norm += v[u]*v[u];
+	    }
+	    if ( (norm0 == 0.) || (norm <= 1E-20*norm0) )
+	    {
+	       continue;
+	    }
+	    norm = Math.sqrt(norm);
+	    for (int u = 0; u < m; ++u)
+	    {
+	       q[u*k+kept] = v[u]/norm;
+	    }
+	    kept++;
+	 }
+	 Q[g] = q;
+	 columns[g+1] = columns[g]+kept;
+      }
+
+      // T and the coarse near null space R = Q^T B
+      int nc = columns[na];
+      int[] ptr = new int [n+1];
+      for (int i = 0; i < n; ++i)
+      {
+	 int g = aggregate[node[i]];
+	 ptr[i+1] = ptr[i]+columns[g+1]-columns[g];
+      }
+      int[] idx = new int [ptr[n]];
+      double[] val = new double [ptr[n]];
+      double[] Bc = new double [nc*k];
+      int[] cn = new int [nc];
+      for (int g = 0; g < na; ++g)
+      {
+	 int kept = columns[g+1]-columns[g];
+	 for (int j = 0; j < kept; ++j)
+	 {
+	    cn[columns[g]+j] = g;
+	 }
+	 for (int u = 0; u < first[g+1]-first[g]; ++u)
+	 {
+	    int i = unknowns[first[g]+u];
+	    for (int j = 0; j < kept; ++j)
+	    {
+	       double q = Q[g][u*k+j];
+	       idx[ptr[i]+j] = columns[g]+j;
+	       val[ptr[i]+j] = q;
+	       for (int c = 0; c < k; ++c)
+	       {
+		  Bc[(columns[g]+j)*k+c] += q*B[i*k+c];
+	       }
+	    }
+	 }
+      }
+      coarse[0] = Bc;
+      coarseNode[0] = cn;
+      return new CSRMatrix(n, ptr, idx, val);
+   }
+
+   /**
+     * Smoothed prolongator P = (I - omega D^-1 A) T with
+     * omega = 4/3 / rho(D^-1 A), rho estimated by power iteration
+     */
+   protected static CSRMatrix smooth(CSRMatrix A, CSRMatrix T, int nc)
+   {
+      int n = A.getN();
+      double[] d = A.getDiagonal();
+
+      // power iteration for rho(D^-1 A), deterministic start vector
+      double[] v = new double [n];
+      double[] w = new double [n];
+      long seed = 12345;
+      for (int i = 0; i < n; ++i)
+      {
+	 seed = seed*6364136223846793005L+1442695040888963407L;
+	 v[i] = 0.5+(seed >>> 40)/(double) (1L << 24);
+      }
+      double rho = 0.;
+      for (int it = 0; it < 15; ++it)
+      {
+	 double norm = 0.;
+	 for (int i = 0; i < n; ++i)
+	 {
+	    norm += v[i]*v[i];
+	 }
+	 norm = Math.sqrt(norm);
+	 for (int i = 0; i < n; ++i)
+	 {
+	    v[i] /= norm;
+	 }
+	 A.apply(v, w);
+	 rho = 0.;
+	 for (int i = 0; i < n; ++i)
+	 {
+	    w[i] = (d[i] != 0.) ? w[i]/d[i] : w[i];
+	    rho += v[i]*w[i];
+	 }
+	 double[] t = v;
+	 v = w;
+	 w = t;
+      }
+      double omega = 4./(3.*Math.max(rho, 1E-300));
+
+      // P = T - omega D^-1 (A T)
+      CSRMatrix AT = multiply(A, T, nc);
+      int[] tPtr = T.getRowPtr();
+      int[] tIdx = T.getColIdx();
+      double[] tVal = T.getVal();
+      int[] aPtr = AT.getRowPtr();
+      int[] aIdx = AT.getColIdx();
+      double[] aVal = AT.getVal();
+      double[] acc = new double [nc];
+      boolean[] used = new boolean [nc];
+      int[] cols = new int [nc];
+      int[] ptr = new int [n+1];
+      int[] idx = new int [aPtr[n]+tPtr[n]];
+      double[] val = new double [idx.length];
+      int f = 0;
+      for (int i = 0; i < n; ++i)
+      {
+	 int count = 0;
+	 double s = (d[i] != 0.) ? omega/d[i] : omega;
+	 for (int e = aPtr[i]; e < aPtr[i+1]; ++e)
+	 {
+	    if (!used[aIdx[e]])
+	    {
+	       used[aIdx[e]] = true;
+	       cols[count++] = aIdx[e];
+	    }
+	    acc[aIdx[e]] -= s*aVal[e];
+	 }
+	 for (int e = tPtr[i]; e < tPtr[i+1]; ++e)
+	 {
+	    if (!used[tIdx[e]])
+	    {
+	       used[tIdx[e]] = true;
+	       cols[count++] = tIdx[e];
+	    }
+	    acc[tIdx[e]] += tVal[e];
+	 }
+	 Arrays.sort(cols, 0, count);
+	 for (int c = 0; c < count; ++c)
+	 {
+	    idx[f] = cols[c];
+	    val[f++] = acc[cols[c]];
+	    acc[cols[c]] = 0.;
+	    used[cols[c]] = false;
+	 }
+	 ptr[i+1] = f;
+      }
+      return new CSRMatrix(n, ptr, Arrays.copyOf(idx, f), Arrays.copyOf(val, f));
+   }
+
+   /// Product A B of A (n x l) and B (l x m), columns ascending
+   protected static CSRMatrix multiply(CSRMatrix A, CSRMatrix B, int m)
+   {
+      int n = A.getN();
+      int[] aPtr = A.getRowPtr();
+      int[] aIdx = A.getColIdx();
+      double[] aVal = A.getVal();
+      int[] bPtr = B.getRowPtr();
+      int[] bIdx = B.getColIdx();
+      double[] bVal = B.getVal();
+
+      double[] acc = new double [m];
+      boolean[] used = new boolean [m];
+      int[] cols = new int [m];
+      int[] ptr = new int [n+1];
+      int[] idx = new int [Math.max(aPtr[n], 16)];
+      double[] val = new double [idx.length];
+      int f = 0;
+      for (int i = 0; i < n; ++i)
+      {
+	 int count = 0;
+	 for (int e = aPtr[i]; e < aPtr[i+1]; ++e)
+	 {
+	    int j = aIdx[e];
+	    for (int eb = bPtr[j]; eb < bPtr[j+1]; ++eb)
+	    {
+	       int c = bIdx[eb];
+	       if (!used[c])
+	       {
+		  used[c] = true;
+		  cols[count++] = c;
+	       }
+	       acc[c] += aVal[e]*bVal[eb];
+	    }
+	 }
+	 if (f+count > idx.length)
+	 {
+	    int size = Math.max(2*idx.length, f+count);
+	    idx = Arrays.copyOf(idx, size);
+	    val = Arrays.copyOf(val, size);
+	 }
+	 Arrays.sort(cols, 0, count);
+	 for (int c = 0; c < count; ++c)
+	 {
+	    idx[f] = cols[c];
+	    val[f++] = acc[cols[c]];
+	    acc[cols[c]] = 0.;
+	    used[cols[c]] = false;
+	 }
+	 ptr[i+1] = f;
+      }
+      return new CSRMatrix(n, ptr, Arrays.copyOf(idx, f), Arrays.copyOf(val, f));
+   }
+
+   /// Transpose of A (n x m) as m x n matrix
+   protected static CSRMatrix transpose(CSRMatrix A, int m)
+   {
+      int n = A.getN();
+      int[] aPtr = A.getRowPtr();
+      int[] aIdx = A.getColIdx();
+      double[] aVal = A.getVal();
+      int[] ptr = new int [m+1];
+      for (int e = 0; e < aPtr[n]; ++e)
+      {
+	 ptr[aIdx[e]+1]++;
+      }
+      for (int j = 0; j < m; ++j)
+      {
+	 ptr[j+1] += ptr[j];
+      }
+      int[] fill = Arrays.copyOf(ptr, m);
+      int[] idx = new int [aPtr[n]];
+      double[] val = new double [aPtr[n]];
+      for (int i = 0; i < n; ++i)
+      {
+	 for (int e = aPtr[i]; e < aPtr[i+1]; ++e)
+	 {
+	    idx[fill[aIdx[e]]] = i;
+	    val[fill[aIdx[e]]++] = aVal[e];
+	 }
+      }
+      return new CSRMatrix(m, ptr, idx, val);
+   }
+
+   protected static int[] identity(int n)
+   {
+      int[] node = new int [n];
+      for (int i = 0; i < n; ++i)
+      {
+	 node[i] = i;
+      }
+      return node;
+   }
+
+   protected static double[] constant(int n)
+   {
+      double[] c = new double [n];
+      Arrays.fill(c, 1.);
+      return c;
+   }
+
+   /// Anzahl der Stufen
+   protected int levels;
+   /// Matrizen der Stufen (0: A)
+   protected CSRMatrix[] A;
+   /// Prolongation von Stufe l+1 nach l
+   protected CSRMatrix[] P;
+   /// Restriktion P^T
+   protected CSRMatrix[] R;
+   protected double[][] invDiag;
+   /// Arbeitsvektoren der Stufen
+   protected double[][] x;
+   protected double[][] b;
+   protected double[][] res;
+   /// Cholesky-Faktor der groebsten Stufe (flach, null: nur glaetten)
+   protected double[] coarseFactor;
+   protected int nCoarse;
+}
@@ -0,0 +1,190 @@
+package com.schwebke.math;
+
+import java.util.Arrays;
+
+/**
+  * Symmetric sparse matrix, stored as lower triangle in compressed
+  * sparse column form: the entries of column j are
+  * val[colPtr[j]] ... val[colPtr[j+1]-1] in the rows
+  * rowIdx[colPtr[j]] ... (ascending, the diagonal first).
+  *
+  * The structure is fixed at construction (symbolic phase), values
+  * are added afterwards without any allocation (numeric phase).
+  */
+public class CSCMatrix
+{
+   /// Neue Matrix mit gegebener Struktur erzeugen (Werte 0)
+   public CSCMatrix(int n, int[] colPtr, int[] rowIdx)
+   {
+      this.n = n;
+      this.colPtr = colPtr;
+      this.rowIdx = rowIdx;
+      val = new double [colPtr[n]];
+   }
+
+   /**
+     * Structure of the lower triangle of a matrix assembled from
+     * elements. Each element is given by its location vector of
+     * 0-based global indices; negative entries are skipped.
+     * The diagonal is always part of the structure.
+     */
+   public static CSCMatrix fromElements(int n, int[][] elements)
+   {
+      int[] count = new int [n+1];
+      for (int j = 0; j < n; ++j)
+      {
+	 count[j] = 1;
+      }
+      for (int[] lv : elements)
+      {
+	 for (int a = 0; a < lv.length; ++a)
+	 {
+	    for (int b = 0; b < lv.length; ++b)
+	    {
+	       if ( (lv[a] >= 0) && (lv[b] >= 0) && (lv[a] > lv[b]) )
+	       {
+		  count[lv[b]]++;
+	       }
+	    }
+	 }
+      }
+
+      int[] ptr = new int [n+1];
+      for (int j = 0; j < n; ++j)
+      {
+	 ptr[j+1] = ptr[j]+count[j];
+      }
+      int[] idx = new int [ptr[n]];
+      int[] fill = new int [n];
+      for (int j = 0; j < n; ++j)
+      {
+	 idx[ptr[j]] = j;
+	 fill[j] = 1;
+      }
+      for (int[] lv : elements)
+      {
+	 for (int a = 0; a < lv.length; ++a)
+	 {
+	    for (int b = 0; b < lv.length; ++b)
+	    {
+	       if ( (lv[a] >= 0) && (lv[b] >= 0) && (lv[a] > lv[b]) )
+	       {
+		  idx[ptr[lv[b]]+fill[lv[b]]++] = lv[a];
+	       }
+	    }
+	 }
+      }
+
+      // sort and remove duplicates
+      int[] colPtr = new int [n+1];
+      int k = 0;
+      for (int j = 0; j < n; ++j)
+      {
+	 Arrays.sort(idx, ptr[j], ptr[j+1]);
+	 colPtr[j] = k;
+	 for (int e = ptr[j]; e < ptr[j+1]; ++e)
+	 {
+	    if ( (e == ptr[j]) || (idx[e] != idx[e-1]) )
+	    {
+	       idx[k++] = idx[e];
+	    }
+	 }
+      }
+      colPtr[n] = k;
+
+      return new CSCMatrix(n, colPtr, Arrays.copyOf(idx, k));
+   }
+
+   /// Matrix kopieren (die Struktur wird gemeinsam verwendet)
+   public static CSCMatrix duplicate(CSCMatrix A)
+   {
+      CSCMatrix M = new CSCMatrix(A.n, A.colPtr, A.rowIdx);
+      System.arraycopy(A.val, 0, M.val, 0, A.val.length);
+      return M;
+   }
+
+   /// Index des Eintrags (row, col) in val, -1 falls nicht in der Struktur
+   public int find(int row, int col)
+   {
+      int e = Arrays.binarySearch(rowIdx, colPtr[col], colPtr[col+1], row);
+      return (e >= 0) ? e : -1;
+   }
+
+   /// Wert an der Stelle (row, col) mit row >= col aufaddieren
+   public void add(int row, int col, double v)
+   {
+      int e = find(row, col);
+      if (e < 0)
+      {
+	 throw new ArrayIndexOutOfBoundsException("CSCMatrix: entry not in structure");
+      }
+      val[e] += v;
+   }
+
+   /// Element an der Stelle (row, col) lesen (beliebiges Dreieck)
+   public double get(int row, int col)
+   {
+      int e = (row >= col) ? find(row, col) : find(col, row);
+      return (e >= 0) ? val[e] : 0.;
+   }
+
+   /// Alle Werte auf 0 setzen (Struktur bleibt erhalten)
+   public void clear()
+   {
+      Arrays.fill(val, 0.);
+   }
+
+   /// Matrix-Vektor-Produkt der symmetrischen Matrix
+   public static double[] multiply(CSCMatrix A, double[] b)
+   {
+      double[] r = new double [A.n];
+      for (int j = 0; j < A.n; ++j)
+      {
+	 double bj = b[j];
+	 double sum = 0.;
+	 for (int e = A.colPtr[j]; e < A.colPtr[j+1]; ++e)
+	 {
+	    int i = A.rowIdx[e];
+	    r[i] += A.val[e]*bj;
+	    if (i != j)
+	    {
+	       sum += A.val[e]*b[i];
+	    }
+	 }
+	 r[j] += sum;
+      }
+      return r;
+   }
+
+   /// Dimension
+   public int getN()
+   {
+      return n;
+   }
+
+   /// Anzahl der gespeicherten Einträge (unteres Dreieck)
+   public int getNnz()
+   {
+      return colPtr[n];
+   }
+
+   public int[] getColPtr()
+   {
+      return colPtr;
+   }
+
+   public int[] getRowIdx()
+   {
+      return rowIdx;
+   }
+
+   public double[] getVal()
+   {
+      return val;
+   }
+
+   protected int n;
+   protected int[] colPtr;
+   protected int[] rowIdx;
+   protected double[] val;
+}
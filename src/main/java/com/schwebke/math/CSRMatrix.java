@@ -0,0 +1,139 @@
+package com.schwebke.math;
+
+/**
+  * Sparse matrix in compressed sparse row form with both triangles
+  * stored: the entries of row i are val[rowPtr[i]] ... val[rowPtr[i+1]-1]
+  * in the columns colIdx[rowPtr[i]] ... (ascending).
+  *
+  * Memory and the cost of a product are O(nnz).
+  */
+public class CSRMatrix implements LinearOperator
+{
+   /// Neue Matrix mit gegebener Struktur und Werten
+   public CSRMatrix(int n, int[] rowPtr, int[] colIdx, double[] val)
+   {
+      this.n = n;
+      this.rowPtr = rowPtr;
+      this.colIdx = colIdx;
+      this.val = val;
+   }
+
+   /**
+     * Full symmetric matrix from its lower triangle in CSC form
+     * (column j of the lower triangle is row j of the upper one).
+     */
+   public static CSRMatrix fromLowerCSC(CSCMatrix L)
+   {
+      int n = L.getN();
+      int[] cp = L.getColPtr();
+      int[] ri = L.getRowIdx();
+      double[] cv = L.getVal();
+
+      int[] count = new int [n];
+      for (int j = 0; j < n; ++j)
+      {
+	 for (int e = cp[j]; e < cp[j+1]; ++e)
+	 {
+	    count[ri[e]]++;
+	    if (ri[e] != j)
+	    {
+	       count[j]++;
+	    }
+	 }
+      }
+      int[] ptr = new int [n+1];
+      for (int i = 0; i < n; ++i)
+      {
+	 ptr[i+1] = ptr[i]+count[i];
+      }
+      int[] idx = new int [ptr[n]];
+      double[] v = new double [ptr[n]];
+      int[] fill = new int [n];
+      System.arraycopy(ptr, 0, fill, 0, n);
+
+      // row i: lower part (columns j < i) from the columns j in ascending
+      // order, then diagonal and upper part from column i
+      for (int j = 0; j < n; ++j)
+      {
+	 for (int e = cp[j]; e < cp[j+1]; ++e)
+	 {
+	    int i = ri[e];
+	    if (i != j)
+	    {
+	       idx[fill[i]] = j;
+	       v[fill[i]++] = cv[e];
+	    }
+	 }
+	 for (int e = cp[j]; e < cp[j+1]; ++e)
+	 {
+	    idx[fill[j]] = ri[e];
+	    v[fill[j]++] = cv[e];
+	 }
+      }
+      return new CSRMatrix(n, ptr, idx, v);
+   }
+
+   /// y = A x
+   public void apply(double[] x, double[] y)
+   {
+      for (int i = 0; i < n; ++i)
+      {
+	 double s = 0.;
+	 for (int e = rowPtr[i]; e < rowPtr[i+1]; ++e)
+	 {
+	    s += val[e]*x[colIdx[e]];
+	 }
+	 y[i] = s;
+      }
+   }
+
+   /// Diagonale
+   public double[] getDiagonal()
+   {
+      double[] d = new double [n];
+      for (int i = 0; i < n; ++i)
+      {
+	 for (int e = rowPtr[i]; e < rowPtr[i+1]; ++e)
+	 {
+	    if (colIdx[e] == i)
+	    {
+	       d[i] = val[e];
+	       break;
+	    }
+	 }
+      }
+      return d;
+   }
+
+   /// Dimension
+   public int getN()
+   {
+      return n;
+   }
+
+   /// Anzahl der gespeicherten Einträge
+   public int getNnz()
+   {
+      return rowPtr[n];
+   }
+
+   public int[] getRowPtr()
+   {
+      return rowPtr;
+   }
+
+   public int[] getColIdx()
+   {
+      return colIdx;
+   }
+
+   public double[] getVal()
+   {
+      return val;
+   }
+
+   protected int n;
+   protected int[] rowPtr;
+   protected int[] colIdx;
+   protected double[] val;
+}
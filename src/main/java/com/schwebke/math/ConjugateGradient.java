@@ -0,0 +1,190 @@
+package com.schwebke.math;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+  * Preconditioned conjugate gradient method for symmetric positive
+  * definite systems A x = b.
+  *
+  * x is the start vector (warm start, e.g. the displacements of a
+  * previous calculation) and contains the improved solution after
+  * the call. The relative residual |r|/|b| of every iteration is
+  * recorded in the convergence history.
+  */
+public class ConjugateGradient
+{
+   /// available preconditioners
+   public enum Preconditioning
+   {
+      NONE, JACOBI, SSOR, IC0, AMG
+   }
+
+   /// desired relative residual |b - A x|/|b|
+   public double eps = 1E-10;
+
+   /// maximum number of iterations (0: 10 n)
+   public int itmax = 0;
+
+   /// relaxation parameter of the SSOR preconditioner
+   public static double omega = 1.2;
+
+   /**
+     * create the preconditioner of the given kind for A
+     */
+   public static Preconditioner createPreconditioner(Preconditioning kind, CSRMatrix A)
+   {
+      switch (kind)
+      {
+	 case JACOBI:
+	    return new JacobiPreconditioner(A);
+	 case SSOR:
+	    return new SSORPreconditioner(A, omega);
+	 case IC0:
+	    return new IC0Preconditioner(A);
+	 case AMG:
+	    return new AMGPreconditioner(A);
+	 default:
+	    return null;
+      }
+   }
+
+   /**
+     * solve A x = b, M: preconditioner (null: none);
+     * returns true if the desired residual was reached, false after
+     * maxIt iterations or on breakdown (A not positive definite,
+     * see isBreakdown); x is the last iterate then
+     */
+   public boolean solve(LinearOperator A, double[] b, double[] x, Preconditioner M)
+   {
+      int n = A.getN();
+      int maxIt = (itmax > 0) ? itmax : 10*n;
+      history.clear();
+      breakdown = false;
+
+      double[] r = new double [n];
+      double[] z = new double [n];
+      double[] p = new double [n];
+      double[] q = new double [n];
+
+      double bNorm = norm(b);
+      if (bNorm == 0.)
+      {
+	 for (int i = 0; i < n; ++i)
+	 {
+	    x[i] = 0.;
+	 }
+	 history.add(0.);
+	 converged = true;
+	 return true;
+      }
+
+      A.apply(x, q);
+      for (int i = 0; i < n; ++i)
+      {
+	 r[i] = b[i]-q[i];
+      }
+      double res = norm(r)/bNorm;
+      history.add(res);
+
+      precondition(M, r, z);
+      System.arraycopy(z, 0, p, 0, n);
+      double rz = dot(r, z);
+
+      converged = res < eps;
+      for (int it = 0; it < maxIt && !converged; ++it)
+      {
+	 A.apply(p, q);
+	 double pq = dot(p, q);
+	 if (!(pq > 0.))
+	 {
+	    breakdown = true;
+	    break;
+	 }
+	 double alpha = rz/pq;
+	 for (int i = 0; i < n; ++i)
+	 {
+	    x[i] += alpha*p[i];
+	    r[i] -= alpha*q[i];
+	 }
+	 res = norm(r)/bNorm;
+	 history.add(res);
+	 if (res < eps)
+	 {
+	    converged = true;
+	    break;
+	 }
+
+	 precondition(M, r, z);
+	 double rzNew = dot(r, z);
+	 double beta = rzNew/rz;
+	 rz = rzNew;
+	 for (int i = 0; i < n; ++i)
+	 {
+	    p[i] = z[i]+beta*p[i];
+	 }
+      }
+      return converged;
+   }
+
+   private static void precondition(Preconditioner M, double[] r, double[] z)
+   {
+      if (M == null)
+      {
+	 System.arraycopy(r, 0, z, 0, r.length);
+      }
+      else
+      {
+	 M.apply(r, z);
+      }
+   }
+
+   private static double dot(double[] a, double[] b)
+   {
+      double s = 0.;
+      for (int i = 0; i < a.length; ++i)
+      {
+	 s += a[i]*b[i];
+      }
+      return s;
+   }
+
+   private static double norm(double[] a)
+   {
+      return Math.sqrt(dot(a, a));
+   }
+
+   /// number of iterations of the last solve
+   public int getIterations()
+   {
+      return history.size()-1;
+   }
+
+   /// relative residual after the last solve
+   public double getResidual()
+   {
+      return history.get(history.size()-1);
+   }
+
+   /// true if the last solve reached the desired residual
+   public boolean isConverged()
+   {
+      return converged;
+   }
+
+   /// true if the last solve broke down (A not positive definite)
+   public boolean isBreakdown()
+   {
+      return breakdown;
+   }
+
+   /// relative residuals of the last solve (start vector first)
+   public List<Double> getHistory()
+   {
+      return history;
+   }
+
+   protected List<Double> history = new ArrayList<Double>();
+   protected boolean converged;
+   protected boolean breakdown;
+}
@@ -0,0 +1,411 @@
+package com.schwebke.math;
+
+/**
+  * Domain decomposition solver (Schur complement method) for a
+  * symmetric positive definite CSCMatrix.
+  *
+  * The rows/columns of A are split into P subdomains and the interface;
+  * no entry of A couples two different subdomains. With the interior
+  * blocks A_pp, their couplings B_p to the interface and the interface
+  * block A_gg the interface unknowns solve
+  *
+  *    S x_g = b_g - sum_p B_p^T A_pp^-1 b_p,
+  *    S = A_gg - sum_p B_p^T A_pp^-1 B_p
+  *
+  * and the interiors follow from A_pp x_p = b_p - B_p x_g.
+  *
+  * The interiors are factorized (SparseCholesky) and their contributions
+  * to S are formed in parallel, one task per subdomain; S is dense and
+  * factorized by the blocked Cholesky decomposition. A solve eliminates
+  * the interiors in parallel, solves the interface system and
+  * back-substitutes the interiors in parallel. The contributions of the
+  * subdomains are summed in subdomain order, so the result does not
+  * depend on the number of threads.
+  */
+public class DomainDecomposition
+{
+   /**
+     * Factorize A: domain[i] is the subdomain (0 ... P-1) of row/column
+     * i, -1 for the interface.
+     * Throws IllegalArgumentException if A couples two subdomains.
+     */
+   public DomainDecomposition(CSCMatrix A, int[] domain)
+   {
+      n = A.getN();
+      this.domain = domain;
+      P = 0;
+      for (int i = 0; i < n; ++i)
+      {
+	 P = Math.max(P, domain[i]+1);
+      }
+
+      // local numbering, ascending in every subdomain and in the interface
+      local = new int [n];
+      rows = new int [P][];
+      int[] size = new int [P];
+      for (int i = 0; i < n; ++i)
+      {
+	 local[i] = (domain[i] < 0) ? ng++ : size[domain[i]]++;
+      }
+      for (int p = 0; p < P; ++p)
+      {
+	 rows[p] = new int [size[p]];
+      }
+      interfaceRows = new int [ng];
+      for (int i = 0; i < n; ++i)
+      {
+	 if (domain[i] < 0)
+	 {
+	    interfaceRows[local[i]] = i;
+	 } else {
+	    rows[domain[i]][local[i]] = i;
+	 }
+      }
+
+      // split A into the blocks
+      int[] colPtr = A.getColPtr();
+      int[] rowIdx = A.getRowIdx();
+      double[] val = A.getVal();
+      int[] couplings = new int [P];
+      for (int j = 0; j < n; ++j)
+      {
+	 for (int e = colPtr[j]; e < colPtr[j+1]; ++e)
+	 {
+	    int i = rowIdx[e];
+	    if ( (domain[i] >= 0) && (domain[j] >= 0) && (domain[i] != domain[j]) )
+	    {
+	       throw new IllegalArgumentException("DomainDecomposition: matrix couples subdomains "
+		     + domain[i] + " and " + domain[j]);
+	    }
+	    if ( (domain[i] < 0) != (domain[j] < 0) )
+	    {
+	       couplings[Math.max(domain[i], domain[j])]++;
+	    }
+	 }
+      }
+      bRow = new int [P][];
+      bCol = new int [P][];
+      bVal = new double [P][];
+      for (int p = 0; p < P; ++p)
+      {
+	 bRow[p] = new int [couplings[p]];
+	 bCol[p] = new int [couplings[p]];
+	 bVal[p] = new double [couplings[p]];
+	 couplings[p] = 0;
+      }
+      S = new double [ng*ng];
+      for (int j = 0; j < n; ++j)
+      {
+	 for (int e = colPtr[j]; e < colPtr[j+1]; ++e)
+	 {
+	    int i = rowIdx[e];
+	    if ( (domain[i] < 0) && (domain[j] < 0) )
+	    {
+	       S[local[i]*ng+local[j]] = val[e];
+	       S[local[j]*ng+local[i]] = val[e];
+	    } else if ( (domain[i] < 0) != (domain[j] < 0) ) {
+	       int p = Math.max(domain[i], domain[j]);
+	       int c = couplings[p]++;
+	       bRow[p][c] = (domain[i] < 0) ? local[j] : local[i];
+	       bCol[p][c] = (domain[i] < 0) ? local[i] : local[j];
+	       bVal[p][c] = val[e];
+	    }
+	 }
+      }
+
+      // interiors and their Schur complement contributions in parallel
+      factors = new SparseCholesky [P];
+      double[][] contribution = new double [P][];
+      int[][] columns = new int [P][];
+      Parallel.forRange(0, P, 1, (from, to) ->
+	 factorizeSubdomains(A, from, to, columns, contribution));
+
+      // S = A_gg - sum_p B_p^T A_pp^-1 B_p, factorized
+      for (int p = 0; p < P; ++p)
+      {
+	 int[] g = columns[p];
+	 int m = g.length;
+	 for (int a = 0; a < m; ++a)
+	 {
+	    for (int b = 0; b < m; ++b)
+	    {
+	       S[g[a]*ng+g[b]] -= contribution[p][a*m+b];
+	    }
+	 }
+      }
+      if (ng > 0)
+      {
+	 Solver.factorizeCholesky(S, ng);
+      }
+   }
+
+   /**
+     * Solve A x = b with the factorization; b is overwritten by x.
+     */
+   public void solve(double[] b)
+   {
+      solve(b, 1);
+   }
+
+   /**
+     * Solve A X = B for nrhs right hand sides at once: B is the n x nrhs
+     * matrix in flat row-major storage (B[i*nrhs+c]) and is overwritten
+     * by X.
+     */
+   public void solve(double[] B, int nrhs)
+   {
+      // Y_p = A_pp^-1 B_p
+      double[][] Y = new double [P][];
+      Parallel.forRange(0, P, 1, (from, to) ->
+	 eliminateInteriors(B, nrhs, Y, from, to));
+
+      // S X_g = B_g - sum_p B_p^T Y_p
+      double[] G = gather(B, interfaceRows, nrhs);
+      for (int p = 0; p < P; ++p)
+      {
+	 for (int e = 0; e < bVal[p].length; ++e)
+	 {
+	    int gi = bCol[p][e]*nrhs;
+	    int yi = bRow[p][e]*nrhs;
+	    for (int c = 0; c < nrhs; ++c)
+	    {
+	       G[gi+c] -= bVal[p][e]*Y[p][yi+c];
+	    }
+	 }
+      }
+      if (ng > 0)
+      {
+	 Solver.substCholesky(S, ng, G, nrhs);
+      }
+      scatter(G, interfaceRows, B, nrhs);
+
+      // X_p = A_pp^-1 (B_p - B_p X_g)
+      Parallel.forRange(0, P, 1, (from, to) ->
+	 substituteInteriors(B, nrhs, G, from, to));
+   }
+
+   /// Anzahl der Teilgebiete
+   public int getSubdomains()
+   {
+      return P;
+   }
+
+   /// Anzahl der Unbekannten eines Teilgebiets (ohne Interface)
+   public int getSubdomainSize(int p)
+   {
+      return rows[p].length;
+   }
+
+   /// Anzahl der Interface-Unbekannten (Dimension des Schur-Komplements)
+   public int getInterfaceSize()
+   {
+      return ng;
+   }
+
+   public int getN()
+   {
+      return n;
+   }
+
+   /**
+     * Factorize the interiors of the subdomains [from, to) and form
+     * their contributions to the Schur complement
+     */
+   protected void factorizeSubdomains(CSCMatrix A, int from, int to, int[][] columns, double[][] contribution)
+   {
+      for (int p = from; p < to; ++p)
+      {
+	 factors[p] = factorizeInterior(A, p);
+	 columns[p] = interfaceColumns(p);
+	 contribution[p] = schurContribution(p, columns[p]);
+      }
+   }
+
+   /// Y_p = A_pp^-1 B_p for the subdomains [from, to)
+   protected void eliminateInteriors(double[] B, int nrhs, double[][] Y, int from, int to)
+   {
+      for (int p = from; p < to; ++p)
+      {
+	 Y[p] = gather(B, rows[p], nrhs);
+	 if (rows[p].length > 0)
+	 {
+	    factors[p].solve(Y[p], nrhs);
+	 }
+      }
+   }
+
+   /**
+     * X_p = A_pp^-1 (B_p - B_p X_g) for the subdomains [from, to),
+     * written into the rows of B
+     */
+   protected void substituteInteriors(double[] B, int nrhs, double[] G, int from, int to)
+   {
+      for (int p = from; p < to; ++p)
+      {
+	 if (rows[p].length == 0)
+	 {
+	    continue;
+	 }
+	 double[] Z = gather(B, rows[p], nrhs);
+	 for (int e = 0; e < bVal[p].length; ++e)
+	 {
+	    int gi = bCol[p][e]*nrhs;
+	    int zi = bRow[p][e]*nrhs;
+	    for (int c = 0; c < nrhs; ++c)
+	    {
+	       Z[zi+c] -= bVal[p][e]*G[gi+c];
+	    }
+	 }
+	 factors[p].solve(Z, nrhs);
+	 scatter(Z, rows[p], B, nrhs);
+      }
+   }
+
+   /// Interior block A_pp of subdomain p, factorized (null if empty)
+   protected SparseCholesky factorizeInterior(CSCMatrix A, int p)
+   {
+      int m = rows[p].length;
+      if (m == 0)
+      {
+	 return null;
+      }
+      int[] colPtr = A.getColPtr();
+      int[] rowIdx = A.getRowIdx();
+      double[] val = A.getVal();
+      int[] ptr = new int [m+1];
+      for (int k = 0; k < m; ++k)
+      {
+	 int j = rows[p][k];
+	 int count = 0;
+	 for (int e = colPtr[j]; e < colPtr[j+1]; ++e)
+	 {
+	    if (domain[rowIdx[e]] == p)
+	    {
+	       count++;
+	    }
+	 }
+	 ptr[k+1] = ptr[k]+count;
+      }
+      int[] idx = new int [ptr[m]];
+      double[] v = new double [ptr[m]];
+      int f = 0;
+      for (int k = 0; k < m; ++k)
+      {
+	 int j = rows[p][k];
+	 for (int e = colPtr[j]; e < colPtr[j+1]; ++e)
+	 {
+	    if (domain[rowIdx[e]] == p)
+	    {
+	       idx[f] = local[rowIdx[e]];
+	       v[f++] = val[e];
+	    }
+	 }
+      }
+      CSCMatrix App = new CSCMatrix(m, ptr, idx);
+      System.arraycopy(v, 0, App.getVal(), 0, v.length);
+      return new SparseCholesky(App);
+   }
+
+   /// Interface unknowns coupled to subdomain p (ascending)
+   protected int[] interfaceColumns(int p)
+   {
+      boolean[] coupled = new boolean [ng];
+      int m = 0;
+      for (int c : bCol[p])
+      {
+	 if (!coupled[c])
+	 {
+	    coupled[c] = true;
+	    m++;
+	 }
+      }
+      int[] g = new int [m];
+      int k = 0;
+      for (int c = 0; c < ng; ++c)
+      {
+	 if (coupled[c])
+	 {
+	    g[k++] = c;
+	 }
+      }
+      return g;
+   }
+
+   /**
+     * B_p^T A_pp^-1 B_p in the interface unknowns g coupled to
+     * subdomain p (m x m, row-major)
+     */
+   protected double[] schurContribution(int p, int[] g)
+   {
+      int m = g.length;
+      int[] position = new int [ng];
+      for (int a = 0; a < m; ++a)
+      {
+	 position[g[a]] = a;
+      }
+
+      // W = A_pp^-1 B_p
+      double[] W = new double [rows[p].length*m];
+      for (int e = 0; e < bVal[p].length; ++e)
+      {
+	 W[bRow[p][e]*m+position[bCol[p][e]]] += bVal[p][e];
+      }
+      if ( (m > 0) && (rows[p].length > 0) )
+      {
+	 factors[p].solve(W, m);
+      }
+
+      double[] C = new double [m*m];
+      for (int e = 0; e < bVal[p].length; ++e)
+      {
+	 int a = position[bCol[p][e]];
+	 int wi = bRow[p][e]*m;
+	 for (int b = 0; b < m; ++b)
+	 {
+	    C[a*m+b] += bVal[p][e]*W[wi+b];
+	 }
+      }
+      return C;
+   }
+
+   /// Rows of B (n x nrhs) as dense block
+   protected static double[] gather(double[] B, int[] rows, int nrhs)
+   {
+      double[] X = new double [rows.length*nrhs];
+      for (int k = 0; k < rows.length; ++k)
+      {
+	 System.arraycopy(B, rows[k]*nrhs, X, k*nrhs, nrhs);
+      }
+      return X;
+   }
+
+   /// Dense block X back into the rows of B
+   protected static void scatter(double[] X, int[] rows, double[] B, int nrhs)
+   {
+      for (int k = 0; k < rows.length; ++k)
+      {
+	 System.arraycopy(X, k*nrhs, B, rows[k]*nrhs, nrhs);
+      }
+   }
+
+   protected int n;
+   /// Anzahl der Teilgebiete
+   protected int P;
+   /// Anzahl der Interface-Unbekannten
+   protected int ng;
+   protected int[] domain;
+   /// lokaler Index im Teilgebiet bzw. im Interface
+   protected int[] local;
+   /// globale Zeilen der Teilgebiete
+   protected int[][] rows;
+   /// globale Zeilen des Interface
+   protected int[] interfaceRows;
+   /// Kopplungen B_p: lokale Zeile, Interface-Index, Wert
+   protected int[][] bRow;
+   protected int[][] bCol;
+   protected double[][] bVal;
+   /// Faktoren der inneren Bloecke A_pp
+   protected SparseCholesky[] factors;
+   /// Cholesky-Faktor des Schur-Komplements (flach, ng x ng)
+   protected double[] S;
+}
@@ -6,6 +6,8 @@ import static java.lang.Math.sqrt;
 import static java.lang.Math.min;
 import static java.lang.Math.max;
 
+import java.util.Arrays;
+
 /**
   * Eigenvalue-Solver
   */
@@ -24,6 +26,9 @@ public class Eigen
      */
    public static double eps = 1E-8;
 
+   /// maximum number of sweeps of cyclJacRelative
+   private static final int maxSweeps = 50;
+
 
    /**
      * Calculate the eigenvalues and eigenvectors of
@@ -130,6 +135,116 @@ public class Eigen
       }
    }
 
+   /**
+     * Calculate the eigenvalues and eigenvectors of
+     * the symmetric positive (semi)definite matrix A with the cyclic
+     * Jacobian method and a relative threshold: A[q][p] is rotated
+     * away while |A[q][p]| > delta sqrt(A[p][p] A[q][q]), until a sweep
+     * rotates nothing. Unlike the absolute tolerance eps of
+     * cyclJac(double[][]), this does not depend on the scaling of A and
+     * gives the small eigenvalues to high relative accuracy as well
+     * (Demmel, Veselic: "Jacobi's method is more accurate than QR",
+     * SIAM J. Matrix Anal. Appl. 13 (1992)).
+     *
+     * After the call the diagonal of A holds the eigenvalues
+     * and the columns of the returned matrix V the corresponding
+     * eigenvectors.
+     */
+   public static double[][] cyclJacRelative(double A[][])
+   {
+      int n = A.length;
+      if (n != A[0].length)
+      {
+	 throw new IllegalArgumentException("cannot solve for non-square matrix");
+      }
+
+      double V[][] = new double [n][n];
+      for (int i = 0; i < n; ++i)
+      {
+	 V[i][i] = 1.;
+      }
+
+      // quadratic convergence: a few sweeps; the limit only guards
+      // against round-off cycling
+      for (int sweep = 0; sweep < maxSweeps; ++sweep)
+      {
+	 boolean rotated = false;
+	 for (int p = 0; p < n-1; ++p)
+	 {
+	    for (int q = p+1; q < n; ++q)
+	    {
+	       double Aqp = A[q][p];
+	       if (abs(Aqp) > delta*sqrt(abs(A[p][p]))*sqrt(abs(A[q][q])))
+	       {
+		  rotated = true;
+		  double Theta = (A[q][q] - A[p][p])/(2.*Aqp);
+		  double t = 1.;
+
+		  if (abs(Theta) > delta)
+		  {
+		     t = 1./(Theta + signum(Theta)*sqrt(Theta*Theta+1.));
+		  }
+
+		  double c = 1./sqrt(1+t*t);
+		  double s = c*t;
+		  double r = s/(1.+c);
+
+		  double tAqp = t*Aqp;
+		  A[p][p] -= tAqp;
+		  A[q][q] += tAqp;
+		  A[q][p] = 0.;
+
+		  for (int j = 0; j <= p-1; ++j)
+		  {
+		     double g = A[q][j] + r*A[p][j];
+		     double h = A[p][j] - r*A[q][j];
+		     A[p][j] -= s*g;
+		     A[q][j] += s*h;
+		  }
+
+		  for (int i = p+1; i <= q-1; ++i)
+		  {
+		     double g = A[q][i] + r*A[i][p];
+		     double h = A[i][p] - r*A[q][i];
+		     A[i][p] -= s*g;
+		     A[q][i] += s*h;
+		  }
+
+		  for (int i = q+1; i < n; ++i)
+		  {
+		     double g = A[i][q] + r*A[i][p];
+		     double h = A[i][p] - r*A[i][q];
+		     A[i][p] -= s*g;
+		     A[i][q] += s*h;
+		  }
+
+		  for (int i = 0; i < n; ++i)
+		  {
+		     double g = V[i][q] + r*V[i][p];
+		     double h = V[i][p] - r*V[i][q];
+		     V[i][p] -= s*g;
+		     V[i][q] += s*h;
+		  }
+	       }
+	    }
+	 }
+	 if (!rotated)
+	 {
+	    break;
+	 }
+      }
+
+      // only the lower triangle was updated
+      for (int i = 0; i < n; ++i)
+      {
+	 for (int j = 0; j < i; ++j)
+	 {
+	    A[j][i] = A[i][j];
+	 }
+      }
+      return V;
+   }
+
    /**
      * Calculate the eigenvalues and eigenvectors of
      * the symmetric matrix A with the cyclic Jacobian method.
@@ -238,4 +353,433 @@ public class Eigen
 	 }
       }
    }
+
+   /**
+     * Calculate the eigenvalues and eigenvectors of the symmetric band
+     * matrix A, given by its lower triangle in profile storage (half
+     * bandwidth b = max(i - minCol(i))).
+     *
+     * The band is reduced to tridiagonal form by Givens rotations that
+     * keep the band structure (Schwarz: the bandwidth is decreased by one
+     * in every pass, the fill-in element is chased down the band), the
+     * eigenvalues of the tridiagonal matrix follow from tridiagonalQL.
+     * The eigenvectors are computed by inverse iteration with the band LU
+     * decomposition of A - lambda I; the vector of an eigenvalue within
+     * a relative gap of 1E-3 of its predecessor is orthogonalized against
+     * the vectors of this cluster. The reduction costs O(n^2 b), each
+     * eigenvector O(n (b^2 + c)) with the size c of its cluster (c = 1
+     * for well separated eigenvalues, up to the multiplicity for
+     * repeated ones), the memory is O(n b) besides the eigenvectors.
+     *
+     * After the call lambda holds the eigenvalues in ascending order and
+     * the columns of the returned matrix V the corresponding (normalized)
+     * eigenvectors. A is not modified.
+     */
+   public static double[][] bandEigen(PMatrix A, double lambda[])
+   {
+      int n = A.getRows();
+      if (n != A.getCols())
+      {
+	 throw new IllegalArgumentException("cannot solve for non-square matrix");
+      }
+
+      // lower band B[i][d] = A(i, i-d), d = 0 ... b
+      int b = 0;
+      for (int i = 0; i < n; ++i)
+      {
+	 if (A.existRow(i))
+	 {
+	    b = max(b, i-A.getMinCol(i));
+	 }
+      }
+      double B[][] = new double [n][b+1];
+      double norm = 0.;
+      for (int i = 0; i < n; ++i)
+      {
+	 if (A.existRow(i))
+	 {
+	    int end = min(i, A.getMaxCol(i)-1);
+	    for (int j = A.getMinCol(i); j <= end; ++j)
+	    {
+	       B[i][i-j] = A.get(i, j);
+	    }
+	 }
+      }
+      for (int i = 0; i < n; ++i)
+      {
+	 double s = 0.;
+	 for (int j = max(0, i-b); j <= min(n-1, i+b); ++j)
+	 {
+	    s += abs((j <= i) ? B[i][i-j] : B[j][j-i]);
+	 }
+	 norm = max(norm, s);
+      }
+
+      // band-preserving reduction to tridiagonal form; one extra
+      // diagonal of W takes the fill-in element
+      double W[][] = new double [n][b+2];
+      for (int i = 0; i < n; ++i)
+      {
+	 System.arraycopy(B[i], 0, W[i], 0, b+1);
+      }
+      for (int k = b; k >= 2; --k)
+      {
+	 for (int j = 0; j+k < n; ++j)
+	 {
+	    // annihilate (j+k, j), then chase the fill-in down the band
+	    int col = j;
+	    for (int q = j+k; q < n; q += k)
+	    {
+	       double x = W[q-1][q-1-col];
+	       double y = W[q][q-col];
+	       if (y == 0.)
+	       {
+		  break;
+	       }
+	       double h = Math.hypot(x, y);
+	       rotateBand(W, n, k, q-1, x/h, y/h);
+	       W[q][q-col] = 0.;
+	       col = q-1;
+	    }
+	 }
+      }
+      double d[] = new double [n];
+      double e[] = new double [n];
+      for (int i = 0; i < n; ++i)
+      {
+	 d[i] = W[i][0];
+	 if (i+1 < n)
+	 {
+	    e[i] = (b > 0) ? W[i+1][1] : 0.;
+	 }
+      }
+      W = null;
+      tridiagonalQL(d, e, null);
+      System.arraycopy(d, 0, lambda, 0, n);
+
+      // eigenvectors by inverse iteration
+      double V[][] = new double [n][n];
+      double T[][] = new double [n][3*b+1];
+      int piv[] = new int [n];
+      double x[] = new double [n];
+      double tiny = max(norm, Double.MIN_NORMAL)*delta;
+      long seed = 1;
+      int first = 0;
+      for (int i = 0; i < n; ++i)
+      {
+	 // relative gap: the low eigenvalues of a stiffness spectrum are
+	 // far below 1E-3 of the norm, but well separated among each other
+	 if ( (i > 0) && (lambda[i]-lambda[i-1] > 1E-3*max(abs(lambda[i]), tiny)) )
+	 {
+	    first = i;
+	 }
+	 bandLU(B, n, b, lambda[i], tiny, T, piv);
+
+	 for (int l = 0; l < n; ++l)
+	 {
+	    seed = seed*6364136223846793005L+1442695040888963407L;
+	    x[l] = (double) (seed >>> 11)/(1L << 53)-0.5;
+	 }
+	 for (int it = 0; it < 3; ++it)
+	 {
+	    bandSolve(T, n, b, piv, x);
+	    // orthogonalize against the vectors of the cluster
+	    for (int c = first; c < i; ++c)
+	    {
+	       double s = 0.;
+	       for (int l = 0; l < n; ++l)
+	       {
+		  s += V[l][c]*x[l];
+	       }
+	       for (int l = 0; l < n; ++l)
+	       {
+		  x[l] -= s*V[l][c];
+	       }
+	    }
+	    double s = 0.;
+	    for (int l = 0; l < n; ++l)
+	    {
+	       s += x[l]*x[l];
+	    }
+	    s = 1./sqrt(s);
+	    for (int l = 0; l < n; ++l)
+	    {
+	       x[l] *= s;
+	    }
+	 }
+	 for (int l = 0; l < n; ++l)
+	 {
+	    V[l][i] = x[l];
+	 }
+      }
+      return V;
+   }
+
+   /**
+     * similarity rotation of the rows and columns p and p+1 of the
+     * symmetric band matrix W (W[i][d] = A(i, i-d), half bandwidth k
+     * plus one fill-in diagonal); row p becomes c row_p + s row_p+1
+     */
+   private static void rotateBand(double W[][], int n, int k, int p, double c, double s)
+   {
+      int q = p+1;
+      int lo = max(0, p-k-1);
+      int hi = min(n-1, q+k);
+      for (int x = lo; x <= hi; ++x)
+      {
+	 if ( (x == p) || (x == q) )
+	 {
+	    continue;
+	 }
+	 double apx = bandGet(W, p, x);
+	 double aqx = bandGet(W, q, x);
+	 bandSet(W, p, x, c*apx+s*aqx);
+	 bandSet(W, q, x, -s*apx+c*aqx);
+      }
+      double app = W[p][0];
+      double aqq = W[q][0];
+      double apq = W[q][1];
+      W[p][0] = c*c*app+2.*c*s*apq+s*s*aqq;
+      W[q][0] = s*s*app-2.*c*s*apq+c*c*aqq;
+      W[q][1] = c*s*(aqq-app)+(c*c-s*s)*apq;
+   }
+
+   private static double bandGet(double W[][], int i, int j)
+   {
+      int r = max(i, j);
+      int d = r-min(i, j);
+      return (d < W[r].length) ? W[r][d] : 0.;
+   }
+
+   private static void bandSet(double W[][], int i, int j, double v)
+   {
+      int r = max(i, j);
+      int d = r-min(i, j);
+      if (d < W[r].length)
+      {
+	 W[r][d] = v;
+      }
+   }
+
+   /**
+     * LU decomposition with partial pivoting of B - sigma I (B: lower
+     * band of a symmetric matrix, half bandwidth b) into T, where
+     * T[i][j-i+b] holds the element (i, j), j = i-b ... i+2b; pivots
+     * smaller than tiny are replaced by tiny
+     */
+   private static void bandLU(double B[][], int n, int b, double sigma, double tiny, double T[][], int piv[])
+   {
+      for (int i = 0; i < n; ++i)
+      {
+	 double Ti[] = T[i];
+	 Arrays.fill(Ti, 0.);
+	 for (int j = max(0, i-b); j <= min(n-1, i+b); ++j)
+	 {
+	    Ti[j-i+b] = (j <= i) ? B[i][i-j] : B[j][j-i];
+	 }
+	 Ti[b] -= sigma;
+      }
+
+      for (int k = 0; k < n; ++k)
+      {
+	 int last = min(n-1, k+b);
+	 int p = k;
+	 for (int i = k+1; i <= last; ++i)
+	 {
+	    if (abs(T[i][k-i+b]) > abs(T[p][k-p+b]))
+	    {
+	       p = i;
+	    }
+	 }
+	 piv[k] = p;
+	 int end = min(n-1, k+2*b);
+	 if (p != k)
+	 {
+	    for (int j = k; j <= end; ++j)
+	    {
+	       double t = T[k][j-k+b];
+	       T[k][j-k+b] = T[p][j-p+b];
+	       T[p][j-p+b] = t;
+	    }
+	 }
+	 double pivot = T[k][b];
+	 if (abs(pivot) < tiny)
+	 {
+	    pivot = (pivot < 0.) ? -tiny : tiny;
+	    T[k][b] = pivot;
+	 }
+	 for (int i = k+1; i <= last; ++i)
+	 {
+	    double l = T[i][k-i+b]/pivot;
+	    T[i][k-i+b] = l;
+	    if (l != 0.)
+	    {
+	       for (int j = k+1; j <= end; ++j)
+	       {
+		  T[i][j-i+b] -= l*T[k][j-k+b];
+	       }
+	    }
+	 }
+      }
+   }
+
+   /// solve with the decomposition of bandLU, x is overwritten
+   private static void bandSolve(double T[][], int n, int b, int piv[], double x[])
+   {
+      for (int k = 0; k < n; ++k)
+      {
+	 int p = piv[k];
+	 if (p != k)
+	 {
+	    double t = x[k];
+	    x[k] = x[p];
+	    x[p] = t;
+	 }
+	 double xk = x[k];
+	 for (int i = k+1; i <= min(n-1, k+b); ++i)
+	 {
+	    x[i] -= T[i][k-i+b]*xk;
+	 }
+      }
+      for (int k = n-1; k >= 0; --k)
+      {
+	 double s = x[k];
+	 for (int j = k+1; j <= min(n-1, k+2*b); ++j)
+	 {
+	    s -= T[k][j-k+b]*x[j];
+	 }
+	 x[k] = s/T[k][b];
+      }
+   }
+
+   /**
+     * Eigenvalues and eigenvectors of the symmetric tridiagonal matrix
+     * with diagonal d and off-diagonal e (e[i] couples i and i+1, e[n-1]
+     * is not used) by the implicit QL method with Wilkinson shifts.
+     *
+     * After the call d holds the eigenvalues in ascending order and e
+     * is destroyed. If Z is not null, the plane rotations are applied to
+     * its columns (Z has n columns and any number of rows): starting with
+     * the identity, the columns of Z become the eigenvectors of the
+     * tridiagonal matrix; starting with the transformation to tridiagonal
+     * form, those of the original matrix.
+     */
+   public static void tridiagonalQL(double d[], double e[], double Z[][])
+   {
+      int n = d.length;
+      if (n == 0)
+      {
+	 return;
+      }
+      e[n-1] = 0.;
+
+      double shift = 0.;
+      double tst = 0.;
+      for (int l = 0; l < n; ++l)
+      {
+	 tst = max(tst, abs(d[l])+abs(e[l]));
+	 int m = l;
+	 while (abs(e[m]) > delta*tst)
+	 {
+	    ++m;
+	 }
+
+	 int iter = 0;
+	 while (m > l)
+	 {
+	    if (++iter > 50)
+	    {
+	       throw new ArithmeticException("tridiagonal QL did not converge");
+	    }
+
+	    // Wilkinson shift from the leading 2x2 block
+	    double g = d[l];
+	    double p = (d[l+1]-g)/(2.*e[l]);
+	    double r = Math.hypot(p, 1.);
+	    if (p < 0.)
+	    {
+	       r = -r;
+	    }
+	    d[l] = e[l]/(p+r);
+	    d[l+1] = e[l]*(p+r);
+	    double dl1 = d[l+1];
+	    double h = g-d[l];
+	    for (int i = l+2; i < n; ++i)
+	    {
+	       d[i] -= h;
+	    }
+	    shift += h;
+
+	    // implicit QL step
+	    p = d[m];
+	    double c = 1.;
+	    double c2 = 1.;
+	    double c3 = 1.;
+	    double el1 = e[l+1];
+	    double s = 0.;
+	    double s2 = 0.;
+	    for (int i = m-1; i >= l; --i)
+	    {
+	       c3 = c2;
+	       c2 = c;
+	       s2 = s;
+	       g = c*e[i];
+	       h = c*p;
+	       r = Math.hypot(p, e[i]);
+	       e[i+1] = s*r;
+	       s = e[i]/r;
+	       c = p/r;
+	       p = c*d[i]-s*g;
+	       d[i+1] = h+s*(c*g+s*d[i]);
+	       if (Z != null)
+	       {
+		  for (int k = 0; k < Z.length; ++k)
+		  {
+		     double z = Z[k][i+1];
+		     Z[k][i+1] = s*Z[k][i]+c*z;
+		     Z[k][i] = c*Z[k][i]-s*z;
+		  }
+	       }
+	    }
+	    p = -s*s2*c3*el1*e[l]/dl1;
+	    e[l] = s*p;
+	    d[l] = c*p;
+
+	    if (abs(e[l]) <= delta*tst)
+	    {
+	       break;
+	    }
+	 }
+	 d[l] += shift;
+	 e[l] = 0.;
+      }
+
+      // sort ascending (selection sort keeps the number of column swaps low)
+      for (int i = 0; i < n-1; ++i)
+      {
+	 int k = i;
+	 for (int j = i+1; j < n; ++j)
+	 {
+	    if (d[j] < d[k])
+	    {
+	       k = j;
+	    }
+	 }
+	 if (k != i)
+	 {
+	    double t = d[i];
+	    d[i] = d[k];
+	    d[k] = t;
+	    if (Z != null)
+	    {
+	       for (int j = 0; j < Z.length; ++j)
+	       {
+		  t = Z[j][i];
+		  Z[j][i] = Z[j][k];
+		  Z[j][k] = t;
+	       }
+	    }
+	 }
+      }
+   }
 }
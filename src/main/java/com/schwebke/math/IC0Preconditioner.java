@@ -0,0 +1,143 @@
+package com.schwebke.math;
+
+/**
+  * Incomplete Cholesky preconditioner without fill-in, IC(0):
+  * L has the pattern of the lower triangle of A, M = L L^T.
+  *
+  * If the factorization breaks down (non-positive pivot), it is
+  * repeated for A + alpha diag(A) with increasing alpha
+  * (Manteuffel shift).
+  */
+public class IC0Preconditioner implements Preconditioner
+{
+   public IC0Preconditioner(CSRMatrix A)
+   {
+      n = A.getN();
+      int[] ptr = A.getRowPtr();
+      int[] idx = A.getColIdx();
+
+      // lower triangle pattern (diagonal last in each row)
+      lPtr = new int [n+1];
+      for (int i = 0; i < n; ++i)
+      {
+	 int c = 0;
+	 for (int e = ptr[i]; e < ptr[i+1] && idx[e] <= i; ++e)
+	 {
+	    c++;
+	 }
+	 lPtr[i+1] = lPtr[i]+c;
+      }
+      lIdx = new int [lPtr[n]];
+      lVal = new double [lPtr[n]];
+      for (int i = 0; i < n; ++i)
+      {
+	 int k = lPtr[i];
+	 for (int e = ptr[i]; e < ptr[i+1] && idx[e] <= i; ++e)
+	 {
+	    lIdx[k++] = idx[e];
+	 }
+      }
+
+      shift = 0.;
+      while (!factorize(A, shift))
+      {
+	 shift = (shift == 0.) ? 1e-3 : 2.*shift;
+      }
+   }
+
+   private boolean factorize(CSRMatrix A, double alpha)
+   {
+      int[] ptr = A.getRowPtr();
+      int[] idx = A.getColIdx();
+      double[] val = A.getVal();
+
+      for (int i = 0; i < n; ++i)
+      {
+	 int k = lPtr[i];
+	 for (int e = ptr[i]; e < ptr[i+1] && idx[e] <= i; ++e)
+	 {
+	    lVal[k++] = (idx[e] == i) ? val[e]*(1.+alpha) : val[e];
+	 }
+      }
+
+      for (int i = 0; i < n; ++i)
+      {
+	 int diag = lPtr[i+1]-1;
+	 for (int e = lPtr[i]; e < diag; ++e)
+	 {
+	    // L[i][k] -= sum_j<k L[i][j] L[k][j] over the common pattern
+	    int k = lIdx[e];
+	    double s = lVal[e];
+	    int a = lPtr[i];
+	    int b = lPtr[k];
+	    int bEnd = lPtr[k+1]-1;
+	    while ( (a < e) && (b < bEnd) )
+	    {
+	       if (lIdx[a] == lIdx[b])
+	       {
+		  s -= lVal[a++]*lVal[b++];
+	       }
+	       else if (lIdx[a] < lIdx[b])
+	       {
+		  a++;
+	       }
+	       else
+	       {
+		  b++;
+	       }
+	    }
+	    lVal[e] = s/lVal[bEnd];
+	 }
+	 double d = lVal[diag];
+	 for (int e = lPtr[i]; e < diag; ++e)
+	 {
+	    d -= lVal[e]*lVal[e];
+	 }
+	 if (!(d > 0.))
+	 {
+	    return false;
+	 }
+	 lVal[diag] = Math.sqrt(d);
+      }
+      return true;
+   }
+
+   public void apply(double[] r, double[] z)
+   {
+      // L y = r
+      for (int i = 0; i < n; ++i)
+      {
+	 double s = r[i];
+	 int diag = lPtr[i+1]-1;
+	 for (int e = lPtr[i]; e < diag; ++e)
+	 {
+	    s -= lVal[e]*z[lIdx[e]];
+	 }
+	 z[i] = s/lVal[diag];
+      }
+
+      // L^T z = y
+      for (int i = n-1; i >= 0; --i)
+      {
+	 int diag = lPtr[i+1]-1;
+	 double zi = z[i]/lVal[diag];
+	 z[i] = zi;
+	 for (int e = lPtr[i]; e < diag; ++e)
+	 {
+	    z[lIdx[e]] -= lVal[e]*zi;
+	 }
+      }
+   }
+
+   /// verwendeter Shift alpha (0: keine Modifikation notwendig)
+   public double getShift()
+   {
+      return shift;
+   }
+
+   protected int n;
+   protected int[] lPtr;
+   protected int[] lIdx;
+   protected double[] lVal;
+   protected double shift;
+}
@@ -0,0 +1,27 @@
+package com.schwebke.math;
+
+/**
+  * Jacobi (diagonal) preconditioner M = diag(A).
+  */
+public class JacobiPreconditioner implements Preconditioner
+{
+   public JacobiPreconditioner(CSRMatrix A)
+   {
+      double[] d = A.getDiagonal();
+      invDiag = new double [d.length];
+      for (int i = 0; i < d.length; ++i)
+      {
+	 invDiag[i] = (d[i] != 0.) ? 1./d[i] : 1.;
+      }
+   }
+
+   public void apply(double[] r, double[] z)
+   {
+      for (int i = 0; i < invDiag.length; ++i)
+      {
+	 z[i] = invDiag[i]*r[i];
+      }
+   }
+
+   protected double[] invDiag;
+}
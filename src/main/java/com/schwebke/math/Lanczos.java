@@ -0,0 +1,222 @@
+package com.schwebke.math;
+
+import java.util.ArrayList;
+
+/**
+  * Lanczos method for the largest eigenvalues theta of the operator
+  * A = K^-1 M of the generalized eigenproblem K x = lambda M x with
+  * symmetric positive definite K and diagonal, positive semidefinite
+  * M (lumped masses). theta = 1/lambda, so the largest theta belong to
+  * the lowest eigenfrequencies ("shift-invert" with shift 0).
+  *
+  * A is symmetric in the M inner product; the Lanczos vectors are
+  * M-orthonormalized with full reorthogonalization. Only the Lanczos
+  * vectors are stored, the memory is O(m n) for m steps (typically
+  * m = 2k ... 3k for k wanted eigenvalues) instead of O(n^2).
+  */
+public class Lanczos
+{
+   /**
+     * relative tolerance of the residual estimate
+     * |beta_m s_m,i| of a converged Ritz pair
+     */
+   public static double eps = 1E-12;
+
+   /**
+     * A: operator x -> K^-1 M x, m: diagonal of M
+     */
+   public Lanczos(LinearOperator A, double[] m)
+   {
+      this.A = A;
+      this.m = m;
+      n = A.getN();
+   }
+
+   /**
+     * Compute the k largest eigenvalues theta of A and the corresponding
+     * (M-orthonormal) eigenvectors. Returns the number of computed
+     * eigenpairs; it is smaller than k if M has less than k nonzero
+     * diagonal entries (the Krylov space is exhausted).
+     */
+   public int solve(int k)
+   {
+      int rank = 0;
+      for (int i = 0; i < n; ++i)
+      {
+	 if (m[i] > 0.)
+	 {
+	    ++rank;
+	 }
+      }
+      k = Math.min(k, rank);
+      values = new double [0];
+      vectors = new double [0][];
+      steps = 0;
+      if (k <= 0)
+      {
+	 return 0;
+      }
+
+      ArrayList<double[]> Q = new ArrayList<double[]>();
+      ArrayList<Double> alpha = new ArrayList<Double>();
+      ArrayList<Double> beta = new ArrayList<Double>();
+
+      // start vector in the range of A (mass-carrying part)
+      double q[] = new double [n];
+      for (int i = 0; i < n; ++i)
+      {
+	 q[i] = (m[i] > 0.) ? 1. : 0.;
+      }
+      double w[] = new double [n];
+      A.apply(q, w);
+      double norm = normM(w);
+      if (norm == 0.)
+      {
+	 return 0;
+      }
+      q = scale(w, 1./norm);
+
+      double normT = 0.;
+      double T[][] = null;
+      double theta[] = null;
+      while (true)
+      {
+	 Q.add(q);
+	 int j = Q.size()-1;
+
+	 // w = A q_j - beta_j-1 q_j-1 - alpha_j q_j
+	 w = new double [n];
+	 A.apply(q, w);
+	 double a = dotM(q, w);
+	 alpha.add(a);
+	 axpy(-a, q, w);
+	 if (j > 0)
+	 {
+	    axpy(-beta.get(j-1), Q.get(j-1), w);
+	 }
+
+	 // full reorthogonalization (twice is enough)
+	 for (int pass = 0; pass < 2; ++pass)
+	 {
+	    for (int i = 0; i <= j; ++i)
+	    {
+	       axpy(-dotM(Q.get(i), w), Q.get(i), w);
+	    }
+	 }
+	 double b = normM(w);
+	 beta.add(b);
+	 normT = Math.max(normT, Math.abs(a)+b+((j > 0) ? beta.get(j-1) : 0.));
+
+	 int size = j+1;
+	 boolean exhausted = (b <= 1E-10*normT) || (size >= rank);
+	 if (exhausted || ((size >= k) && ((size-k)%5 == 0)))
+	 {
+	    // Ritz values: eigenvalues of the tridiagonal T_m
+	    double d[] = new double [size];
+	    double e[] = new double [size];
+	    for (int i = 0; i < size; ++i)
+	    {
+	       d[i] = alpha.get(i);
+	       e[i] = beta.get(i);
+	    }
+	    T = new double [size][size];
+	    for (int i = 0; i < size; ++i)
+	    {
+	       T[i][i] = 1.;
+	    }
+	    Eigen.tridiagonalQL(d, e, T);
+	    theta = d;
+
+	    // residual estimate of the k largest Ritz pairs
+	    boolean converged = true;
+	    for (int i = size-1; i >= size-Math.min(k, size); --i)
+	    {
+	       if (Math.abs(b*T[size-1][i]) > eps*Math.abs(theta[i]))
+	       {
+		  converged = false;
+		  break;
+	       }
+	    }
+	    if (exhausted || converged)
+	    {
+	       break;
+	    }
+	 }
+	 q = scale(w, 1./b);
+      }
+
+      // Ritz vectors x_i = Q s_i for the k largest theta (descending)
+      steps = Q.size();
+      int found = Math.min(k, steps);
+      values = new double [found];
+      vectors = new double [found][n];
+      for (int l = 0; l < found; ++l)
+      {
+	 int i = steps-1-l;
+	 values[l] = theta[i];
+	 double x[] = vectors[l];
+	 for (int j = 0; j < steps; ++j)
+	 {
+	    axpy(T[j][i], Q.get(j), x);
+	 }
+      }
+      return found;
+   }
+
+   /// eigenvalues theta (descending) of the last solve
+   public double[] getEigenvalues()
+   {
+      return values;
+   }
+
+   /// eigenvectors of the last solve, [mode][component]
+   public double[][] getEigenvectors()
+   {
+      return vectors;
+   }
+
+   /// number of Lanczos steps of the last solve
+   public int getSteps()
+   {
+      return steps;
+   }
+
+   private double dotM(double[] x, double[] y)
+   {
+      double s = 0.;
+      for (int i = 0; i < n; ++i)
+      {
+	 s += x[i]*m[i]*y[i];
+      }
+      return s;
+   }
+
+   private double normM(double[] x)
+   {
+      return Math.sqrt(dotM(x, x));
+   }
+
+   private static void axpy(double a, double[] x, double[] y)
+   {
+      for (int i = 0; i < y.length; ++i)
+      {
+	 y[i] += a*x[i];
+      }
+   }
+
+   private static double[] scale(double[] x, double a)
+   {
+      for (int i = 0; i < x.length; ++i)
+      {
+	 x[i] *= a;
+      }
+      return x;
+   }
+
+   protected LinearOperator A;
+   protected double[] m;
+   protected int n;
+   protected double[] values;
+   protected double[][] vectors;
+   protected int steps;
+}
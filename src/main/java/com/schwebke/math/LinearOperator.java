@@ -0,0 +1,14 @@
+package com.schwebke.math;
+
+/**
+  * Linear operator y = A x of dimension n x n, used by the iterative
+  * solvers (the matrix itself need not be stored).
+  */
+public interface LinearOperator
+{
+   /// Dimension
+   int getN();
+
+   /// y = A x (x is not modified)
+   void apply(double[] x, double[] y);
+}
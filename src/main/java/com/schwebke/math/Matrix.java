@@ -91,18 +91,23 @@ public class Matrix
 	int K = b[0].length;
 
 	double m[][]=new double[I][K];
-	for (int i=0; i<I; ++i)
-	{
-	    for (int k=0; k<K; ++k)
+	// Zeilenweise parallel (jedes Element wird von genau einer Task
+	// in derselben Reihenfolge summiert wie seriell)
+	int grain = (int)Math.max(1L, 65536L/Math.max(1L, (long)J*K));
+	Parallel.forRange(0, I, grain, (from, to) -> {
+	    for (int i=from; i<to; ++i)
 	    {
-		double t=0.;
-		for (int j=0; j<J; ++j)
+		for (int k=0; k<K; ++k)
 		{
-		    t+=a[i][j]*b[j][k];
+		    double t=0.;
+		    for (int j=0; j<J; ++j)
+		    {
+			t+=a[i][j]*b[j][k];
+		    }
+		    m[i][k]=t;
 		}
-		m[i][k]=t;
 	    }
-	}
+	});
 	return m;
     }
 
@@ -214,6 +219,23 @@ public class Matrix
 	return m;
     }
     
+    /**
+     * liefert die Matrix als eindimensionales Feld (zeilenweise,
+     * Element (i,j) an Position i*Spaltenzahl+j)
+     */
+    public static double[] flatten(double a[][])
+    {
+	int I = a.length;
+	int J = a[0].length;
+
+	double ret[]=new double[I*J];
+	for (int i=0; i<I; i++)
+	{
+	    System.arraycopy(a[i], 0, ret, i*J, J);
+	}
+	return ret;
+    }
+
     /**
       * Matrix auf Konsole ausgeben
       */
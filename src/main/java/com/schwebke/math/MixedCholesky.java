@@ -0,0 +1,429 @@
+package com.schwebke.math;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+  * Mixed precision sparse Cholesky solver for symmetric positive
+  * definite CSCMatrix systems A x = b.
+  *
+  * The supernodal factor L (see SparseCholesky) is computed and stored
+  * in single precision, which halves memory and memory traffic of the
+  * factorization and of every substitution. The solution is improved
+  * by iterative refinement in double precision:
+  *
+  *    r = b - A x  (with the assembled A),  L L^T d = r,  x = x + d
+  *
+  * until the normwise backward error
+  * |r| / (|A| |x| + |b|) (maximum norms) is below eps. The refinement
+  * converges if cond(A) is clearly below 1/eps(float) = 1.7E7; if it
+  * stalls (or the single precision factorization breaks down), A is
+  * factorized again in double precision and the solution is finished
+  * with the double factor, which is used for all further solves
+  * (isMixed() is false then).
+  *
+  * The backward error of every step of the last solve is recorded in
+  * the residual history. solveL and solveLT use the factor as is,
+  * without refinement.
+  *
+  * See J. Langou et al., "Exploiting the performance of 32 bit floating
+  * point arithmetic in obtaining 64 bit accuracy", SC 2006.
+  */
+public class MixedCholesky extends SparseCholesky
+{
+   /// desired backward error |b - A x|/(|A| |x| + |b|)
+   public double eps = 1E-14;
+
+   /// maximum number of refinement steps before falling back to double
+   public int maxRefinements = 10;
+
+   /**
+     * Symbolic and single precision numeric factorization with a nested
+     * dissection ordering of the graph of A. A is kept for the residuals.
+     */
+   public MixedCholesky(CSCMatrix A)
+   {
+      this(A, Ordering.nestedDissection(graphXadj(A), graphAdj(A)));
+   }
+
+   /**
+     * Symbolic and single precision numeric factorization with the given
+     * fill reducing ordering. A is kept for the residuals.
+     */
+   public MixedCholesky(CSCMatrix A, int[] perm)
+   {
+      super(A, perm);
+   }
+
+   /**
+     * Numeric factorization of A in single precision; falls back to
+     * double precision if a pivot is not positive.
+     */
+   @Override
+      public void factorize(CSCMatrix A)
+   {
+      this.A = A;
+      aNorm = normInf(A);
+      if (Lf == null)
+      {
+	 allocateFloat();
+      }
+      if (!factorizeFloat(A))
+      {
+	 factorizeDouble();
+      }
+   }
+
+   /**
+     * Solve A x = b with iterative refinement; b is overwritten by x.
+     */
+   @Override
+      public void solve(double[] b)
+   {
+      history.clear();
+      double bNorm = normInf(b);
+      if (bNorm == 0.)
+      {
+	 Arrays.fill(b, 0.);
+	 history.add(0.);
+	 return;
+      }
+
+      double[] x = new double [n];
+      double[] r = b.clone();
+      double[] d = new double [n];
+      double previous = Double.POSITIVE_INFINITY;
+      for (int it = 0; ; ++it)
+      {
+	 System.arraycopy(r, 0, d, 0, n);
+	 super.solve(d);
+	 for (int i = 0; i < n; ++i)
+	 {
+	    x[i] += d[i];
+	 }
+	 double res = residual(b, x, r, bNorm);
+	 history.add(res);
+	 if ( (res <= eps) || (Lf == null) )
+	 {
+	    break;
+	 }
+	 if ( (it+1 >= maxRefinements) || (res > 0.5*previous) )
+	 {
+	    // refinement stalls: finish with a double precision factor
+	    // (reported by isMixed)
+	    factorizeDouble();
+	    previous = Double.POSITIVE_INFINITY;
+	    continue;
+	 }
+	 previous = res;
+      }
+      System.arraycopy(x, 0, b, 0, n);
+   }
+
+   /**
+     * Solve A X = B for nrhs right hand sides (B row-major n x nrhs),
+     * column by column with refinement; B is overwritten by X. The
+     * residual history is the one of the last column.
+     */
+   @Override
+      public void solve(double[] B, int nrhs)
+   {
+      if (Lf == null)
+      {
+	 super.solve(B, nrhs);
+	 return;
+      }
+      double[] b = new double [n];
+      for (int c = 0; c < nrhs; ++c)
+      {
+	 for (int i = 0; i < n; ++i)
+	 {
+	    b[i] = B[i*nrhs+c];
+	 }
+	 solve(b);
+	 for (int i = 0; i < n; ++i)
+	 {
+	    B[i*nrhs+c] = b[i];
+	 }
+      }
+   }
+
+   /// true while the single precision factor is used
+   public boolean isMixed()
+   {
+      return Lf != null;
+   }
+
+   /// number of refinement steps of the last solve
+   public int getRefinements()
+   {
+      return history.size()-1;
+   }
+
+   /// backward error after the last solve
+   public double getResidual()
+   {
+      return history.isEmpty() ? 0. : history.get(history.size()-1);
+   }
+
+   /// backward errors of the steps of the last solve
+   public List<Double> getHistory()
+   {
+      return history;
+   }
+
+   /// Anzahl der Bytes der Faktorisierung
+   public long getFactorBytes()
+   {
+      return getNnzL()*((Lf != null) ? 4 : 8);
+   }
+
+   @Override
+      protected void allocate()
+   {
+      // the single precision panels are allocated by factorize
+   }
+
+   protected void allocateFloat()
+   {
+      Lx = null;
+      Lf = new float [ns][];
+      for (int s = 0; s < ns; ++s)
+      {
+	 Lf[s] = new float [(sFirst[s+1]-sFirst[s])*(sRowPtr[s+1]-sRowPtr[s])];
+      }
+   }
+
+   /// Faktorisierung in doppelter Genauigkeit (ersetzt L)
+   protected void factorizeDouble()
+   {
+      Lf = null;
+      super.allocate();
+      super.factorize(A);
+   }
+
+   /**
+     * right-looking supernodal factorization as SparseCholesky.factorize
+     * with single precision panels, the updates are accumulated in double
+     * precision; returns false if a pivot is not positive
+     */
+   protected boolean factorizeFloat(CSCMatrix A)
+   {
+      double[] aVal = A.getVal();
+
+      for (int s = 0; s < ns; ++s)
+      {
+	 Arrays.fill(Lf[s], 0.f);
+      }
+      for (int s = 0; s < ns; ++s)
+      {
+	 int f = sFirst[s];
+	 int m = sRowPtr[s+1]-sRowPtr[s];
+	 setPositions(s);
+	 float[] X = Lf[s];
+	 for (int c = f; c < sFirst[s+1]; ++c)
+	 {
+	    for (int e = cColPtr[c]; e < cColPtr[c+1]; ++e)
+	    {
+	       X[(c-f)*m+pos[cRowIdx[e]]] += (float) aVal[cMap[e]];
+	    }
+	 }
+      }
+
+      double[] tmp = new double [maxRows];
+      for (int s = 0; s < ns; ++s)
+      {
+	 int f = sFirst[s];
+	 int w = sFirst[s+1]-f;
+	 int r0 = sRowPtr[s];
+	 int m = sRowPtr[s+1]-r0;
+	 float[] X = Lf[s];
+
+	 // dense Cholesky of the supernode panel
+	 for (int j = 0; j < w; ++j)
+	 {
+	    int cj = j*m;
+	    for (int r = j; r < m; ++r)
+	    {
+	       tmp[r] = X[cj+r];
+	    }
+	    for (int k = 0; k < j; ++k)
+	    {
+	       int ck = k*m;
+	       double xjk = X[ck+j];
+	       if (xjk != 0.)
+	       {
+		  for (int r = j; r < m; ++r)
+		  {
+		     tmp[r] -= X[ck+r]*xjk;
+		  }
+	       }
+	    }
+	    double d = tmp[j];
+	    if (!(d > 0.))
+	    {
+	       return false;
+	    }
+	    d = Math.sqrt(d);
+	    X[cj+j] = (float) d;
+	    for (int r = j+1; r < m; ++r)
+	    {
+	       X[cj+r] = (float) (tmp[r]/d);
+	    }
+	 }
+
+	 // update the ancestor supernodes
+	 int i = w;
+	 while (i < m)
+	 {
+	    int t = snode[sRows[r0+i]];
+	    int end = sFirst[t+1];
+	    int j = i;
+	    while ( (j < m) && (sRows[r0+j] < end) )
+	    {
+	       ++j;
+	    }
+
+	    setPositions(t);
+	    float[] Xt = Lf[t];
+	    int ft = sFirst[t];
+	    int mt = sRowPtr[t+1]-sRowPtr[t];
+	    for (int c = i; c < j; ++c)
+	    {
+	       for (int r = c; r < m; ++r)
+	       {
+		  tmp[r] = 0.;
+	       }
+	       for (int k = 0; k < w; ++k)
+	       {
+		  int ck = k*m;
+		  double xc = X[ck+c];
+		  if (xc != 0.)
+		  {
+		     for (int r = c; r < m; ++r)
+		     {
+			tmp[r] += X[ck+r]*xc;
+		     }
+		  }
+	       }
+	       int tc = (sRows[r0+c]-ft)*mt;
+	       for (int r = c; r < m; ++r)
+	       {
+		  Xt[tc+pos[sRows[r0+r]]] -= (float) tmp[r];
+	       }
+	    }
+	    i = j;
+	 }
+      }
+      return true;
+   }
+
+   @Override
+      protected void forward(double[] y)
+   {
+      if (Lf == null)
+      {
+	 super.forward(y);
+	 return;
+      }
+      for (int s = 0; s < ns; ++s)
+      {
+	 int f = sFirst[s];
+	 int w = sFirst[s+1]-f;
+	 int r0 = sRowPtr[s];
+	 int m = sRowPtr[s+1]-r0;
+	 float[] X = Lf[s];
+	 for (int j = 0; j < w; ++j)
+	 {
+	    int cj = j*m;
+	    double yj = y[f+j]/X[cj+j];
+	    y[f+j] = yj;
+	    for (int r = j+1; r < m; ++r)
+	    {
+	       y[sRows[r0+r]] -= X[cj+r]*yj;
+	    }
+	 }
+      }
+   }
+
+   @Override
+      protected void backward(double[] y)
+   {
+      if (Lf == null)
+      {
+	 super.backward(y);
+	 return;
+      }
+      for (int s = ns-1; s >= 0; --s)
+      {
+	 int f = sFirst[s];
+	 int w = sFirst[s+1]-f;
+	 int r0 = sRowPtr[s];
+	 int m = sRowPtr[s+1]-r0;
+	 float[] X = Lf[s];
+	 for (int j = w-1; j >= 0; --j)
+	 {
+	    int cj = j*m;
+	    double yj = y[f+j];
+	    for (int r = j+1; r < m; ++r)
+	    {
+	       yj -= X[cj+r]*y[sRows[r0+r]];
+	    }
+	    y[f+j] = yj/X[cj+j];
+	 }
+      }
+   }
+
+   /**
+     * r = b - A x in double precision; returns the backward error
+     * |r| / (|A| |x| + |b|)
+     */
+   protected double residual(double[] b, double[] x, double[] r, double bNorm)
+   {
+      double[] Ax = CSCMatrix.multiply(A, x);
+      for (int i = 0; i < n; ++i)
+      {
+	 r[i] = b[i]-Ax[i];
+      }
+      return normInf(r)/(aNorm*normInf(x)+bNorm);
+   }
+
+   private static double normInf(double[] a)
+   {
+      double s = 0.;
+      for (int i = 0; i < a.length; ++i)
+      {
+	 s = Math.max(s, Math.abs(a[i]));
+      }
+      return s;
+   }
+
+   /// Zeilensummennorm der symmetrischen Matrix
+   private static double normInf(CSCMatrix A)
+   {
+      int n = A.getN();
+      int[] colPtr = A.getColPtr();
+      int[] rowIdx = A.getRowIdx();
+      double[] val = A.getVal();
+      double[] sum = new double [n];
+      for (int j = 0; j < n; ++j)
+      {
+	 for (int e = colPtr[j]; e < colPtr[j+1]; ++e)
+	 {
+	    int i = rowIdx[e];
+	    sum[i] += Math.abs(val[e]);
+	    if (i != j)
+	    {
+	       sum[j] += Math.abs(val[e]);
+	    }
+	 }
+      }
+      return normInf(sum);
+   }
+
+   protected CSCMatrix A;
+   protected double aNorm;
+   protected float[][] Lf;
+   protected List<Double> history = new ArrayList<Double>();
+}
@@ -0,0 +1,415 @@
+package com.schwebke.math;
+
+/**
+  * Orderings of sparse symmetric matrices.
+  *
+  * The graph of the matrix is given in compressed form: the
+  * neighbours of vertex i are adj[xadj[i]] ... adj[xadj[i+1]-1]
+  * (no self loops). All orderings return a permutation perm,
+  * where perm[k] is the vertex that is numbered k-th.
+  *
+  * reverseCuthillMcKee: bandwidth and profile reduction
+  * nestedDissection:    fill reduction for sparse Cholesky factorization,
+  *                      separators from rooted level structures
+  * partition:           subdomains and interface for domain decomposition,
+  *                      with the same separators
+  *
+  * See A. George, J. W. Liu, "Computer Solution of Large Sparse
+  * Positive Definite Systems", Prentice-Hall.
+  */
+public class Ordering
+{
+   /**
+     * Reverse Cuthill-McKee ordering. Every connected component
+     * is started from a pseudo-peripheral vertex.
+     */
+   public static int[] reverseCuthillMcKee(int[] xadj, int[] adj)
+   {
+      int n = xadj.length-1;
+      int[] perm = new int [n];
+      boolean[] numbered = new boolean [n];
+      int[] level = new int [n];
+      int[] queue = new int [n];
+      for (int i = 0; i < n; ++i)
+      {
+	 level[i] = -1;
+      }
+
+      int k = 0;
+      for (int start = 0; start < n; ++start)
+      {
+	 if (numbered[start])
+	 {
+	    continue;
+	 }
+
+	 // vertex of minimum degree in the component of start
+	 int size = levelStructure(xadj, adj, start, numbered, level, queue);
+	 int root = start;
+	 for (int i = 0; i < size; ++i)
+	 {
+	    if (degree(xadj, queue[i]) < degree(xadj, root))
+	    {
+	       root = queue[i];
+	    }
+	    level[queue[i]] = -1;
+	 }
+	 root = pseudoPeripheral(xadj, adj, root, numbered, level, queue);
+
+	 // Cuthill-McKee: breadth first search, neighbours by increasing degree
+	 int first = k;
+	 perm[k++] = root;
+	 numbered[root] = true;
+	 for (int head = first; head < k; ++head)
+	 {
+	    int v = perm[head];
+	    int from = k;
+	    for (int e = xadj[v]; e < xadj[v+1]; ++e)
+	    {
+	       int w = adj[e];
+	       if (!numbered[w])
+	       {
+		  numbered[w] = true;
+		  perm[k++] = w;
+	       }
+	    }
+
+	    // insertion sort of the new vertices by degree
+	    for (int i = from+1; i < k; ++i)
+	    {
+	       int w = perm[i];
+	       int j = i-1;
+	       while ( (j >= from) && (degree(xadj, perm[j]) > degree(xadj, w)) )
+	       {
+		  perm[j+1] = perm[j];
+		  --j;
+	       }
+	       perm[j+1] = w;
+	    }
+	 }
+      }
+
+      // reverse
+      for (int i = 0, j = n-1; i < j; ++i, --j)
+      {
+	 int t = perm[i]; perm[i] = perm[j]; perm[j] = t;
+      }
+      return perm;
+   }
+
+   /**
+     * Subgraphs with at most this number of vertices are not
+     * dissected any further.
+     */
+   public static int leafSize = 32;
+
+   /**
+     * Nested dissection ordering. Each subgraph is split by the middle
+     * level of a rooted level structure from a pseudo-peripheral vertex;
+     * the two parts are ordered recursively, the separator last.
+     */
+   public static int[] nestedDissection(int[] xadj, int[] adj)
+   {
+      int n = xadj.length-1;
+      int[] perm = new int [n];
+      int[] work = new int [n];
+      boolean[] outside = new boolean [n];
+      int[] level = new int [n];
+      int[] queue = new int [n];
+      for (int i = 0; i < n; ++i)
+      {
+	 work[i] = i;
+	 outside[i] = true;
+	 level[i] = -1;
+      }
+
+      dissect(xadj, adj, work, 0, n, perm, outside, level, queue);
+      return perm;
+   }
+
+   /**
+     * Order the vertices work[lo] ... work[hi-1] and store them in
+     * perm[lo] ... perm[hi-1]. outside[v] is true and level[v] is -1
+     * for all vertices on entry and on return.
+     */
+   protected static void dissect(int[] xadj, int[] adj, int[] work, int lo, int hi,
+				 int[] perm, boolean[] outside, int[] level, int[] queue)
+   {
+      int size = hi-lo;
+      if (size <= leafSize)
+      {
+	 System.arraycopy(work, lo, perm, lo, size);
+	 return;
+      }
+
+      int nA = split(xadj, adj, work, lo, hi, outside, level, queue);
+      int nB = queue[0];
+      if (nA == size)
+      {
+	 System.arraycopy(work, lo, perm, lo, size);
+	 return;
+      }
+
+      dissect(xadj, adj, work, lo, lo+nA, perm, outside, level, queue);
+      dissect(xadj, adj, work, lo+nA, lo+nA+nB, perm, outside, level, queue);
+      System.arraycopy(work, lo+nA+nB, perm, lo+nA+nB, size-nA-nB);
+   }
+
+   /**
+     * Split the vertices work[lo] ... work[hi-1] by the middle level of
+     * a rooted level structure and reorder them as
+     * [part A | part B | separator]. Returns the size of part A (all
+     * vertices if there is no separating level), the size of part B is
+     * returned in queue[0]. outside[v] is true and level[v] is -1 for
+     * all vertices on entry and on return.
+     */
+   protected static int split(int[] xadj, int[] adj, int[] work, int lo, int hi,
+			      boolean[] outside, int[] level, int[] queue)
+   {
+      int size = hi-lo;
+      for (int i = lo; i < hi; ++i)
+      {
+	 outside[work[i]] = false;
+      }
+
+      int root = pseudoPeripheral(xadj, adj, work[lo], outside, level, queue);
+      int reached = levelStructure(xadj, adj, root, outside, level, queue);
+      int depth = level[queue[reached-1]];
+
+      int nA, nB;
+      if (reached < size)
+      {
+	 // disconnected: component of root against the rest
+	 int k = reached;
+	 for (int i = lo; i < hi; ++i)
+	 {
+	    if (level[work[i]] < 0)
+	    {
+	       queue[k++] = work[i];
+	    }
+	 }
+	 System.arraycopy(queue, 0, work, lo, size);
+	 nA = reached;
+	 nB = size-reached;
+      } else if (depth < 2) {
+	 // no separating level
+	 nA = size;
+	 nB = 0;
+      } else {
+	 // separator: the level at which half of the vertices are reached
+	 int sep = depth-1;
+	 for (int i = 0; i < reached; ++i)
+	 {
+	    if (2*(i+1) >= size)
+	    {
+	       sep = level[queue[i]];
+	       break;
+	    }
+	 }
+	 sep = Math.min(Math.max(sep, 1), depth-1);
+
+	 // separator vertices without neighbours behind the separator
+	 // belong to the first part
+	 for (int i = 0; i < reached; ++i)
+	 {
+	    int v = queue[i];
+	    if (level[v] == sep)
+	    {
+	       boolean touches = false;
+	       for (int e = xadj[v]; e < xadj[v+1]; ++e)
+	       {
+		  if (level[adj[e]] == sep+1)
+		  {
+		     touches = true;
+		  }
+	       }
+	       if (!touches)
+	       {
+		  level[v] = sep-1;
+	       }
+	    }
+	 }
+
+	 // reorder as [part A | part B | separator]
+	 int k = lo;
+	 for (int i = 0; i < reached; ++i)
+	 {
+	    if (level[queue[i]] < sep)
+	    {
+	       work[k++] = queue[i];
+	    }
+	 }
+	 nA = k-lo;
+	 for (int i = 0; i < reached; ++i)
+	 {
+	    if (level[queue[i]] > sep)
+	    {
+	       work[k++] = queue[i];
+	    }
+	 }
+	 nB = k-lo-nA;
+	 for (int i = 0; i < reached; ++i)
+	 {
+	    if (level[queue[i]] == sep)
+	    {
+	       work[k++] = queue[i];
+	    }
+	 }
+      }
+
+      for (int i = lo; i < hi; ++i)
+      {
+	 outside[work[i]] = true;
+	 level[work[i]] = -1;
+      }
+      queue[0] = nB;
+      return nA;
+   }
+
+   /**
+     * Partition of the graph into at most parts subdomains by recursive
+     * bisection with the separators of the nested dissection: returns
+     * the subdomain (0 ... parts-1) of every vertex, -1 for the vertices
+     * of the separators (interface). Vertices of different subdomains
+     * are never adjacent.
+     */
+   public static int[] partition(int[] xadj, int[] adj, int parts)
+   {
+      int n = xadj.length-1;
+      int[] domain = new int [n];
+      int[] work = new int [n];
+      boolean[] outside = new boolean [n];
+      int[] level = new int [n];
+      int[] queue = new int [n];
+      for (int i = 0; i < n; ++i)
+      {
+	 work[i] = i;
+	 outside[i] = true;
+	 level[i] = -1;
+      }
+
+      int[] next = new int [1];
+      bisect(xadj, adj, work, 0, n, Math.max(parts, 1), domain, next, outside, level, queue);
+      return domain;
+   }
+
+   /**
+     * Assign the vertices work[lo] ... work[hi-1] to parts subdomains,
+     * numbered from next[0] on.
+     */
+   protected static void bisect(int[] xadj, int[] adj, int[] work, int lo, int hi, int parts,
+				int[] domain, int[] next, boolean[] outside, int[] level, int[] queue)
+   {
+      if (hi == lo)
+      {
+	 return;
+      }
+      int nA = (parts > 1) ? split(xadj, adj, work, lo, hi, outside, level, queue) : hi-lo;
+      if (nA == hi-lo)
+      {
+	 int d = next[0]++;
+	 for (int i = lo; i < hi; ++i)
+	 {
+	    domain[work[i]] = d;
+	 }
+	 return;
+      }
+      int nB = queue[0];
+
+      for (int i = lo+nA+nB; i < hi; ++i)
+      {
+	 domain[work[i]] = -1;
+      }
+      int partsA = (parts+1)/2;
+      bisect(xadj, adj, work, lo, lo+nA, partsA, domain, next, outside, level, queue);
+      bisect(xadj, adj, work, lo+nA, lo+nA+nB, parts-partsA, domain, next, outside, level, queue);
+   }
+
+   /**
+     * Inverse permutation: iperm[perm[k]] = k
+     */
+   public static int[] invert(int[] perm)
+   {
+      int[] iperm = new int [perm.length];
+      for (int k = 0; k < perm.length; ++k)
+      {
+	 iperm[perm[k]] = k;
+      }
+      return iperm;
+   }
+
+   protected static int degree(int[] xadj, int v)
+   {
+      return xadj[v+1]-xadj[v];
+   }
+
+   /**
+     * Pseudo-peripheral vertex (George-Liu algorithm) of the connected
+     * component of root. Vertices marked in exclude are ignored.
+     * level[v] has to be -1 for all vertices of the component and
+     * is reset to -1 on return.
+     */
+   protected static int pseudoPeripheral(int[] xadj, int[] adj, int root, boolean[] exclude, int[] level, int[] queue)
+   {
+      int size = levelStructure(xadj, adj, root, exclude, level, queue);
+      int depth = level[queue[size-1]];
+      while (true)
+      {
+	 // vertex of minimum degree in the last level
+	 int candidate = -1;
+	 for (int i = 0; i < size; ++i)
+	 {
+	    int v = queue[i];
+	    if ( (level[v] == depth) &&
+		 ((candidate < 0) || (degree(xadj, v) < degree(xadj, candidate))) )
+	    {
+	       candidate = v;
+	    }
+	 }
+	 for (int i = 0; i < size; ++i)
+	 {
+	    level[queue[i]] = -1;
+	 }
+
+	 size = levelStructure(xadj, adj, candidate, exclude, level, queue);
+	 int candidateDepth = level[queue[size-1]];
+	 if (candidateDepth <= depth)
+	 {
+	    for (int i = 0; i < size; ++i)
+	    {
+	       level[queue[i]] = -1;
+	    }
+	    return root;
+	 }
+	 root = candidate;
+	 depth = candidateDepth;
+      }
+   }
+
+   /**
+     * Rooted level structure by breadth first search. level[v] has to be
+     * -1 for all unvisited vertices; after the call it holds the distance
+     * from root for the visited vertices, which are stored in queue in
+     * the order of their visit. Returns the number of visited vertices.
+     */
+   protected static int levelStructure(int[] xadj, int[] adj, int root, boolean[] exclude, int[] level, int[] queue)
+   {
+      int n = 0;
+      queue[n++] = root;
+      level[root] = 0;
+      for (int head = 0; head < n; ++head)
+      {
+	 int v = queue[head];
+	 for (int e = xadj[v]; e < xadj[v+1]; ++e)
+	 {
+	    int w = adj[e];
+	    if ( (level[w] < 0) && (!exclude[w]) )
+	    {
+	       level[w] = level[v]+1;
+	       queue[n++] = w;
+	    }
+	 }
+      }
+      return n;
+   }
+}
@@ -30,6 +30,31 @@ public class PMatrix
    }
 
 
+   /**
+     * Neue Matrix mit vorgegebener Profilstruktur erzeugen.
+     * Zeile i belegt die Spalten minCol[i] bis maxCol[i]-1; der
+     * Speicher wird hier vollständig angelegt und mit 0 gefüllt.
+     * Nachfolgende Schreibzugriffe innerhalb des Profils
+     * (set, add, addUnchecked) vergrößern die Matrix nicht mehr.
+     */
+   public PMatrix(int rows, int cols, int[] minCol, int[] maxCol)
+   {
+      this(rows, cols);
+
+      for (int i = 0; i < rows; ++i)
+      {
+	 if (maxCol[i] > minCol[i])
+	 {
+	    check(i, minCol[i]);
+	    check(i, maxCol[i]-1);
+	    this.minCol[i] = minCol[i];
+	    this.maxCol[i] = maxCol[i];
+	    m[i] = new double [maxCol[i]-minCol[i]];
+	 }
+      }
+   }
+
+
    /// Matrix kopieren
    public static PMatrix duplicate(PMatrix A)
    {
@@ -42,7 +67,7 @@ public class PMatrix
 	 if (A.m[i] != null)
 	 {
 	    M.m[i] = new double [M.maxCol[i]-M.minCol[i]];
-	    for (int j = 0; j < M.m.length; ++j)
+	    for (int j = 0; j < M.m[i].length; ++j)
 	    {
 	       M.m[i][j] = A.m[i][j];
 	    }
@@ -51,7 +76,7 @@ public class PMatrix
       for (int i = 0; i < M.cols; ++i)
       {
 	 M.minRow[i] = A.minRow[i];
-	 M.minCol[i] = A.minCol[i];
+	 M.maxRow[i] = A.maxRow[i];
       }
 
       return M;
@@ -132,6 +157,12 @@ public class PMatrix
       return;
    }
 
+   /// Wert an der Stelle (row, col) aufaddieren (Keine Matrixvergrößerung, keine Prüfung)
+   public void addUnchecked(int row, int col, double v)
+   {
+      m[row][col-minCol[row]] += v;
+   }
+
    /// Element an der Stelle (row, col) lesen. (Keine Matrixvergrößerung, keine Prüfung)
    public double getUnchecked(int row, int col)
    {
@@ -0,0 +1,102 @@
+package com.schwebke.math;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+  * Shared fork/join pool for the parallel numerical kernels.
+  *
+  * Work is split into index ranges; every result element is computed
+  * by exactly one task with the same operation order as in the serial
+  * code, so the results are bitwise identical for every parallelism
+  * level.
+  */
+public class Parallel
+{
+   /**
+     * body of a parallel loop, called for the index range [from, to)
+     */
+   public interface RangeBody
+   {
+      void run(int from, int to);
+   }
+
+   private static ForkJoinPool pool;
+   private static int parallelism = Runtime.getRuntime().availableProcessors();
+
+   /**
+     * set the number of worker threads (1: serial execution)
+     */
+   public static synchronized void setParallelism(int threads)
+   {
+      if (threads < 1)
+      {
+	 throw new IllegalArgumentException("parallelism must be at least 1");
+      }
+      if (threads != parallelism && pool != null)
+      {
+	 pool.shutdown();
+	 pool = null;
+      }
+      parallelism = threads;
+   }
+
+   public static synchronized int getParallelism()
+   {
+      return parallelism;
+   }
+
+   public static synchronized ForkJoinPool getPool()
+   {
+      if (pool == null)
+      {
+	 pool = new ForkJoinPool(parallelism);
+      }
+      return pool;
+   }
+
+   /**
+     * run body for [from, to) split into chunks of at least grain indices
+     */
+   public static void forRange(int from, int to, int grain, RangeBody body)
+   {
+      if (to-from <= Math.max(grain, 1) || getParallelism() == 1)
+      {
+	 if (from < to)
+	 {
+	    body.run(from, to);
+	 }
+	 return;
+      }
+      getPool().invoke(new RangeTask(from, to, Math.max(grain, 1), body));
+   }
+
+   private static class RangeTask extends RecursiveAction
+   {
+      private static final long serialVersionUID = 1L;
+
+      private final int from, to, grain;
+      private final RangeBody body;
+
+      RangeTask(int from, int to, int grain, RangeBody body)
+      {
+	 this.from = from;
+	 this.to = to;
+	 this.grain = grain;
+	 this.body = body;
+      }
+
+      @Override
+      protected void compute()
+      {
+	 if (to-from <= grain)
+	 {
+	    body.run(from, to);
+	    return;
+	 }
+	 int mid = (from+to) >>> 1;
+	 invokeAll(new RangeTask(from, mid, grain, body),
+	       new RangeTask(mid, to, grain, body));
+      }
+   }
+}
@@ -0,0 +1,11 @@
+package com.schwebke.math;
+
+/**
+  * Preconditioner for the conjugate gradient method: z = M^-1 r
+  * for a symmetric positive definite approximation M of A.
+  */
+public interface Preconditioner
+{
+   /// z = M^-1 r (r is not modified)
+   void apply(double[] r, double[] z);
+}
@@ -0,0 +1,66 @@
+package com.schwebke.math;
+
+/**
+  * Symmetric successive over-relaxation preconditioner
+  * M = w/(2-w) (D/w + L) (D/w)^-1 (D/w + L^T), 0 < w < 2
+  * (w = 1: symmetric Gauss-Seidel).
+  */
+public class SSORPreconditioner implements Preconditioner
+{
+   public SSORPreconditioner(CSRMatrix A, double omega)
+   {
+      if ( (omega <= 0.) || (omega >= 2.) )
+      {
+	 throw new IllegalArgumentException("SSOR: relaxation parameter must be in (0, 2)");
+      }
+      this.A = A;
+      this.omega = omega;
+      diag = A.getDiagonal();
+   }
+
+   public void apply(double[] r, double[] z)
+   {
+      int n = A.getN();
+      int[] ptr = A.getRowPtr();
+      int[] idx = A.getColIdx();
+      double[] val = A.getVal();
+
+      // (D/w + L) y = r
+      for (int i = 0; i < n; ++i)
+      {
+	 double s = r[i];
+	 for (int e = ptr[i]; e < ptr[i+1] && idx[e] < i; ++e)
+	 {
+	    s -= val[e]*z[idx[e]];
+	 }
+	 z[i] = s*omega/diag[i];
+      }
+
+      // y := (D/w) y
+      for (int i = 0; i < n; ++i)
+      {
+	 z[i] *= diag[i]/omega;
+      }
+
+      // (D/w + L^T) z = y
+      for (int i = n-1; i >= 0; --i)
+      {
+	 double s = z[i];
+	 for (int e = ptr[i+1]-1; e >= ptr[i] && idx[e] > i; --e)
+	 {
+	    s -= val[e]*z[idx[e]];
+	 }
+	 z[i] = s*omega/diag[i];
+      }
+
+      double scale = 2.-omega;
+      for (int i = 0; i < n; ++i)
+      {
+	 z[i] *= scale;
+      }
+   }
+
+   protected CSRMatrix A;
+   protected double omega;
+   protected double[] diag;
+}
@@ -3,7 +3,7 @@ package com.schwebke.math;
 /**
   * Linear Equation System Solvers (Ax=b)
   *
-  * direct solvers: Gauss, Cholesky
+  * direct solvers: Gauss, Cholesky (also blocked on flat row-major arrays)
   *                 after the call A contains the decomposed matix
   *                 and b contains the solution vector
   *
@@ -239,6 +239,11 @@ public class Solver
       }
    }
 
+   /**
+     * Cholesky decomposition of an SPD matrix in profile storage, in
+     * place (A = L L^T); throws IllegalArgumentException if A is
+     * singular (not positive definite)
+     */
    public static void factorizeCholesky(PMatrix A)
    {
       int n = A.getRows();
@@ -255,9 +260,9 @@ public class Solver
 	    double Akj = A.getUnchecked(k, j);
 	    Akk -= Akj*Akj;
 	 }
-	 if (Akk < 1e-15)
+	 if (!(Akk >= 1e-15))
 	 {
-	    System.out.println("warning: singular matrix");
+	    throw new IllegalArgumentException("singular matrix");
 	 }
 	 Akk = Math.sqrt(Akk);
 	 A.setUnchecked(k, k, Akk);
@@ -307,9 +312,444 @@ public class Solver
       }
    }
 
+   /**
+     * forward and backward substitution with a factorized profile matrix
+     * for nrhs right hand sides at once (B[i*nrhs+c], see
+     * substCholesky(double[], int, double[], int))
+     */
+   public static void substCholesky(PMatrix A, double[] B, int nrhs)
+   {
+      int n = A.getRows();
+
+      for (int k = 0; k < n; ++k)
+      {
+	 int bk = k*nrhs;
+	 for (int i = A.getMinCol(k); i < k; ++i)
+	 {
+	    double Aki = A.getUnchecked(k, i);
+	    int bi = i*nrhs;
+	    for (int c = 0; c < nrhs; ++c)
+	    {
+	       B[bk+c] -= Aki*B[bi+c];
+	    }
+	 }
+	 double d = 1./A.getUnchecked(k, k);
+	 for (int c = 0; c < nrhs; ++c)
+	 {
+	    B[bk+c] *= d;
+	 }
+      }
+
+      for (int k = n-1; k >= 0; --k)
+      {
+	 int bk = k*nrhs;
+	 double d = 1./A.getUnchecked(k, k);
+	 for (int c = 0; c < nrhs; ++c)
+	 {
+	    B[bk+c] *= d;
+	 }
+	 for (int i = A.getMinCol(k); i < k; ++i)
+	 {
+	    double Aki = A.getUnchecked(k, i);
+	    int bi = i*nrhs;
+	    for (int c = 0; c < nrhs; ++c)
+	    {
+	       B[bi+c] -= Aki*B[bk+c];
+	    }
+	 }
+      }
+   }
+
    public static void linsolveCholesky(PMatrix A, double[] b)
    {
       factorizeCholesky(A);
       substCholesky(A, b);
    }
+
+   /**
+     * block size of the blocked Cholesky decomposition and substitution
+     * (flat row-major storage)
+     */
+   public static int blockSize = 64;
+
+   /**
+     * Cholesky decomposition for SPD matrices stored in a flat row-major
+     * array (A[i*n+j]), blocked right-looking variant (panel and trailing
+     * update run in parallel on the Parallel pool, bitwise deterministic):
+     * after the call the lower triangle of A contains L (A = L L^T),
+     * the upper triangle is not referenced; throws
+     * IllegalArgumentException if A is singular (not positive definite)
+     */
+   public static void factorizeCholesky(double[] A, int n)
+   {
+      if (A.length < n*n)
+      {
+	 throw new IllegalArgumentException("factorizeCholesky: array too small for n x n matrix");
+      }
+
+      for (int kb = 0; kb < n; kb += blockSize)
+      {
+	 int ke = Math.min(kb+blockSize, n);
+
+	 // diagonal block
+	 for (int k = kb; k < ke; ++k)
+	 {
+	    int rk = k*n;
+	    double Akk = A[rk+k];
+	    for (int j = kb; j < k; ++j)
+	    {
+	       Akk -= A[rk+j]*A[rk+j];
+	    }
+	    if (!(Akk >= 1e-15))
+	    {
+	       throw new IllegalArgumentException("singular matrix");
+	    }
+	    Akk = Math.sqrt(Akk);
+	    A[rk+k] = Akk;
+
+	    for (int i = k+1; i < ke; ++i)
+	    {
+	       int ri = i*n;
+	       double Aik = A[ri+k];
+	       for (int j = kb; j < k; ++j)
+	       {
+		  Aik -= A[ri+j]*A[rk+j];
+	       }
+	       A[ri+k] = Aik/Akk;
+	    }
+	 }
+
+	 // panel below the diagonal block and trailing matrix update,
+	 // distributed over rows (row pairs for the update)
+	 final int kb0 = kb, ke0 = ke;
+	 Parallel.forRange(ke, n, parallelGrain, (from, to) ->
+	    solvePanelRows(A, n, kb0, ke0, from, to));
+	 Parallel.forRange(0, (n-ke+1)/2, parallelGrain/2, (from, to) ->
+	    updateTrailingRows(A, n, kb0, ke0, ke0+2*from, Math.min(n, ke0+2*to)));
+      }
+   }
+
+   /**
+     * minimal number of rows per task of the parallel Cholesky decomposition
+     */
+   public static int parallelGrain = 32;
+
+   private static void solvePanelRows(double[] A, int n, int kb, int ke, int iFrom, int iTo)
+   {
+      for (int i = iFrom; i < iTo; ++i)
+      {
+	 int ri = i*n;
+	 for (int k = kb; k < ke; ++k)
+	 {
+	    int rk = k*n;
+	    double Aik = A[ri+k];
+	    for (int j = kb; j < k; ++j)
+	    {
+	       Aik -= A[ri+j]*A[rk+j];
+	    }
+	    A[ri+k] = Aik/A[rk+k];
+	 }
+      }
+   }
+
+   /**
+     * A[i][j] -= L[i][kb:ke] L[j][kb:ke]^T for the rows iFrom <= i < iTo
+     * (iFrom-ke even), tiled by column blocks, 2x2 register blocking
+     */
+   private static void updateTrailingRows(double[] A, int n, int kb, int ke, int iFrom, int iTo)
+   {
+      for (int jb = ke; jb < iTo; jb += blockSize)
+      {
+	 int je = Math.min(jb+blockSize, n);
+	 int i = iFrom;
+	 for (; i+1 < iTo; i += 2)
+	 {
+	    if (i+1 < jb)
+	    {
+	       continue;
+	    }
+	    int ri = i*n;
+	    int ri1 = ri+n;
+	    int jEnd = Math.min(je, i+1);
+	    int j = jb;
+	    for (; j+1 < jEnd; j += 2)
+	    {
+	       int rj = j*n;
+	       int rj1 = rj+n;
+	       double s00 = 0., s01 = 0., s10 = 0., s11 = 0.;
+	       for (int k = kb; k < ke; ++k)
+	       {
+		  double a0 = A[ri+k];
+		  double a1 = A[ri1+k];
+		  double b0 = A[rj+k];
+		  double b1 = A[rj1+k];
+		  s00 += a0*b0;
+		  s01 += a0*b1;
+		  s10 += a1*b0;
+		  s11 += a1*b1;
+	       }
+	       A[ri+j] -= s00;
+	       A[ri+j+1] -= s01;
+	       A[ri1+j] -= s10;
+	       A[ri1+j+1] -= s11;
+	    }
+	    for (; j < Math.min(je, i+2); ++j)
+	    {
+	       updateTrailing(A, n, kb, ke, i+1, j);
+	       if (j <= i)
+	       {
+		  updateTrailing(A, n, kb, ke, i, j);
+	       }
+	    }
+	 }
+	 if (i < iTo)
+	 {
+	    for (int j = jb; j < Math.min(je, i+1); ++j)
+	    {
+	       updateTrailing(A, n, kb, ke, i, j);
+	    }
+	 }
+      }
+   }
+
+   private static void updateTrailing(double[] A, int n, int kb, int ke, int i, int j)
+   {
+      int ri = i*n;
+      int rj = j*n;
+      double s = 0.;
+      for (int k = kb; k < ke; ++k)
+      {
+	 s += A[ri+k]*A[rj+k];
+      }
+      A[ri+j] -= s;
+   }
+
+   /**
+     * forward and backward substitution with the factor computed by
+     * factorizeCholesky(double[], int), b contains the solution afterwards
+     */
+   public static void substCholesky(double[] A, int n, double[] b)
+   {
+      // L y = b
+      for (int kb = 0; kb < n; kb += blockSize)
+      {
+	 int ke = Math.min(kb+blockSize, n);
+	 for (int k = kb; k < ke; ++k)
+	 {
+	    int rk = k*n;
+	    double bk = b[k];
+	    for (int i = 0; i < k; ++i)
+	    {
+	       bk -= A[rk+i]*b[i];
+	    }
+	    b[k] = bk/A[rk+k];
+	 }
+      }
+
+      // L^T x = y
+      int nb = (n-1)/blockSize*blockSize;
+      for (int kb = nb; kb >= 0; kb -= blockSize)
+      {
+	 int ke = Math.min(kb+blockSize, n);
+	 for (int i = ke; i < n; ++i)
+	 {
+	    int ri = i*n;
+	    double bi = b[i];
+	    for (int k = kb; k < ke; ++k)
+	    {
+	       b[k] -= A[ri+k]*bi;
+	    }
+	 }
+	 for (int k = ke-1; k >= kb; --k)
+	 {
+	    b[k] /= A[k*n+k];
+	    double bk = b[k];
+	    int rk = k*n;
+	    for (int i = kb; i < k; ++i)
+	    {
+	       b[i] -= A[rk+i]*bk;
+	    }
+	 }
+      }
+   }
+
+   /**
+     * forward and backward substitution for nrhs right hand sides at once:
+     * B is the n x nrhs matrix of the right hand sides in flat row-major
+     * storage (B[i*nrhs+c]) and contains the solutions afterwards;
+     * every entry of L is loaded once for all right hand sides
+     */
+   public static void substCholesky(double[] A, int n, double[] B, int nrhs)
+   {
+      // L Y = B
+      for (int k = 0; k < n; ++k)
+      {
+	 int rk = k*n;
+	 int bk = k*nrhs;
+	 for (int i = 0; i < k; ++i)
+	 {
+	    double Aki = A[rk+i];
+	    if (Aki != 0.)
+	    {
+	       int bi = i*nrhs;
+	       for (int c = 0; c < nrhs; ++c)
+	       {
+		  B[bk+c] -= Aki*B[bi+c];
+	       }
+	    }
+	 }
+	 double d = 1./A[rk+k];
+	 for (int c = 0; c < nrhs; ++c)
+	 {
+	    B[bk+c] *= d;
+	 }
+      }
+
+      // L^T X = Y
+      for (int k = n-1; k >= 0; --k)
+      {
+	 int rk = k*n;
+	 int bk = k*nrhs;
+	 double d = 1./A[rk+k];
+	 for (int c = 0; c < nrhs; ++c)
+	 {
+	    B[bk+c] *= d;
+	 }
+	 for (int i = 0; i < k; ++i)
+	 {
+	    double Aki = A[rk+i];
+	    if (Aki != 0.)
+	    {
+	       int bi = i*nrhs;
+	       for (int c = 0; c < nrhs; ++c)
+	       {
+		  B[bi+c] -= Aki*B[bk+c];
+	       }
+	    }
+	 }
+      }
+   }
+
+   /**
+     * backward substitution L^T x = b only, with the factor computed by
+     * factorizeCholesky(double[], int); b contains x afterwards
+     */
+   public static void substCholeskyLT(double[] A, int n, double[] b)
+   {
+      for (int k = n-1; k >= 0; --k)
+      {
+	 int rk = k*n;
+	 double bk = b[k]/A[rk+k];
+	 b[k] = bk;
+	 for (int i = 0; i < k; ++i)
+	 {
+	    b[i] -= A[rk+i]*bk;
+	 }
+      }
+   }
+
+   /**
+     * blocked Cholesky solver for SPD matrices in flat row-major storage
+     */
+   public static void cholesky(double[] A, int n, double[] b)
+   {
+      factorizeCholesky(A, n);
+      substCholesky(A, n, b);
+   }
+
+   /**
+     * Reduction of the generalized eigenproblem K x = lambda D x with
+     * diagonal D to standard form: with the factor L of K computed by
+     * factorizeCholesky(double[], int), A = L^-1 D L^-T is stored in A
+     * (n x n, e.g. the no longer needed storage of K). No inverse is
+     * formed: C = L^-1 D^1/2 is computed by forward substitution into
+     * the lower triangle of A (columns of massless DOFs stay zero), then
+     * A = C C^T overwrites C row by row from the bottom.
+     * The eigenvectors x follow from those z of A by x = L^-T z
+     * (substCholeskyLT).
+     */
+   public static void reduceCholesky(double[] L, int n, double[] d, double[][] A)
+   {
+      // C = L^-1 D^1/2 (lower triangular); the columns are independent
+      Parallel.forRange(0, n, parallelGrain, (from, to) ->
+	 reduceColumns(L, n, d, A, from, to));
+
+      // A = C C^T from the bottom; row i only needs the rows j <= i of C
+      double row[] = new double [n];
+      for (int i = n-1; i >= 0; --i)
+      {
+	 int ri = i;
+	 Parallel.forRange(0, i+1, parallelGrain, (from, to) ->
+	    productRow(A, ri, row, from, to));
+	 System.arraycopy(row, 0, A[i], 0, i+1);
+      }
+
+      // upper triangle
+      for (int i = 0; i < n; ++i)
+      {
+	 for (int j = 0; j < i; ++j)
+	 {
+	    A[j][i] = A[i][j];
+	 }
+      }
+   }
+
+   /**
+     * columns j0 ... j1-1 of C = L^-1 D^1/2 by forward substitution
+     * (row-wise, the entries of a column in ascending order of k)
+     */
+   private static void reduceColumns(double[] L, int n, double[] d, double[][] A, int j0, int j1)
+   {
+      for (int i = j0; i < n; ++i)
+      {
+	 double Ci[] = A[i];
+	 int ri = i*n;
+	 int je = Math.min(i, j1);
+	 for (int j = j0; j < je; ++j)
+	 {
+	    Ci[j] = 0.;
+	 }
+	 if (i < j1)
+	 {
+	    Ci[i] = Math.sqrt(d[i]);
+	 }
+	 for (int k = j0; k < i; ++k)
+	 {
+	    double Lik = L[ri+k];
+	    if (Lik != 0.)
+	    {
+	       double Ck[] = A[k];
+	       int ke = Math.min(k+1, j1);
+	       for (int j = j0; j < ke; ++j)
+	       {
+		  Ci[j] -= Lik*Ck[j];
+	       }
+	    }
+	 }
+	 double Lii = L[ri+i];
+	 int ie = Math.min(i+1, j1);
+	 for (int j = j0; j < ie; ++j)
+	 {
+	    Ci[j] /= Lii;
+	 }
+      }
+   }
+
+   /**
+     * row[j] = (C C^T)[i][j] for j = j0 ... j1-1 (j <= i)
+     */
+   private static void productRow(double[][] C, int i, double[] row, int j0, int j1)
+   {
+      double Ci[] = C[i];
+      for (int j = j0; j < j1; ++j)
+      {
+	 double Cj[] = C[j];
+	 double s = 0.;
+	 for (int k = 0; k <= j; ++k)
+	 {
+	    s += Ci[k]*Cj[k];
+	 }
+	 row[j] = s;
+      }
+   }
 }
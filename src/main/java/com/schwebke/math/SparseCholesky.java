@@ -0,0 +1,596 @@
+package com.schwebke.math;
+
+import java.util.Arrays;
+
+/**
+  * Supernodal sparse Cholesky factorization P A P^T = L L^T of a
+  * symmetric positive definite CSCMatrix.
+  *
+  * symbolic phase: fill reducing ordering (nested dissection unless
+  *                 given), elimination tree, column counts of L and
+  *                 (fundamental) supernodes
+  * numeric phase:  right-looking supernodal factorization; every
+  *                 supernode is a dense block of its columns with
+  *                 all their rows in L, stored column by column
+  *
+  * The numeric phase can be repeated for new values of a matrix
+  * with the same structure (factorize).
+  *
+  * See J. W. Liu, "The role of elimination trees in sparse
+  * factorization", SIAM J. Matrix Anal. Appl. 11 (1990) and
+  * T. A. Davis, "Direct Methods for Sparse Linear Systems", SIAM.
+  */
+public class SparseCholesky
+{
+   /**
+     * Symbolic and numeric factorization with a nested dissection
+     * ordering of the graph of A.
+     */
+   public SparseCholesky(CSCMatrix A)
+   {
+      this(A, Ordering.nestedDissection(graphXadj(A), graphAdj(A)));
+   }
+
+   /**
+     * Symbolic and numeric factorization with the given fill reducing
+     * ordering: perm[k] is the row/column of A that becomes row/column
+     * k of L.
+     */
+   public SparseCholesky(CSCMatrix A, int[] perm)
+   {
+      n = A.getN();
+      this.perm = perm;
+      pinv = Ordering.invert(perm);
+      analyze(A);
+      factorize(A);
+   }
+
+   /**
+     * Numeric factorization of A, which has to have the structure of
+     * the matrix of the symbolic phase. Throws IllegalArgumentException
+     * if A is singular (not positive definite).
+     */
+   public void factorize(CSCMatrix A)
+   {
+      double[] aVal = A.getVal();
+
+      // scatter A into the supernodes
+      for (int s = 0; s < ns; ++s)
+      {
+	 Arrays.fill(Lx[s], 0.);
+      }
+      for (int s = 0; s < ns; ++s)
+      {
+	 int f = sFirst[s];
+	 int m = sRowPtr[s+1]-sRowPtr[s];
+	 setPositions(s);
+	 double[] X = Lx[s];
+	 for (int c = f; c < sFirst[s+1]; ++c)
+	 {
+	    for (int e = cColPtr[c]; e < cColPtr[c+1]; ++e)
+	    {
+	       X[(c-f)*m+pos[cRowIdx[e]]] += aVal[cMap[e]];
+	    }
+	 }
+      }
+
+      double[] tmp = new double [maxRows];
+      for (int s = 0; s < ns; ++s)
+      {
+	 int f = sFirst[s];
+	 int w = sFirst[s+1]-f;
+	 int r0 = sRowPtr[s];
+	 int m = sRowPtr[s+1]-r0;
+	 double[] X = Lx[s];
+
+	 // dense Cholesky of the supernode panel
+	 for (int j = 0; j < w; ++j)
+	 {
+	    int cj = j*m;
+	    for (int k = 0; k < j; ++k)
+	    {
+	       int ck = k*m;
+	       double xjk = X[ck+j];
+	       if (xjk != 0.)
+	       {
+		  for (int r = j; r < m; ++r)
+		  {
+		     X[cj+r] -= X[ck+r]*xjk;
+		  }
+	       }
+	    }
+	    double d = X[cj+j];
+	    if (!(d >= 1e-15))
+	    {
+	       throw new IllegalArgumentException("singular matrix");
+	    }
+	    d = Math.sqrt(d);
+	    X[cj+j] = d;
+	    for (int r = j+1; r < m; ++r)
+	    {
+	       X[cj+r] /= d;
+	    }
+	 }
+
+	 // update the ancestor supernodes
+	 int i = w;
+	 while (i < m)
+	 {
+	    int t = snode[sRows[r0+i]];
+	    int end = sFirst[t+1];
+	    int j = i;
+	    while ( (j < m) && (sRows[r0+j] < end) )
+	    {
+	       ++j;
+	    }
+
+	    setPositions(t);
+	    double[] Xt = Lx[t];
+	    int ft = sFirst[t];
+	    int mt = sRowPtr[t+1]-sRowPtr[t];
+	    for (int c = i; c < j; ++c)
+	    {
+	       for (int r = c; r < m; ++r)
+	       {
+		  tmp[r] = 0.;
+	       }
+	       for (int k = 0; k < w; ++k)
+	       {
+		  int ck = k*m;
+		  double xc = X[ck+c];
+		  if (xc != 0.)
+		  {
+		     for (int r = c; r < m; ++r)
+		     {
+			tmp[r] += X[ck+r]*xc;
+		     }
+		  }
+	       }
+	       int tc = (sRows[r0+c]-ft)*mt;
+	       for (int r = c; r < m; ++r)
+	       {
+		  Xt[tc+pos[sRows[r0+r]]] -= tmp[r];
+	       }
+	    }
+	    i = j;
+	 }
+      }
+   }
+
+   /**
+     * Solve A x = b with the factorization; b is overwritten by x.
+     */
+   public void solve(double[] b)
+   {
+      double[] y = new double [n];
+      for (int k = 0; k < n; ++k)
+      {
+	 y[k] = b[perm[k]];
+      }
+      forward(y);
+      backward(y);
+      for (int k = 0; k < n; ++k)
+      {
+	 b[perm[k]] = y[k];
+      }
+   }
+
+   /**
+     * Solve A X = B for nrhs right hand sides at once: B is the n x nrhs
+     * matrix in flat row-major storage (B[i*nrhs+c]) and is overwritten
+     * by X; every entry of L is loaded once for all right hand sides.
+     */
+   public void solve(double[] B, int nrhs)
+   {
+      double[] Y = new double [n*nrhs];
+      for (int k = 0; k < n; ++k)
+      {
+	 System.arraycopy(B, perm[k]*nrhs, Y, k*nrhs, nrhs);
+      }
+
+      // L Z = Y
+      for (int s = 0; s < ns; ++s)
+      {
+	 int f = sFirst[s];
+	 int w = sFirst[s+1]-f;
+	 int r0 = sRowPtr[s];
+	 int m = sRowPtr[s+1]-r0;
+	 double[] X = Lx[s];
+	 for (int j = 0; j < w; ++j)
+	 {
+	    int cj = j*m;
+	    int yj = (f+j)*nrhs;
+	    double d = 1./X[cj+j];
+	    for (int c = 0; c < nrhs; ++c)
+	    {
+	       Y[yj+c] *= d;
+	    }
+	    for (int r = j+1; r < m; ++r)
+	    {
+	       double Lrj = X[cj+r];
+	       int yr = sRows[r0+r]*nrhs;
+	       for (int c = 0; c < nrhs; ++c)
+	       {
+		  Y[yr+c] -= Lrj*Y[yj+c];
+	       }
+	    }
+	 }
+      }
+
+      // L^T X = Z
+      for (int s = ns-1; s >= 0; --s)
+      {
+	 int f = sFirst[s];
+	 int w = sFirst[s+1]-f;
+	 int r0 = sRowPtr[s];
+	 int m = sRowPtr[s+1]-r0;
+	 double[] X = Lx[s];
+	 for (int j = w-1; j >= 0; --j)
+	 {
+	    int cj = j*m;
+	    int yj = (f+j)*nrhs;
+	    for (int r = j+1; r < m; ++r)
+	    {
+	       double Lrj = X[cj+r];
+	       int yr = sRows[r0+r]*nrhs;
+	       for (int c = 0; c < nrhs; ++c)
+	       {
+		  Y[yj+c] -= Lrj*Y[yr+c];
+	       }
+	    }
+	    double d = 1./X[cj+j];
+	    for (int c = 0; c < nrhs; ++c)
+	    {
+	       Y[yj+c] *= d;
+	    }
+	 }
+      }
+
+      for (int k = 0; k < n; ++k)
+      {
+	 System.arraycopy(Y, k*nrhs, B, perm[k]*nrhs, nrhs);
+      }
+   }
+
+   /**
+     * y = L^-1 P b (b is not modified)
+     */
+   public double[] solveL(double[] b)
+   {
+      double[] y = new double [n];
+      for (int k = 0; k < n; ++k)
+      {
+	 y[k] = b[perm[k]];
+      }
+      forward(y);
+      return y;
+   }
+
+   /**
+     * x = P^T L^-T y (y is overwritten)
+     */
+   public double[] solveLT(double[] y)
+   {
+      backward(y);
+      double[] x = new double [n];
+      for (int k = 0; k < n; ++k)
+      {
+	 x[perm[k]] = y[k];
+      }
+      return x;
+   }
+
+   /// Dimension
+   public int getN()
+   {
+      return n;
+   }
+
+   /// Anzahl der Einträge von L
+   public long getNnzL()
+   {
+      long nnz = 0;
+      for (int s = 0; s < ns; ++s)
+      {
+	 int w = sFirst[s+1]-sFirst[s];
+	 int m = sRowPtr[s+1]-sRowPtr[s];
+	 nnz += (long)w*m-(long)w*(w-1)/2;
+      }
+      return nnz;
+   }
+
+   /// Anzahl der Superknoten
+   public int getSupernodes()
+   {
+      return ns;
+   }
+
+   /// Verwendete Permutation
+   public int[] getPerm()
+   {
+      return perm;
+   }
+
+   protected void forward(double[] y)
+   {
+      for (int s = 0; s < ns; ++s)
+      {
+	 int f = sFirst[s];
+	 int w = sFirst[s+1]-f;
+	 int r0 = sRowPtr[s];
+	 int m = sRowPtr[s+1]-r0;
+	 double[] X = Lx[s];
+	 for (int j = 0; j < w; ++j)
+	 {
+	    int cj = j*m;
+	    double yj = y[f+j]/X[cj+j];
+	    y[f+j] = yj;
+	    for (int r = j+1; r < m; ++r)
+	    {
+	       y[sRows[r0+r]] -= X[cj+r]*yj;
+	    }
+	 }
+      }
+   }
+
+   protected void backward(double[] y)
+   {
+      for (int s = ns-1; s >= 0; --s)
+      {
+	 int f = sFirst[s];
+	 int w = sFirst[s+1]-f;
+	 int r0 = sRowPtr[s];
+	 int m = sRowPtr[s+1]-r0;
+	 double[] X = Lx[s];
+	 for (int j = w-1; j >= 0; --j)
+	 {
+	    int cj = j*m;
+	    double yj = y[f+j];
+	    for (int r = j+1; r < m; ++r)
+	    {
+	       yj -= X[cj+r]*y[sRows[r0+r]];
+	    }
+	    y[f+j] = yj/X[cj+j];
+	 }
+      }
+   }
+
+   /// pos[row] = Position der Zeile row im Superknoten s
+   protected void setPositions(int s)
+   {
+      for (int q = sRowPtr[s]; q < sRowPtr[s+1]; ++q)
+      {
+	 pos[sRows[q]] = q-sRowPtr[s];
+      }
+   }
+
+   /**
+     * Symbolic phase: permuted structure, elimination tree,
+     * column counts and supernodes.
+     */
+   protected void analyze(CSCMatrix A)
+   {
+      int[] aPtr = A.getColPtr();
+      int[] aIdx = A.getRowIdx();
+
+      // permuted lower triangle C = P A P^T (columns) with entry map,
+      // and its rows (= columns of the upper triangle)
+      int[] count = new int [n];
+      int[] rowCount = new int [n];
+      for (int j = 0; j < n; ++j)
+      {
+	 for (int e = aPtr[j]; e < aPtr[j+1]; ++e)
+	 {
+	    int pi = pinv[aIdx[e]];
+	    int pj = pinv[j];
+	    count[Math.min(pi, pj)]++;
+	    if (pi != pj)
+	    {
+	       rowCount[Math.max(pi, pj)]++;
+	    }
+	 }
+      }
+      cColPtr = new int [n+1];
+      int[] rPtr = new int [n+1];
+      for (int j = 0; j < n; ++j)
+      {
+	 cColPtr[j+1] = cColPtr[j]+count[j];
+	 rPtr[j+1] = rPtr[j]+rowCount[j];
+      }
+      cRowIdx = new int [cColPtr[n]];
+      cMap = new int [cColPtr[n]];
+      int[] rIdx = new int [rPtr[n]];
+      Arrays.fill(count, 0);
+      Arrays.fill(rowCount, 0);
+      for (int j = 0; j < n; ++j)
+      {
+	 for (int e = aPtr[j]; e < aPtr[j+1]; ++e)
+	 {
+	    int pi = pinv[aIdx[e]];
+	    int pj = pinv[j];
+	    int c = Math.min(pi, pj);
+	    int r = Math.max(pi, pj);
+	    int q = cColPtr[c]+count[c]++;
+	    cRowIdx[q] = r;
+	    cMap[q] = e;
+	    if (r != c)
+	    {
+	       rIdx[rPtr[r]+rowCount[r]++] = c;
+	    }
+	 }
+      }
+
+      // elimination tree
+      parent = new int [n];
+      int[] ancestor = new int [n];
+      for (int k = 0; k < n; ++k)
+      {
+	 parent[k] = -1;
+	 ancestor[k] = -1;
+	 for (int e = rPtr[k]; e < rPtr[k+1]; ++e)
+	 {
+	    int i = rIdx[e];
+	    while ( (i != -1) && (i < k) )
+	    {
+	       int next = ancestor[i];
+	       ancestor[i] = k;
+	       if (next == -1)
+	       {
+		  parent[i] = k;
+	       }
+	       i = next;
+	    }
+	 }
+      }
+
+      // column counts of L by row subtree traversal
+      int[] colCount = new int [n];
+      int[] mark = new int [n];
+      Arrays.fill(mark, -1);
+      for (int k = 0; k < n; ++k)
+      {
+	 mark[k] = k;
+	 colCount[k]++;
+	 for (int e = rPtr[k]; e < rPtr[k+1]; ++e)
+	 {
+	    for (int j = rIdx[e]; mark[j] != k; j = parent[j])
+	    {
+	       colCount[j]++;
+	       mark[j] = k;
+	    }
+	 }
+      }
+
+      // fundamental supernodes: chains j -> j+1 with nested structures
+      snode = new int [n];
+      int[] first = new int [n+1];
+      ns = 0;
+      for (int j = 0; j < n; ++j)
+      {
+	 if ( (j == 0) || (parent[j-1] != j) || (colCount[j-1] != colCount[j]+1) )
+	 {
+	    first[ns++] = j;
+	 }
+	 snode[j] = ns-1;
+      }
+      first[ns] = n;
+      sFirst = Arrays.copyOf(first, ns+1);
+
+      // row structures of the supernodes (= structure of their first column)
+      sRowPtr = new int [ns+1];
+      maxRows = 0;
+      for (int s = 0; s < ns; ++s)
+      {
+	 int m = colCount[sFirst[s]];
+	 sRowPtr[s+1] = sRowPtr[s]+m;
+	 maxRows = Math.max(maxRows, m);
+      }
+      sRows = new int [sRowPtr[ns]];
+      int[] fill = new int [ns];
+      Arrays.fill(mark, -1);
+      for (int k = 0; k < n; ++k)
+      {
+	 mark[k] = k;
+	 int s = snode[k];
+	 if (sFirst[s] == k)
+	 {
+	    sRows[sRowPtr[s]+fill[s]++] = k;
+	 }
+	 for (int e = rPtr[k]; e < rPtr[k+1]; ++e)
+	 {
+	    for (int j = rIdx[e]; mark[j] != k; j = parent[j])
+	    {
+	       mark[j] = k;
+	       int t = snode[j];
+	       if (sFirst[t] == j)
+	       {
+		  sRows[sRowPtr[t]+fill[t]++] = k;
+	       }
+	    }
+	 }
+      }
+
+      pos = new int [n];
+      allocate();
+   }
+
+   /// Speicher der Superknoten anlegen
+   protected void allocate()
+   {
+      Lx = new double [ns][];
+      for (int s = 0; s < ns; ++s)
+      {
+	 Lx[s] = new double [(sFirst[s+1]-sFirst[s])*(sRowPtr[s+1]-sRowPtr[s])];
+      }
+   }
+
+   /// Adjazenzstruktur des Graphen von A (Zeiger)
+   protected static int[] graphXadj(CSCMatrix A)
+   {
+      int n = A.getN();
+      int[] ptr = A.getColPtr();
+      int[] idx = A.getRowIdx();
+      int[] xadj = new int [n+1];
+      for (int j = 0; j < n; ++j)
+      {
+	 for (int e = ptr[j]; e < ptr[j+1]; ++e)
+	 {
+	    if (idx[e] != j)
+	    {
+	       xadj[idx[e]+1]++;
+	       xadj[j+1]++;
+	    }
+	 }
+      }
+      for (int j = 0; j < n; ++j)
+      {
+	 xadj[j+1] += xadj[j];
+      }
+      return xadj;
+   }
+
+   /// Adjazenzstruktur des Graphen von A (Nachbarn)
+   protected static int[] graphAdj(CSCMatrix A)
+   {
+      int n = A.getN();
+      int[] ptr = A.getColPtr();
+      int[] idx = A.getRowIdx();
+      int[] xadj = graphXadj(A);
+      int[] adj = new int [xadj[n]];
+      int[] fill = new int [n];
+      for (int j = 0; j < n; ++j)
+      {
+	 for (int e = ptr[j]; e < ptr[j+1]; ++e)
+	 {
+	    int i = idx[e];
+	    if (i != j)
+	    {
+	       adj[xadj[i]+fill[i]++] = j;
+	       adj[xadj[j]+fill[j]++] = i;
+	    }
+	 }
+      }
+      return adj;
+   }
+
+   protected int n;
+   protected int[] perm;
+   protected int[] pinv;
+   /// permutierte Struktur (unteres Dreieck, spaltenweise) und Zuordnung zu A
+   protected int[] cColPtr;
+   protected int[] cRowIdx;
+   protected int[] cMap;
+   /// Eliminationsbaum
+   protected int[] parent;
+   /// Superknoten: Spalten sFirst[s] ... sFirst[s+1]-1
+   protected int ns;
+   protected int[] sFirst;
+   protected int[] snode;
+   /// Zeilenstruktur der Superknoten
+   protected int[] sRowPtr;
+   protected int[] sRows;
+   protected int maxRows;
+   /// Werte der Superknoten (spaltenweise, sRowPtr[s+1]-sRowPtr[s] Zeilen)
+   protected double[][] Lx;
+   protected int[] pos;
+}
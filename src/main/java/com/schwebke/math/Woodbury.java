@@ -0,0 +1,127 @@
+package com.schwebke.math;
+
+/**
+  * Low-rank update of a factorized symmetric matrix by the
+  * Sherman-Morrison-Woodbury formula.
+  *
+  * The changed matrix is K = K0 + U C U^T, where U consists of the q
+  * unit vectors of the changed rows/columns (dofs) and C is the q x q
+  * change of K in these rows/columns. With Z = K0^-1 U and
+  * G = U^T Z (the dofs rows of Z) the solution of K x = b follows from
+  * x0 = K0^-1 b as
+  *
+  *    (I + C G) y = C U^T x0,   x = x0 - Z y
+  *
+  * C itself may be singular (e.g. the stiffness change of an element),
+  * so it is not inverted. Building the update costs q solves with K0
+  * (Z) and the LU decomposition of the q x q matrix I + C G, every
+  * corrected solve O(n q).
+  */
+public class Woodbury
+{
+   /**
+     * dofs: the changed rows/columns (0-based), C: their change (q x q),
+     * Z: K0^-1 U as n x q matrix in flat row-major storage
+     * (Z[i*q+a]); Z is kept, not copied.
+     * Throws IllegalArgumentException if K is singular.
+     */
+   public Woodbury(int[] dofs, double[][] C, double[] Z)
+   {
+      q = dofs.length;
+      this.dofs = dofs;
+      this.C = C;
+      this.Z = Z;
+
+      // S = I + C G
+      S = new double [q][q];
+      for (int a = 0; a < q; ++a)
+      {
+	 for (int b = 0; b < q; ++b)
+	 {
+	    double s = (a == b) ? 1. : 0.;
+	    for (int c = 0; c < q; ++c)
+	    {
+	       s += C[a][c]*Z[dofs[c]*q+b];
+	    }
+	    S[a][b] = s;
+	 }
+      }
+      t = new int [q];
+      for (int k = 0; k < q; ++k)
+      {
+	 t[k] = k;
+      }
+      if (q > 0)
+      {
+	 Solver.gaussDecomp(S, t);
+      }
+   }
+
+   /**
+     * x = K0^-1 b on input, overwritten by K^-1 b
+     */
+   public void correct(double[] x)
+   {
+      if (q == 0)
+      {
+	 return;
+      }
+      double[] y = new double [q];
+      for (int a = 0; a < q; ++a)
+      {
+	 double s = 0.;
+	 for (int c = 0; c < q; ++c)
+	 {
+	    s += C[a][c]*x[dofs[c]];
+	 }
+	 y[a] = s;
+      }
+      Solver.permuteGauss(y, t);
+      Solver.gaussSubst(S, y, t);
+      int n = x.length;
+      for (int i = 0; i < n; ++i)
+      {
+	 double s = 0.;
+	 for (int a = 0; a < q; ++a)
+	 {
+	    s += Z[i*q+a]*y[a];
+	 }
+	 x[i] -= s;
+      }
+   }
+
+   /**
+     * correct for nrhs right hand sides: X = K0^-1 B (n x nrhs,
+     * row-major) on input, overwritten by K^-1 B
+     */
+   public void correct(double[] X, int nrhs)
+   {
+      int n = X.length/nrhs;
+      double[] x = new double [n];
+      for (int c = 0; c < nrhs; ++c)
+      {
+	 for (int i = 0; i < n; ++i)
+	 {
+	    x[i] = X[i*nrhs+c];
+	 }
+	 correct(x);
+	 for (int i = 0; i < n; ++i)
+	 {
+	    X[i*nrhs+c] = x[i];
+	 }
+      }
+   }
+
+   /// Rang der Aktualisierung
+   public int getRank()
+   {
+      return q;
+   }
+
+   protected int q;
+   protected int[] dofs;
+   protected double[][] C;
+   protected double[] Z;
+   protected double[][] S;
+   protected int[] t;
+}
@@ -36,4 +36,17 @@ echo "Test 6: Error Handling (Invalid Model)"
 java -cp target/jbeam-4.1.0-jar-with-dependencies.jar com.schwebke.jbeam.JBeamCLI truss1-err.json 2>&1 | head -5
 echo
 
+# Test 7: Condensed modal analysis against the full eigenproblem
+echo "Test 7: Modal Analysis (Condensed vs. Full Eigenproblem)"
+CONDENSED=$(java -cp target/jbeam-4.1.0-jar-with-dependencies.jar com.schwebke.jbeam.JBeamCLI examples/frame4x3.json -a modal | grep "mode .*: f =")
+MODES=$(echo "$CONDENSED" | wc -l)
+FULL=$(java -cp target/jbeam-4.1.0-jar-with-dependencies.jar com.schwebke.jbeam.JBeamCLI examples/frame4x3.json -a modal --no-condense | grep "mode .*: f =" | head -n "$MODES")
+if [ "$CONDENSED" = "$FULL" ]; then
+    echo "OK: $MODES condensed frequencies match the full eigenproblem"
+else
+    echo "FAILED: condensed frequencies differ from the full eigenproblem"
+    diff <(echo "$CONDENSED") <(echo "$FULL")
+fi
+echo
+
 echo "=== All tests completed ==="
\ No newline at end of file